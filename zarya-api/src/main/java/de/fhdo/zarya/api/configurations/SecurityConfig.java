@@ -32,6 +32,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(requests -> requests
                         .requestMatchers("/auth/**").hasRole("DATA_SCIENTIST")
                         .requestMatchers("/admin/**", "/graphql").hasRole("ADMIN")
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/", "/home", "/status", "/register", "/login", "/logout", "/login/try", "/logout/success", "/register/try").permitAll()
                         .anyRequest().authenticated()
                 )
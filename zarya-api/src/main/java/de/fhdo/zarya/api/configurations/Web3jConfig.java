@@ -0,0 +1,58 @@
+package de.fhdo.zarya.api.configurations;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class Web3jConfig {
+
+    @Value("${ethereum.rpc.url:http://localhost:8545}")
+    private String rpcUrl;
+
+    @Value("${ethereum.rpc.pool.max-idle-connections:16}")
+    private int maxIdleConnections;
+
+    @Value("${ethereum.rpc.pool.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${ethereum.rpc.timeout.connect-seconds:10}")
+    private long connectTimeoutSeconds;
+
+    @Value("${ethereum.rpc.timeout.read-seconds:60}")
+    private long readTimeoutSeconds;
+
+    @Value("${ethereum.rpc.ping-interval-seconds:30}")
+    private long pingIntervalSeconds;
+
+    @Bean(destroyMethod = "evictAll")
+    public ConnectionPool rpcConnectionPool() {
+        return new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS);
+    }
+
+    @Bean
+    public OkHttpClient rpcHttpClient(ConnectionPool rpcConnectionPool) {
+        return new OkHttpClient.Builder()
+                .connectionPool(rpcConnectionPool)
+                // HTTP/2 is negotiated over TLS, plain local nodes keep using HTTP/1.1
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .pingInterval(pingIntervalSeconds, TimeUnit.SECONDS)
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public Web3j web3j(OkHttpClient rpcHttpClient) {
+        return Web3j.build(new HttpService(rpcUrl, rpcHttpClient));
+    }
+}
@@ -0,0 +1,25 @@
+package de.fhdo.zarya.api.configurations;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Requests are handled on virtual threads, so the blocking RPC proxy holds no platform thread while it waits
+ * for the provider. Unlike spring.threads.virtual.enabled this leaves the scheduler on its single platform thread,
+ * the synchronization runs must not overlap
+ */
+@Configuration
+@ConditionalOnProperty(name = "zarya.web.virtual-threads", havingValue = "true", matchIfMissing = true)
+public class WebServerConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadRequestExecutor() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-virtual-", 0).factory()));
+    }
+}
@@ -0,0 +1,50 @@
+package de.fhdo.zarya.api.contracts;
+
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.DynamicStruct;
+import org.web3j.abi.datatypes.Function;
+
+import java.util.List;
+
+/**
+ * ABI of the Multicall3 contract (https://github.com/mds1/multicall), deployed at the same address on most chains
+ */
+public final class Multicall3 {
+
+    public static final String DEFAULT_ADDRESS = "0xcA11bde05977b3631167028862bE2a173976CA11";
+
+    private Multicall3() {
+    }
+
+    /**
+     * aggregate3((address target, bool allowFailure, bytes callData)[]) returns ((bool success, bytes returnData)[])
+     */
+    public static Function aggregate3(List<Call3> calls) {
+        return new Function(
+                "aggregate3",
+                List.of(new DynamicArray<>(Call3.class, calls)),
+                List.of(new TypeReference<DynamicArray<Result>>() {})
+        );
+    }
+
+    public static class Call3 extends DynamicStruct {
+        public Call3(Address target, Bool allowFailure, DynamicBytes callData) {
+            super(target, allowFailure, callData);
+        }
+    }
+
+    public static class Result extends DynamicStruct {
+        public final boolean success;
+        public final byte[] returnData;
+
+        public Result(Bool success, DynamicBytes returnData) {
+            super(success, returnData);
+            this.success = success.getValue();
+            this.returnData = returnData.getValue();
+        }
+    }
+}
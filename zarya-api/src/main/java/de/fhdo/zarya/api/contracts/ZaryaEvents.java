@@ -0,0 +1,84 @@
+package de.fhdo.zarya.api.contracts;
+
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.abi.datatypes.generated.Uint64;
+import org.web3j.abi.datatypes.generated.Uint8;
+
+import java.util.List;
+
+/**
+ * Events of Matricies.sol and Votings.sol, both are emitted from the Zarya contract address
+ */
+public final class ZaryaEvents {
+
+    private ZaryaEvents() {
+    }
+
+    // ValueAdded(uint256 indexed x, uint256 indexed y, uint64 value, address indexed author)
+    public static final Event VALUE_ADDED = new Event("ValueAdded", List.of(
+            new TypeReference<Uint256>(true) {},
+            new TypeReference<Uint256>(true) {},
+            new TypeReference<Uint64>() {},
+            new TypeReference<Address>(true) {}));
+
+    // CategoryAdded(uint256 indexed x, uint256 indexed y, uint64 category)
+    public static final Event CATEGORY_ADDED = new Event("CategoryAdded", List.of(
+            new TypeReference<Uint256>(true) {},
+            new TypeReference<Uint256>(true) {},
+            new TypeReference<Uint64>() {}));
+
+    // ThemeVotingCreated(uint256 indexed votingId, bool isCategorical, uint256 x, string theme)
+    public static final Event THEME_VOTING_CREATED = new Event("ThemeVotingCreated", List.of(
+            new TypeReference<Uint256>(true) {},
+            new TypeReference<Bool>() {},
+            new TypeReference<Uint256>() {},
+            new TypeReference<Utf8String>() {}));
+
+    // StatementVotingCreated(uint256 indexed votingId, bool isCategorical, uint256 x, uint256 y, string statement)
+    public static final Event STATEMENT_VOTING_CREATED = new Event("StatementVotingCreated", List.of(
+            new TypeReference<Uint256>(true) {},
+            new TypeReference<Bool>() {},
+            new TypeReference<Uint256>() {},
+            new TypeReference<Uint256>() {},
+            new TypeReference<Utf8String>() {}));
+
+    // DecimalsVotingCreated(uint256 indexed votingId, bytes32 organ, uint256 x, uint256 y, uint8 decimals)
+    public static final Event DECIMALS_VOTING_CREATED = new Event("DecimalsVotingCreated", List.of(
+            new TypeReference<Uint256>(true) {},
+            new TypeReference<Bytes32>() {},
+            new TypeReference<Uint256>() {},
+            new TypeReference<Uint256>() {},
+            new TypeReference<Uint8>() {}));
+
+    // VotingFinalized(uint256 indexed votingId, bool success, uint256 forVotes, uint256 againstVotes)
+    public static final Event VOTING_FINALIZED = new Event("VotingFinalized", List.of(
+            new TypeReference<Uint256>(true) {},
+            new TypeReference<Bool>() {},
+            new TypeReference<Uint256>() {},
+            new TypeReference<Uint256>() {}));
+
+    public static final String VALUE_ADDED_TOPIC = EventEncoder.encode(VALUE_ADDED);
+    public static final String CATEGORY_ADDED_TOPIC = EventEncoder.encode(CATEGORY_ADDED);
+    public static final String THEME_VOTING_CREATED_TOPIC = EventEncoder.encode(THEME_VOTING_CREATED);
+    public static final String STATEMENT_VOTING_CREATED_TOPIC = EventEncoder.encode(STATEMENT_VOTING_CREATED);
+    public static final String DECIMALS_VOTING_CREATED_TOPIC = EventEncoder.encode(DECIMALS_VOTING_CREATED);
+    public static final String VOTING_FINALIZED_TOPIC = EventEncoder.encode(VOTING_FINALIZED);
+
+    /**
+     * Events that change data mirrored by the synchronization
+     */
+    public static final List<Event> SYNCHRONIZED = List.of(
+            VALUE_ADDED,
+            CATEGORY_ADDED,
+            THEME_VOTING_CREATED,
+            STATEMENT_VOTING_CREATED,
+            DECIMALS_VOTING_CREATED,
+            VOTING_FINALIZED);
+}
@@ -0,0 +1,92 @@
+package de.fhdo.zarya.api.contracts;
+
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.abi.datatypes.generated.Uint32;
+import org.web3j.abi.datatypes.generated.Uint64;
+import org.web3j.abi.datatypes.generated.Uint8;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Read-only functions of Zarya.sol used by the synchronization
+ */
+public final class ZaryaFunctions {
+
+    private ZaryaFunctions() {
+    }
+
+    public static Function getTheme(boolean isCategorical, long x) {
+        return new Function("getTheme",
+                List.of(new Bool(isCategorical), new Uint256(x)),
+                List.of(new TypeReference<Utf8String>() {}));
+    }
+
+    public static Function getStatement(boolean isCategorical, long y) {
+        return new Function("getStatement",
+                List.of(new Bool(isCategorical), new Uint256(y)),
+                List.of(new TypeReference<Utf8String>() {}));
+    }
+
+    /**
+     * Returns (bytes32 organ, uint8 decimals, uint256 sampleLength)
+     */
+    public static Function getNumericalCellInfo(int x, int y) {
+        return new Function("getNumericalCellInfo",
+                List.of(new Uint256(x), new Uint256(y)),
+                List.of(new TypeReference<Bytes32>() {},
+                        new TypeReference<Uint8>() {},
+                        new TypeReference<Uint256>() {}));
+    }
+
+    /**
+     * Returns (bytes32 organ, uint64[] allowedCategories, uint256 sampleLength)
+     */
+    public static Function getCategoricalCellInfo(int x, int y) {
+        return new Function("getCategoricalCellInfo",
+                List.of(new Uint256(x), new Uint256(y)),
+                List.of(new TypeReference<Bytes32>() {},
+                        new TypeReference<DynamicArray<Uint64>>() {},
+                        new TypeReference<Uint256>() {}));
+    }
+
+    /**
+     * Returns (uint32[] timestamps, address[] authors, uint64[] values)
+     */
+    public static Function getNumericalHistory(int x, int y, BigInteger offset, BigInteger limit) {
+        return new Function("getNumericalHistory",
+                List.of(new Uint256(x), new Uint256(y), new Uint256(offset), new Uint256(limit)),
+                historyOutput());
+    }
+
+    /**
+     * Returns (uint32[] timestamps, address[] authors, uint64[] values)
+     */
+    public static Function getCategoricalHistory(int x, int y, BigInteger offset, BigInteger limit) {
+        return new Function("getCategoricalHistory",
+                List.of(new Uint256(x), new Uint256(y), new Uint256(offset), new Uint256(limit)),
+                historyOutput());
+    }
+
+    /**
+     * The category id is the on-chain uint64 read as a signed long
+     */
+    public static Function getCategoryName(int x, int y, long categoryId) {
+        return new Function("getCategoryName",
+                List.of(new Uint256(x), new Uint256(y), new Uint64(new BigInteger(Long.toUnsignedString(categoryId)))),
+                List.of(new TypeReference<Utf8String>() {}));
+    }
+
+    private static List<TypeReference<?>> historyOutput() {
+        return List.of(new TypeReference<DynamicArray<Uint32>>() {},
+                new TypeReference<DynamicArray<Address>>() {},
+                new TypeReference<DynamicArray<Uint64>>() {});
+    }
+}
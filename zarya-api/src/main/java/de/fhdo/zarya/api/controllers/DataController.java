@@ -1,14 +1,31 @@
 package de.fhdo.zarya.api.controllers;
 
 import de.fhdo.zarya.api.interfaces.repositories.*;
+import de.fhdo.zarya.api.interfaces.services.ICategoryDictionaryService;
+import de.fhdo.zarya.api.interfaces.services.ICellStatisticsService;
+import de.fhdo.zarya.api.interfaces.services.IForecastService;
+import de.fhdo.zarya.api.interfaces.services.IMatrixAggregationService;
+import de.fhdo.zarya.api.interfaces.services.IMatrixReadModelService;
+import de.fhdo.zarya.api.persistance.dto.MatrixSummary;
+import de.fhdo.zarya.api.persistance.dto.Forecast;
+import de.fhdo.zarya.api.persistance.dto.OrganRollup;
+import de.fhdo.zarya.api.interfaces.services.ITimeSeriesService;
+import de.fhdo.zarya.api.persistance.dto.WindowAverage;
 import de.fhdo.zarya.api.persistance.models.*;
+import de.fhdo.zarya.api.readmodel.MatrixSnapshot;
+import de.fhdo.zarya.api.statistics.FixedBinHistogram;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -20,15 +37,148 @@ public class DataController {
     private final StatementRepository statementRepository;
     private final NumericalCellRepository numericalCellRepository;
     private final CategoricalCellRepository categoricalCellRepository;
+    private final ITimeSeriesService timeSeriesService;
+    private final ICategoryDictionaryService categoryDictionaryService;
+    private final ICellStatisticsService cellStatisticsService;
+    private final IForecastService forecastService;
+    private final IMatrixAggregationService matrixAggregationService;
+    private final IMatrixReadModelService matrixReadModelService;
 
     @GetMapping("/cells/categorical")
     public Page<CategoricalCell> pageOfCategoricalCells(Pageable pageable) {
-        return categoricalCellRepository.findAll(pageable);
+        MatrixSnapshot snapshot = matrixReadModelService.current();
+        // The snapshot is kept in (x, y) order, other orders still go to the database
+        if (snapshot == null || pageable.getSort().isSorted()) {
+            return categoricalCellRepository.findAll(pageable);
+        }
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(snapshot.categoricalCells(0, snapshot.categoricalCount()));
+        }
+        return new PageImpl<>(snapshot.categoricalCells(pageable.getOffset(), pageable.getPageSize()),
+                pageable, snapshot.categoricalCount());
     }
 
     @GetMapping("/cells/numerical")
     public Page<NumericalCell> pageOfNumericalCells(Pageable pageable) {
-        return numericalCellRepository.findAll(pageable);
+        MatrixSnapshot snapshot = matrixReadModelService.current();
+        if (snapshot == null || pageable.getSort().isSorted()) {
+            return numericalCellRepository.findAll(pageable);
+        }
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(snapshot.numericalCells(0, snapshot.numericalCount()));
+        }
+        return new PageImpl<>(snapshot.numericalCells(pageable.getOffset(), pageable.getPageSize()),
+                pageable, snapshot.numericalCount());
+    }
+
+    @GetMapping("/statistics/numerical")
+    public List<CellStatistics> numericalStatistics() {
+        return cellStatisticsService.findAll(false);
+    }
+
+    @GetMapping("/statistics/categorical")
+    public List<CellStatistics> categoricalStatistics() {
+        return cellStatisticsService.findAll(true);
+    }
+
+    /**
+     * Numerical matrix summarized per cell, theme, statement, organ and overall
+     */
+    @GetMapping("/statistics/numerical/matrix")
+    public MatrixSummary numericalMatrixSummary() {
+        return matrixAggregationService.summarizeNumerical();
+    }
+
+    /**
+     * Percentiles at q in [0, 1] over the sketches of all numerical cells, or of the organ's cells
+     */
+    @GetMapping("/statistics/numerical/percentiles")
+    public double[] numericalPercentiles(@RequestParam(defaultValue = "0.1,0.25,0.5,0.75,0.9") double[] q,
+                                         @RequestParam(required = false) Long organId) {
+        return cellStatisticsService.percentiles(organId, q);
+    }
+
+    /**
+     * Numerical statistics per region over the cells of its regional and local organs
+     */
+    @GetMapping("/statistics/numerical/regions")
+    public List<OrganRollup> numericalByRegion() {
+        return cellStatisticsService.rollUpByRegion();
+    }
+
+    @GetMapping("/statistics/numerical/organ-types")
+    public List<OrganRollup> numericalByOrganType() {
+        return cellStatisticsService.rollUpByOrganType();
+    }
+
+    @GetMapping("/statistics/numerical/histogram")
+    public FixedBinHistogram numericalHistogram(@RequestParam(required = false) Long organId) {
+        return cellStatisticsService.histogram(organId);
+    }
+
+    @GetMapping("/cells/numerical/{xIndex}/{yIndex}/percentiles")
+    public double[] percentilesOfNumericalCell(@PathVariable int xIndex, @PathVariable int yIndex,
+                                               @RequestParam(defaultValue = "0.1,0.25,0.5,0.75,0.9") double[] q) {
+        return cellStatisticsService.percentiles(xIndex, yIndex, q);
+    }
+
+    @GetMapping("/cells/numerical/{xIndex}/{yIndex}/histogram")
+    public FixedBinHistogram histogramOfNumericalCell(@PathVariable int xIndex, @PathVariable int yIndex) {
+        return cellStatisticsService.histogram(xIndex, yIndex)
+                .orElseThrow(() -> new RuntimeException("Histogram not found"));
+    }
+
+    @GetMapping("/cells/numerical/{xIndex}/{yIndex}/statistics")
+    public CellStatistics statisticsOfNumericalCell(@PathVariable int xIndex, @PathVariable int yIndex) {
+        return cellStatisticsService.find(xIndex, yIndex, false)
+                .orElseThrow(() -> new RuntimeException("CellStatistics not found"));
+    }
+
+    @GetMapping("/cells/categorical/{xIndex}/{yIndex}/statistics")
+    public CellStatistics statisticsOfCategoricalCell(@PathVariable int xIndex, @PathVariable int yIndex) {
+        return cellStatisticsService.find(xIndex, yIndex, true)
+                .orElseThrow(() -> new RuntimeException("CellStatistics not found"));
+    }
+
+    /**
+     * Average over [from, to), without from over the last given days up to to or now
+     */
+    @GetMapping("/cells/numerical/{xIndex}/{yIndex}/average")
+    public WindowAverage averageOfNumericalCell(@PathVariable int xIndex, @PathVariable int yIndex,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                @RequestParam(defaultValue = "30") int days) {
+        Instant until = to == null ? Instant.now() : to;
+        Instant since = from == null ? until.minus(Duration.ofDays(days)) : from;
+        return timeSeriesService.averageNumerical(xIndex, yIndex, since, until);
+    }
+
+    @GetMapping("/cells/numerical/{xIndex}/{yIndex}/authors")
+    public List<CellSampleRepository.AuthorSamples> authorsOfNumericalCell(@PathVariable int xIndex, @PathVariable int yIndex) {
+        return timeSeriesService.authors(xIndex, yIndex, false);
+    }
+
+    /**
+     * Dictionary of the category ids stored in the categorical cell
+     */
+    @GetMapping("/cells/categorical/{xIndex}/{yIndex}/categories")
+    public Map<Long, String> categoriesOfCategoricalCell(@PathVariable int xIndex, @PathVariable int yIndex) {
+        return categoryDictionaryService.namesOf(xIndex, yIndex);
+    }
+
+    @GetMapping("/cells/categorical/{xIndex}/{yIndex}/authors")
+    public List<CellSampleRepository.AuthorSamples> authorsOfCategoricalCell(@PathVariable int xIndex, @PathVariable int yIndex) {
+        return timeSeriesService.authors(xIndex, yIndex, true);
+    }
+
+    /**
+     * Forecast of the cell the given number of samples ahead
+     */
+    @GetMapping("/forecast")
+    public Forecast forecast(@RequestParam int xIndex, @RequestParam int yIndex,
+                             @RequestParam(defaultValue = "false") boolean isCategorical,
+                             @RequestParam(defaultValue = "1") int horizon) {
+        return forecastService.forecast(xIndex, yIndex, isCategorical, horizon);
     }
 
     @GetMapping("/themes")
@@ -2,6 +2,8 @@ package de.fhdo.zarya.api.controllers;
 
 import de.fhdo.zarya.api.filters.RateLimitFilter;
 import de.fhdo.zarya.api.interfaces.repositories.UserRepository;
+import de.fhdo.zarya.api.interfaces.services.ISyncMetricsService;
+import de.fhdo.zarya.api.persistance.dto.SyncStatus;
 import de.fhdo.zarya.api.persistance.dto.RegisterRequest;
 import de.fhdo.zarya.api.persistance.models.User;
 import de.fhdo.zarya.api.services.CustomUserDetailsService;
@@ -9,6 +11,7 @@ import de.fhdo.zarya.api.services.SynchronizationService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
@@ -16,7 +19,6 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.http.HttpService;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -29,14 +31,23 @@ public class PagesController {
 
     private final CustomUserDetailsService userDetailsService;
     private final DataSource dataSource;
+    private final Web3j web3j;
+    private final ConnectionPool rpcConnectionPool;
+    private final ISyncMetricsService syncMetricsService;
 
     @Value("${ethereum.rpc.url:http://localhost:8545}")
     private String ethereumRpcUrl;
 
     public PagesController(CustomUserDetailsService userDetailsService,
-                          DataSource dataSource) {
+                          DataSource dataSource,
+                          Web3j web3j,
+                          ConnectionPool rpcConnectionPool,
+                          ISyncMetricsService syncMetricsService) {
         this.userDetailsService = userDetailsService;
         this.dataSource = dataSource;
+        this.web3j = web3j;
+        this.rpcConnectionPool = rpcConnectionPool;
+        this.syncMetricsService = syncMetricsService;
     }
 
     @GetMapping("/status")
@@ -61,7 +72,7 @@ public class PagesController {
 
     @GetMapping("/status/blockchain")
     public String statusBlockchain(Model model) {
-        try (Web3j web3j = Web3j.build(new HttpService(ethereumRpcUrl))) {
+        try {
             String clientVersion = web3j.web3ClientVersion().send().getWeb3ClientVersion();
             String blockNumber = web3j.ethBlockNumber().send().getBlockNumber().toString();
             
@@ -69,6 +80,8 @@ public class PagesController {
             model.addAttribute("rpcUrl", ethereumRpcUrl);
             model.addAttribute("clientVersion", clientVersion);
             model.addAttribute("blockNumber", blockNumber);
+            model.addAttribute("poolConnections", rpcConnectionPool.connectionCount());
+            model.addAttribute("poolIdleConnections", rpcConnectionPool.idleConnectionCount());
             model.addAttribute("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
         } catch (Exception e) {
             log.error("Blockchain connection check failed", e);
@@ -82,10 +95,11 @@ public class PagesController {
     @GetMapping("/status/synchronization")
     public String statusSynchronization(Model model) {
         try {
-            // Trigger a sync and capture status
-            model.addAttribute("status", "Active");
+            SyncStatus sync = syncMetricsService.status();
+            model.addAttribute("status", "failure".equals(sync.getLastOutcome()) ? "Failing" : "Active");
+            model.addAttribute("sync", sync);
             model.addAttribute("service", "SynchronizationService");
-            model.addAttribute("schedule", "Every 12 hours");
+            model.addAttribute("schedule", "Contract events every minute, full reconciliation weekly");
             model.addAttribute("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             model.addAttribute("info", "Synchronizes themes, statements, and cells from blockchain to database");
         } catch (Exception e) {
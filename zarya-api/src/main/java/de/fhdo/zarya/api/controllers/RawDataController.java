@@ -1,7 +1,21 @@
 package de.fhdo.zarya.api.controllers;
 
 import de.fhdo.zarya.api.interfaces.repositories.*;
+import de.fhdo.zarya.api.interfaces.services.ICategoryDictionaryService;
+import de.fhdo.zarya.api.interfaces.services.ICellStatisticsService;
+import de.fhdo.zarya.api.interfaces.services.IForecastService;
+import de.fhdo.zarya.api.interfaces.services.IMatrixAggregationService;
+import de.fhdo.zarya.api.interfaces.services.IMatrixReadModelService;
+import de.fhdo.zarya.api.interfaces.services.IOrganService;
+import de.fhdo.zarya.api.persistance.dto.MatrixSummary;
+import de.fhdo.zarya.api.persistance.dto.Forecast;
+import de.fhdo.zarya.api.persistance.dto.OrganRollup;
+import de.fhdo.zarya.api.interfaces.services.ITimeSeriesService;
+import de.fhdo.zarya.api.persistance.dto.WindowAverage;
 import de.fhdo.zarya.api.persistance.models.*;
+import de.fhdo.zarya.api.readmodel.MatrixSnapshot;
+import de.fhdo.zarya.api.statistics.RunningStatistics;
+import de.fhdo.zarya.api.statistics.FixedBinHistogram;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -9,9 +23,13 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +44,16 @@ public class RawDataController {
     private final StatementRepository statementRepository;
     private final NumericalCellRepository numericalCellRepository;
     private final CategoricalCellRepository categoricalCellRepository;
+    private final PopulatedCellRepository populatedCellRepository;
+    private final CellSampleRepository cellSampleRepository;
+    private final ITimeSeriesService timeSeriesService;
+    private final ICategoryDictionaryService categoryDictionaryService;
+    private final ICellStatisticsService cellStatisticsService;
+    private final IForecastService forecastService;
+    private final IMatrixAggregationService matrixAggregationService;
+    private final IMatrixReadModelService matrixReadModelService;
+    private final IOrganService organService;
+    private final TransactionTemplate transactionTemplate;
 
     private <T, ID> T findById(CrudRepository<T, ID> repository, @NonNull ID id, String entityName) {
         Optional<T> result = repository.findById(id);
@@ -65,30 +93,146 @@ public class RawDataController {
 
     @QueryMapping
     public List<NumericalCell> numericalCells() {
-        return (List<NumericalCell>) numericalCellRepository.findAll();
+        MatrixSnapshot snapshot = matrixReadModelService.current();
+        if (snapshot == null) {
+            return (List<NumericalCell>) numericalCellRepository.findAll();
+        }
+        return snapshot.numericalCells(0, snapshot.numericalCount());
     }
 
     @QueryMapping
     public NumericalCell numericalCell(@Argument int xIndex, @Argument int yIndex) {
-        return findById(numericalCellRepository, new NumericalCell.NumericalCellId(xIndex, yIndex), "NumericalCell");
+        MatrixSnapshot snapshot = matrixReadModelService.current();
+        if (snapshot == null) {
+            return findById(numericalCellRepository, new NumericalCell.NumericalCellId(xIndex, yIndex), "NumericalCell");
+        }
+        return snapshot.numericalCell(xIndex, yIndex)
+                .orElseThrow(() -> new RuntimeException("NumericalCell not found"));
     }
 
     @QueryMapping
     public List<CategoricalCell> categoricalCells() {
-        return (List<CategoricalCell>) categoricalCellRepository.findAll();
+        MatrixSnapshot snapshot = matrixReadModelService.current();
+        if (snapshot == null) {
+            return (List<CategoricalCell>) categoricalCellRepository.findAll();
+        }
+        return snapshot.categoricalCells(0, snapshot.categoricalCount());
     }
 
     @QueryMapping
     public CategoricalCell categoricalCell(@Argument int xIndex, @Argument int yIndex) {
-        return findById(categoricalCellRepository, new CategoricalCell.CategoricalCellId(xIndex, yIndex), "CategoricalCell");
+        MatrixSnapshot snapshot = matrixReadModelService.current();
+        if (snapshot == null) {
+            return findById(categoricalCellRepository, new CategoricalCell.CategoricalCellId(xIndex, yIndex), "CategoricalCell");
+        }
+        return snapshot.categoricalCell(xIndex, yIndex)
+                .orElseThrow(() -> new RuntimeException("CategoricalCell not found"));
+    }
+
+    @QueryMapping
+    public WindowAverage numericalCellAverage(@Argument int xIndex, @Argument int yIndex,
+                                              @Argument String from, @Argument String to) {
+        return timeSeriesService.averageNumerical(xIndex, yIndex, Instant.parse(from),
+                to == null ? Instant.now() : Instant.parse(to));
+    }
+
+    @QueryMapping
+    public List<CellSampleRepository.AuthorSamples> cellAuthors(@Argument int xIndex, @Argument int yIndex,
+                                                                @Argument boolean isCategorical) {
+        return timeSeriesService.authors(xIndex, yIndex, isCategorical);
+    }
+
+    @QueryMapping
+    public List<CellStatistics> cellStatistics(@Argument boolean isCategorical) {
+        return cellStatisticsService.findAll(isCategorical);
+    }
+
+    @QueryMapping
+    public List<Double> numericalPercentiles(@Argument int xIndex, @Argument int yIndex, @Argument List<Double> q) {
+        return toNullableList(cellStatisticsService.percentiles(xIndex, yIndex, toArray(q)));
+    }
+
+    @QueryMapping
+    public List<Double> matrixPercentiles(@Argument List<Double> q, @Argument Long organId) {
+        return toNullableList(cellStatisticsService.percentiles(organId, toArray(q)));
+    }
+
+    @QueryMapping
+    public FixedBinHistogram numericalHistogram(@Argument int xIndex, @Argument int yIndex) {
+        return cellStatisticsService.histogram(xIndex, yIndex).orElse(null);
+    }
+
+    @QueryMapping
+    public FixedBinHistogram matrixHistogram(@Argument Long organId) {
+        return cellStatisticsService.histogram(organId);
+    }
+
+    @QueryMapping
+    public MatrixSummary matrixSummary() {
+        return matrixAggregationService.summarizeNumerical();
+    }
+
+    @QueryMapping
+    public List<OrganRollup> numericalByRegion() {
+        return cellStatisticsService.rollUpByRegion();
+    }
+
+    @QueryMapping
+    public List<OrganRollup> numericalByOrganType() {
+        return cellStatisticsService.rollUpByOrganType();
+    }
+
+    @QueryMapping
+    public Forecast forecast(@Argument int xIndex, @Argument int yIndex, @Argument boolean isCategorical,
+                             @Argument Integer horizon) {
+        return forecastService.forecast(xIndex, yIndex, isCategorical, horizon == null ? 1 : horizon);
+    }
+
+    private double[] toArray(List<Double> values) {
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    // GraphQL has no NaN, an empty sketch answers with nulls
+    private List<Double> toNullableList(double[] values) {
+        return Arrays.stream(values).mapToObj(v -> Double.isNaN(v) ? null : v).toList();
+    }
+
+    @SchemaMapping(typeName = "NumericalCell", field = "statistics")
+    public CellStatistics numericalStatistics(NumericalCell cell) {
+        return cellStatisticsService.find(cell.getXIndex(), cell.getYIndex(), false).orElse(null);
+    }
+
+    @SchemaMapping(typeName = "CategoricalCell", field = "statistics")
+    public CellStatistics categoricalStatistics(CategoricalCell cell) {
+        return cellStatisticsService.find(cell.getXIndex(), cell.getYIndex(), true).orElse(null);
+    }
+
+    // An empty summary has infinite bounds, which GraphQL cannot carry
+    @SchemaMapping(typeName = "Summary", field = "min")
+    public Double summaryMin(RunningStatistics statistics) {
+        return statistics.getCount() == 0 ? null : statistics.getMin();
+    }
+
+    @SchemaMapping(typeName = "Summary", field = "max")
+    public Double summaryMax(RunningStatistics statistics) {
+        return statistics.getCount() == 0 ? null : statistics.getMax();
+    }
+
+    // Categorical cells only store category ids, the names are decoded through the cell's dictionary
+    @SchemaMapping(typeName = "CategoricalCell", field = "category")
+    public List<String> category(CategoricalCell cell) {
+        return categoryDictionaryService.decode(cell.getXIndex(), cell.getYIndex(), cell.getCategoryId());
+    }
+
+    @SchemaMapping(typeName = "CategoricalCell", field = "allowedCategory")
+    public List<String> allowedCategory(CategoricalCell cell) {
+        return categoryDictionaryService.decode(cell.getXIndex(), cell.getYIndex(), cell.getAllowedCategoryId());
     }
 
     // Mutation mappings
     @MutationMapping
     public Organ createOrgan(@Argument String name) {
-        Organ organ = new Organ();
-        organ.setName(name);
-        return organRepository.save(organ);
+        return organService.getOrCreate(name);
     }
 
     @MutationMapping
@@ -158,21 +302,27 @@ public class RawDataController {
         cell.setXIndex(xIndex);
         cell.setYIndex(yIndex);
         cell.setOrgan(findById(organRepository, organId, "Organ"));
-        cell.setValue(value);
-        return numericalCellRepository.save(cell);
+        cell.setValue(value.stream().mapToDouble(Double::doubleValue).toArray());
+        NumericalCell saved = saveEdited(cell);
+        refreshReadModel();
+        return saved;
     }
 
     @MutationMapping
     public NumericalCell updateNumericalCell(@Argument int xIndex, @Argument int yIndex, @Argument Long organId, @Argument List<Double> value) {
         NumericalCell cell = findById(numericalCellRepository, new NumericalCell.NumericalCellId(xIndex, yIndex), "NumericalCell");
         if (organId != null) cell.setOrgan(findById(organRepository, organId, "Organ"));
-        if (value != null) cell.setValue(value);
-        return numericalCellRepository.save(cell);
+        if (value != null) cell.setValue(value.stream().mapToDouble(Double::doubleValue).toArray());
+        NumericalCell saved = saveEdited(cell);
+        refreshReadModel();
+        return saved;
     }
 
     @MutationMapping
     public Boolean deleteNumericalCell(@Argument int xIndex, @Argument int yIndex) {
-        numericalCellRepository.deleteById(new NumericalCell.NumericalCellId(xIndex, yIndex));
+        deleteCell(xIndex, yIndex, false,
+                () -> numericalCellRepository.deleteById(new NumericalCell.NumericalCellId(xIndex, yIndex)));
+        refreshReadModel();
         return true;
     }
 
@@ -182,23 +332,75 @@ public class RawDataController {
         cell.setXIndex(xIndex);
         cell.setYIndex(yIndex);
         cell.setOrgan(findById(organRepository, organId, "Organ"));
-        cell.setCategory(category);
-        cell.setAllowedCategory(allowedCategory);
-        return categoricalCellRepository.save(cell);
+        cell.setCategoryId(categoryDictionaryService.encode(xIndex, yIndex, category));
+        cell.setAllowedCategoryId(categoryDictionaryService.encode(xIndex, yIndex, allowedCategory));
+        CategoricalCell saved = saveEdited(cell);
+        refreshReadModel();
+        return saved;
     }
 
     @MutationMapping
     public CategoricalCell updateCategoricalCell(@Argument int xIndex, @Argument int yIndex, @Argument Long organId, @Argument List<String> category, @Argument List<String> allowedCategory) {
         CategoricalCell cell = findById(categoricalCellRepository, new CategoricalCell.CategoricalCellId(xIndex, yIndex), "CategoricalCell");
         if (organId != null) cell.setOrgan(findById(organRepository, organId, "Organ"));
-        if (category != null) cell.setCategory(category);
-        if (allowedCategory != null) cell.setAllowedCategory(allowedCategory);
-        return categoricalCellRepository.save(cell);
+        if (category != null) cell.setCategoryId(categoryDictionaryService.encode(xIndex, yIndex, category));
+        if (allowedCategory != null) cell.setAllowedCategoryId(categoryDictionaryService.encode(xIndex, yIndex, allowedCategory));
+        CategoricalCell saved = saveEdited(cell);
+        refreshReadModel();
+        return saved;
     }
 
     @MutationMapping
     public Boolean deleteCategoricalCell(@Argument int xIndex, @Argument int yIndex) {
-        categoricalCellRepository.deleteById(new CategoricalCell.CategoricalCellId(xIndex, yIndex));
+        deleteCell(xIndex, yIndex, true,
+                () -> categoricalCellRepository.deleteById(new CategoricalCell.CategoricalCellId(xIndex, yIndex)));
+        refreshReadModel();
         return true;
     }
+
+    /**
+     * Statistics and forecast are recomputed from the edited values. The sync cursor is reset, so the next
+     * synchronization reads the on-chain history from the start again instead of appending to the edit
+     */
+    private NumericalCell saveEdited(NumericalCell cell) {
+        double[] values = cell.getValue() == null ? new double[0] : cell.getValue();
+        cell.setSyncedSampleLength(0);
+        cell.setSyncedAtBlock(null);
+        return transactionTemplate.execute(status -> {
+            cellStatisticsService.appendNumerical(cell.getXIndex(), cell.getYIndex(), values, true);
+            forecastService.appendNumerical(cell.getXIndex(), cell.getYIndex(), values, true);
+            return numericalCellRepository.save(cell);
+        });
+    }
+
+    private CategoricalCell saveEdited(CategoricalCell cell) {
+        long[] categoryIds = cell.getCategoryId() == null ? new long[0] : cell.getCategoryId();
+        cell.setSyncedSampleLength(0);
+        cell.setSyncedAtBlock(null);
+        return transactionTemplate.execute(status -> {
+            cellStatisticsService.appendCategorical(cell.getXIndex(), cell.getYIndex(), categoryIds, true);
+            forecastService.appendCategorical(cell.getXIndex(), cell.getYIndex(), categoryIds, true);
+            return categoricalCellRepository.save(cell);
+        });
+    }
+
+    /**
+     * The cell goes together with its statistics, forecast state, samples and populated index entry
+     */
+    private void deleteCell(int x, int y, boolean isCategorical, Runnable deleteRow) {
+        transactionTemplate.executeWithoutResult(status -> {
+            cellStatisticsService.delete(x, y, isCategorical);
+            forecastService.delete(x, y, isCategorical);
+            cellSampleRepository.deleteCell(x, y, isCategorical);
+            populatedCellRepository.deleteById(new PopulatedCell.PopulatedCellId(x, y, isCategorical));
+            deleteRow.run();
+        });
+    }
+
+    // Edits by hand would otherwise only show up after the next synchronization
+    private void refreshReadModel() {
+        if (matrixReadModelService.current() != null) {
+            matrixReadModelService.refresh();
+        }
+    }
 }
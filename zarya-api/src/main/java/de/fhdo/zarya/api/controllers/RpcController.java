@@ -1,16 +1,12 @@
 package de.fhdo.zarya.api.controllers;
 
 import de.fhdo.zarya.api.interfaces.services.IProxifyRpcService;
-import jnr.constants.platform.IP;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.Map;
+import java.io.IOException;
 
 @Slf4j
 @RestController
@@ -20,8 +16,9 @@ public class RpcController {
 
     public IProxifyRpcService proxyRpcService;
 
+    // The body is passed on untouched, the response is written by the proxy as the provider sends it
     @PostMapping
-    public ResponseEntity<Map<String, Object>> proxyRpcCall(@RequestBody Map<String, Object> rpcRequest) {
-        return proxyRpcService.proxyRpcCall(rpcRequest);
+    public void proxyRpcCall(@RequestBody byte[] rpcRequest, HttpServletResponse response) throws IOException {
+        proxyRpcService.proxyRpcCall(rpcRequest, response);
     }
 }
@@ -0,0 +1,114 @@
+package de.fhdo.zarya.api.forecasting;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Exponentially decayed category frequencies and first order transition counts between consecutive votes of a
+ * categorical cell. Each vote updates the state in O(categories), a cell only has a handful of categories
+ */
+@Getter
+public final class CategoricalDrift {
+    private final double decay;
+
+    private long count;
+    private long[] categoryIds;
+    private double[] frequencies;
+    // Row major categories × categories, transitions[from * n + to]
+    private double[] transitions;
+    private long lastCategoryId;
+
+    public CategoricalDrift(double decay) {
+        this(decay, 0, new long[0], new double[0], new double[0], 0);
+    }
+
+    public CategoricalDrift(double decay, long count, long[] categoryIds, double[] frequencies, double[] transitions,
+                            long lastCategoryId) {
+        this.decay = decay;
+        this.count = count;
+        this.categoryIds = categoryIds;
+        this.frequencies = frequencies;
+        this.transitions = transitions;
+        this.lastCategoryId = lastCategoryId;
+    }
+
+    public void add(long categoryId) {
+        int to = indexOf(categoryId);
+        if (to < 0) {
+            to = grow(categoryId);
+        }
+        for (int i = 0; i < frequencies.length; i++) {
+            frequencies[i] *= 1 - decay;
+        }
+        frequencies[to] += decay;
+
+        if (count > 0) {
+            int from = indexOf(lastCategoryId);
+            transitions[from * categoryIds.length + to]++;
+        }
+        lastCategoryId = categoryId;
+        count++;
+    }
+
+    public void addAll(long[] categoryIds) {
+        for (long categoryId : categoryIds) {
+            add(categoryId);
+        }
+    }
+
+    /**
+     * Recent share of every category, older votes count exponentially less
+     */
+    public double[] shares() {
+        double total = Arrays.stream(frequencies).sum();
+        return Arrays.stream(frequencies).map(f -> total == 0 ? 0 : f / total).toArray();
+    }
+
+    /**
+     * Probability of every category for the next vote, from the transitions out of the last vote.
+     * Falls back to the decayed shares while the last category has not been followed by anything yet
+     */
+    public double[] next() {
+        if (count == 0) {
+            return new double[categoryIds.length];
+        }
+        int n = categoryIds.length;
+        int from = indexOf(lastCategoryId);
+        double total = 0;
+        for (int to = 0; to < n; to++) {
+            total += transitions[from * n + to];
+        }
+        if (total == 0) {
+            return shares();
+        }
+        double[] next = new double[n];
+        for (int to = 0; to < n; to++) {
+            next[to] = transitions[from * n + to] / total;
+        }
+        return next;
+    }
+
+    private int indexOf(long categoryId) {
+        for (int i = 0; i < categoryIds.length; i++) {
+            if (categoryIds[i] == categoryId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int grow(long categoryId) {
+        int n = categoryIds.length;
+        categoryIds = Arrays.copyOf(categoryIds, n + 1);
+        categoryIds[n] = categoryId;
+        frequencies = Arrays.copyOf(frequencies, n + 1);
+
+        double[] grown = new double[(n + 1) * (n + 1)];
+        for (int from = 0; from < n; from++) {
+            System.arraycopy(transitions, from * n, grown, from * (n + 1), n);
+        }
+        transitions = grown;
+        return n;
+    }
+}
@@ -0,0 +1,64 @@
+package de.fhdo.zarya.api.forecasting;
+
+import lombok.Getter;
+
+/**
+ * Exponentially weighted moving average and Holt's linear trend over the samples of a numerical cell.
+ * Both update in O(1) per sample, steps are sample positions since votes do not arrive at a fixed rate
+ */
+@Getter
+public final class HoltSmoothing {
+    private final double alpha;
+    private final double beta;
+
+    private long count;
+    private double ewma;
+    private double level;
+    private double trend;
+
+    public HoltSmoothing(double alpha, double beta) {
+        this(alpha, beta, 0, 0, 0, 0);
+    }
+
+    public HoltSmoothing(double alpha, double beta, long count, double ewma, double level, double trend) {
+        this.alpha = alpha;
+        this.beta = beta;
+        this.count = count;
+        this.ewma = ewma;
+        this.level = level;
+        this.trend = trend;
+    }
+
+    public void add(double value) {
+        if (count == 0) {
+            ewma = value;
+            level = value;
+            trend = 0;
+        } else {
+            ewma = alpha * value + (1 - alpha) * ewma;
+            if (count == 1) {
+                // The first difference seeds the trend
+                trend = value - level;
+                level = value;
+            } else {
+                double previousLevel = level;
+                level = alpha * value + (1 - alpha) * (level + trend);
+                trend = beta * (level - previousLevel) + (1 - beta) * trend;
+            }
+        }
+        count++;
+    }
+
+    public void addAll(double[] values) {
+        for (double value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * Holt forecast the given number of samples ahead
+     */
+    public double forecast(int horizon) {
+        return level + horizon * trend;
+    }
+}
@@ -1,11 +1,18 @@
 package de.fhdo.zarya.api.interfaces.repositories;
 
 import de.fhdo.zarya.api.persistance.models.CategoricalCell;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoricalCellRepository extends CrudRepository<CategoricalCell, CategoricalCell.CategoricalCellId>, PagingAndSortingRepository<CategoricalCell, CategoricalCell.CategoricalCellId> {
-
+    /**
+     * Every cell with its organ in one query
+     */
+    @Query("select c from CategoricalCell c left join fetch c.organ")
+    List<CategoricalCell> findAllWithOrgan();
 }
@@ -0,0 +1,21 @@
+package de.fhdo.zarya.api.interfaces.repositories;
+
+import de.fhdo.zarya.api.persistance.models.CellCategory;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface CellCategoryRepository extends CrudRepository<CellCategory, CellCategory.CellCategoryId> {
+    List<CellCategory> findByXIndexAndYIndex(int xIndex, int yIndex);
+
+    @Modifying
+    @Transactional
+    @Query("delete from CellCategory c where c.xIndex = :x and c.yIndex = :y")
+    void deleteCell(@Param("x") int x, @Param("y") int y);
+}
@@ -0,0 +1,54 @@
+package de.fhdo.zarya.api.interfaces.repositories;
+
+import de.fhdo.zarya.api.persistance.models.CellSample;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface CellSampleRepository extends CrudRepository<CellSample, CellSample.CellSampleId> {
+
+    @Query("select count(s) as samples, avg(s.rawValue) as average from CellSample s " +
+            "where s.xIndex = :x and s.yIndex = :y and s.isCategorical = :isCategorical " +
+            "and s.timestamp >= :from and s.timestamp < :to")
+    RawValueWindow summarizeRawValues(@Param("x") int x, @Param("y") int y,
+                                      @Param("isCategorical") boolean isCategorical,
+                                      @Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("select s.author as author, count(s) as samples, min(s.timestamp) as firstAt, max(s.timestamp) as lastAt " +
+            "from CellSample s where s.xIndex = :x and s.yIndex = :y and s.isCategorical = :isCategorical " +
+            "group by s.author order by count(s) desc")
+    List<AuthorSamples> summarizeAuthors(@Param("x") int x, @Param("y") int y,
+                                         @Param("isCategorical") boolean isCategorical);
+
+    @Query("select s from CellSample s " +
+            "where s.xIndex = :x and s.yIndex = :y and s.isCategorical = :isCategorical order by s.sampleIndex")
+    List<CellSample> findCell(@Param("x") int x, @Param("y") int y, @Param("isCategorical") boolean isCategorical);
+
+    @Modifying
+    @Transactional
+    @Query("delete from CellSample s where s.xIndex = :x and s.yIndex = :y and s.isCategorical = :isCategorical")
+    void deleteCell(@Param("x") int x, @Param("y") int y, @Param("isCategorical") boolean isCategorical);
+
+    interface RawValueWindow {
+        long getSamples();
+
+        Double getAverage();
+    }
+
+    interface AuthorSamples {
+        String getAuthor();
+
+        long getSamples();
+
+        Instant getFirstAt();
+
+        Instant getLastAt();
+    }
+}
@@ -0,0 +1,68 @@
+package de.fhdo.zarya.api.interfaces.repositories;
+
+import de.fhdo.zarya.api.organs.PartyOrganType;
+import de.fhdo.zarya.api.persistance.models.CellStatistics;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CellStatisticsRepository extends CrudRepository<CellStatistics, CellStatistics.CellStatisticsId> {
+    List<CellStatistics> findByIsCategorical(boolean isCategorical);
+
+    @Query("select s from CellStatistics s, NumericalCell c " +
+            "where s.isCategorical = false and s.xIndex = c.xIndex and s.yIndex = c.yIndex and c.organ.id = :organId")
+    List<CellStatistics> findNumericalByOrganId(@Param("organId") Long organId);
+
+    /**
+     * Sums over the numerical cells of a group, m2 of the group is m2 + sumTimesMean - sum² / count
+     */
+    interface NumericalTotals {
+        Long getCells();
+
+        Long getCount();
+
+        Double getSum();
+
+        Double getSumOfSquares();
+
+        Double getM2();
+
+        // Sum of count * mean² over the cells, the spread of the cell means around the group mean
+        Double getSumTimesMean();
+
+        Double getMin();
+
+        Double getMax();
+    }
+
+    interface RegionTotals extends NumericalTotals {
+        String getRegionCode();
+    }
+
+    interface OrganTypeTotals extends NumericalTotals {
+        PartyOrganType getType();
+    }
+
+    // Regional and local organs of the region, federal organs have none
+    @Query("select o.regionCode as regionCode, count(s) as cells, sum(s.count) as count, sum(s.sum) as sum, " +
+            "sum(s.sumOfSquares) as sumOfSquares, sum(s.m2) as m2, sum(s.sum * s.mean) as sumTimesMean, " +
+            "min(s.min) as min, max(s.max) as max " +
+            "from CellStatistics s, NumericalCell c join c.organ o " +
+            "where s.isCategorical = false and s.count > 0 and s.xIndex = c.xIndex and s.yIndex = c.yIndex " +
+            "and o.regionCode is not null " +
+            "group by o.regionCode order by o.regionCode")
+    List<RegionTotals> sumNumericalByRegion();
+
+    @Query("select o.type as type, count(s) as cells, sum(s.count) as count, sum(s.sum) as sum, " +
+            "sum(s.sumOfSquares) as sumOfSquares, sum(s.m2) as m2, sum(s.sum * s.mean) as sumTimesMean, " +
+            "min(s.min) as min, max(s.max) as max " +
+            "from CellStatistics s, NumericalCell c join c.organ o " +
+            "where s.isCategorical = false and s.count > 0 and s.xIndex = c.xIndex and s.yIndex = c.yIndex " +
+            "and o.type is not null " +
+            "group by o.type order by o.type")
+    List<OrganTypeTotals> sumNumericalByOrganType();
+}
@@ -1,11 +1,18 @@
 package de.fhdo.zarya.api.interfaces.repositories;
 
 import de.fhdo.zarya.api.persistance.models.NumericalCell;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface NumericalCellRepository extends CrudRepository<NumericalCell, NumericalCell.NumericalCellId>, PagingAndSortingRepository<NumericalCell, NumericalCell.NumericalCellId> {
-
+    /**
+     * Every cell with its organ in one query
+     */
+    @Query("select c from NumericalCell c left join fetch c.organ")
+    List<NumericalCell> findAllWithOrgan();
 }
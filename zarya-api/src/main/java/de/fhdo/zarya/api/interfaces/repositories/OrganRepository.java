@@ -5,6 +5,12 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface OrganRepository extends CrudRepository<Organ, Long>, PagingAndSortingRepository<Organ, Long> {
+    Optional<Organ> findByHash(byte[] hash);
+
+    List<Organ> findAllBy();
 }
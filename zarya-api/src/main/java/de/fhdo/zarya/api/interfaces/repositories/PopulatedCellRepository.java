@@ -0,0 +1,9 @@
+package de.fhdo.zarya.api.interfaces.repositories;
+
+import de.fhdo.zarya.api.persistance.models.PopulatedCell;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PopulatedCellRepository extends CrudRepository<PopulatedCell, PopulatedCell.PopulatedCellId> {
+}
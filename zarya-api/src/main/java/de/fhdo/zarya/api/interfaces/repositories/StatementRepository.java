@@ -10,4 +10,6 @@ import java.util.Optional;
 @Repository
 public interface StatementRepository extends CrudRepository<Statement, Long>, PagingAndSortingRepository<Statement, Long> {
     Optional<Statement> findByYIndexAndIsCategorical(Long YIndex, boolean isCategorical);
+
+    Optional<Statement> findFirstByIsCategoricalOrderByYIndexDesc(boolean isCategorical);
 }
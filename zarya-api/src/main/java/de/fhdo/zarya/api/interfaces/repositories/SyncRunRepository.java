@@ -0,0 +1,12 @@
+package de.fhdo.zarya.api.interfaces.repositories;
+
+import de.fhdo.zarya.api.persistance.models.SyncRun;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SyncRunRepository extends CrudRepository<SyncRun, Long> {
+    Optional<SyncRun> findFirstByKindOrderByIdDesc(SyncRun.Kind kind);
+}
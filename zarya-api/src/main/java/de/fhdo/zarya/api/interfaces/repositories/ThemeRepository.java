@@ -10,4 +10,6 @@ import java.util.Optional;
 @Repository
 public interface ThemeRepository extends CrudRepository<Theme, Long>, PagingAndSortingRepository<Theme, Long> {
     Optional<Theme> findByXIndexAndIsCategorical(Long XIndex, Boolean isCategorical);
+
+    Optional<Theme> findFirstByIsCategoricalOrderByXIndexDesc(boolean isCategorical);
 }
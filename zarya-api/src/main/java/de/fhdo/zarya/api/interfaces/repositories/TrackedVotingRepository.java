@@ -0,0 +1,9 @@
+package de.fhdo.zarya.api.interfaces.repositories;
+
+import de.fhdo.zarya.api.persistance.models.TrackedVoting;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrackedVotingRepository extends CrudRepository<TrackedVoting, Long> {
+}
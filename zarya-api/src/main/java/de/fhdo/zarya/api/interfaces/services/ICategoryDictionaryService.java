@@ -0,0 +1,23 @@
+package de.fhdo.zarya.api.interfaces.services;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per cell dictionary between the on-chain category ids and their names
+ */
+public interface ICategoryDictionaryService {
+    Map<Long, String> namesOf(int x, int y);
+
+    /**
+     * Dictionaries of all cells in one read, keyed by MatrixAggregation.Result.cellKey(x, y)
+     */
+    Map<Long, Map<Long, String>> namesOfAll();
+
+    List<String> decode(int x, int y, long[] categoryIds);
+
+    /**
+     * Ids of the names, names unknown to the cell are added to its dictionary
+     */
+    long[] encode(int x, int y, List<String> names);
+}
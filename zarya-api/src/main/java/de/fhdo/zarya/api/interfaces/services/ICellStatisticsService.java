@@ -0,0 +1,58 @@
+package de.fhdo.zarya.api.interfaces.services;
+
+import de.fhdo.zarya.api.persistance.dto.OrganRollup;
+import de.fhdo.zarya.api.persistance.models.CellStatistics;
+import de.fhdo.zarya.api.statistics.FixedBinHistogram;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ICellStatisticsService {
+    /**
+     * Merges newly appended samples into the statistics of the cell, restart drops what was summarized before
+     */
+    void appendNumerical(int x, int y, double[] values, boolean restart);
+
+    void appendCategorical(int x, int y, long[] categoryIds, boolean restart);
+
+    Optional<CellStatistics> find(int x, int y, boolean isCategorical);
+
+    List<CellStatistics> findAll(boolean isCategorical);
+
+    /**
+     * Drops the statistics of a deleted cell, the matrix-wide queries would count them otherwise
+     */
+    void delete(int x, int y, boolean isCategorical);
+
+    /**
+     * Percentiles of the numerical cell from its sketch, q in [0, 1]
+     */
+    double[] percentiles(int x, int y, double[] q);
+
+    /**
+     * Percentiles from the sketch of already loaded statistics
+     */
+    double[] percentiles(CellStatistics statistics, double[] q);
+
+    /**
+     * Percentiles over the merged sketches of all numerical cells, or only of the organ's cells when given
+     */
+    double[] percentiles(Long organId, double[] q);
+
+    Optional<FixedBinHistogram> histogram(int x, int y);
+
+    /**
+     * Histogram over all numerical cells, or only over the organ's cells when given
+     */
+    FixedBinHistogram histogram(Long organId);
+
+    /**
+     * Numerical statistics per region over its regional and local organs, summed up by the database
+     */
+    List<OrganRollup> rollUpByRegion();
+
+    /**
+     * Numerical statistics per organ type, summed up by the database
+     */
+    List<OrganRollup> rollUpByOrganType();
+}
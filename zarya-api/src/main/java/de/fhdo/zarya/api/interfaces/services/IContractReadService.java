@@ -1,10 +1,15 @@
 package de.fhdo.zarya.api.interfaces.services;
 
 import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Function;
 import org.web3j.abi.datatypes.Type;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.response.Log;
 
 import java.math.BigInteger;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @SuppressWarnings("rawtypes")
 public interface IContractReadService {
@@ -17,6 +22,37 @@ public interface IContractReadService {
             List<Type> inputParameters,
             List<TypeReference<?>> outputParameters) throws Exception;
 
+    /**
+     * Call several read-only contract functions at once, results are returned in the order of the functions.
+     * A function whose call reverted yields an empty list
+     */
+    List<List<Type>> callFunctions(List<Function> functions) throws Exception;
+
+    /**
+     * Same as {@link #callFunctions(List)}, read against the state of the given block
+     */
+    List<List<Type>> callFunctions(List<Function> functions, DefaultBlockParameter block) throws Exception;
+
+    /**
+     * Submit read-only contract functions as JSON-RPC batch requests, one future per function
+     */
+    List<CompletableFuture<List<Type>>> submitFunctions(List<Function> functions);
+
+    /**
+     * Same as {@link #submitFunctions(List)}, read against the state of the given block
+     */
+    List<CompletableFuture<List<Type>>> submitFunctions(List<Function> functions, DefaultBlockParameter block);
+
+    /**
+     * Get the number of the most recent block
+     */
+    BigInteger getBlockNumber() throws Exception;
+
+    /**
+     * Get the logs of the contract matching any of the events within [fromBlock, toBlock], in chain order
+     */
+    List<Log> getLogs(BigInteger fromBlock, BigInteger toBlock, List<Event> events) throws Exception;
+
     /**
      * Call a simple getter function that returns a string
      */
@@ -0,0 +1,19 @@
+package de.fhdo.zarya.api.interfaces.services;
+
+import de.fhdo.zarya.api.persistance.dto.Forecast;
+
+public interface IForecastService {
+    /**
+     * Advances the model state of the cell by the appended samples, restart drops the state first
+     */
+    void appendNumerical(int x, int y, double[] values, boolean restart);
+
+    void appendCategorical(int x, int y, long[] categoryIds, boolean restart);
+
+    Forecast forecast(int x, int y, boolean isCategorical, int horizon);
+
+    /**
+     * Drops the model state of a deleted cell
+     */
+    void delete(int x, int y, boolean isCategorical);
+}
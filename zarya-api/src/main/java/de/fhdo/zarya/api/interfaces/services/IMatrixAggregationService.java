@@ -0,0 +1,10 @@
+package de.fhdo.zarya.api.interfaces.services;
+
+import de.fhdo.zarya.api.persistance.dto.MatrixSummary;
+
+public interface IMatrixAggregationService {
+    /**
+     * Numerical matrix summarized per cell, theme, statement, organ and overall
+     */
+    MatrixSummary summarizeNumerical();
+}
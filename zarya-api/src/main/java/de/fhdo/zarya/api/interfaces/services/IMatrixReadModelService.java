@@ -0,0 +1,28 @@
+package de.fhdo.zarya.api.interfaces.services;
+
+import de.fhdo.zarya.api.readmodel.MatrixSnapshot;
+
+public interface IMatrixReadModelService {
+    /**
+     * Snapshot of both matrices as of the last refresh, null until the first one
+     */
+    MatrixSnapshot current();
+
+    /**
+     * Rebuilds the snapshot from the database and swaps it in, readers keep the snapshot they already hold
+     */
+    void refresh(long block);
+
+    /**
+     * Swaps in a snapshot that was built elsewhere, e.g. mapped from a snapshot file
+     */
+    void install(MatrixSnapshot snapshot);
+
+    /**
+     * Rebuilds the snapshot for the block of the current one, after the database was changed outside a synchronization
+     */
+    default void refresh() {
+        MatrixSnapshot snapshot = current();
+        refresh(snapshot == null ? 0 : snapshot.getBlock());
+    }
+}
@@ -0,0 +1,18 @@
+package de.fhdo.zarya.api.interfaces.services;
+
+import de.fhdo.zarya.api.persistance.models.Organ;
+
+/**
+ * Organs keyed by their full on-chain hash, with type, region, number and parents filled in by the decoder
+ */
+public interface IOrganService {
+    /**
+     * The organ with the hash, created together with any missing parents
+     */
+    Organ getOrCreate(byte[] organHash);
+
+    /**
+     * The organ whose identifier is the name, e.g. "77.3.СОВ"
+     */
+    Organ getOrCreate(String identifier);
+}
@@ -1,5 +1,14 @@
 package de.fhdo.zarya.api.interfaces.services;
 
+import de.fhdo.zarya.api.organs.PartyOrganIdentity;
+
+import java.util.Optional;
+
 public interface IPartyOrganDecoderService {
     String decodeOrganHash(byte[] organHashBytes);
+
+    /**
+     * Type, region and number of the organ with the hash, empty for hashes outside the scanned range
+     */
+    Optional<PartyOrganIdentity> decode(byte[] organHashBytes);
 }
@@ -1,9 +1,12 @@
 package de.fhdo.zarya.api.interfaces.services;
 
-import org.springframework.http.ResponseEntity;
+import jakarta.servlet.http.HttpServletResponse;
 
-import java.util.Map;
+import java.io.IOException;
 
 public interface IProxifyRpcService {
-    ResponseEntity<Map<String, Object>> proxyRpcCall(Map<String, Object> rpcRequest);
+    /**
+     * Answers the raw JSON-RPC request, single or batch, directly on the servlet response
+     */
+    void proxyRpcCall(byte[] rpcRequest, HttpServletResponse response) throws IOException;
 }
@@ -0,0 +1,19 @@
+package de.fhdo.zarya.api.interfaces.services;
+
+import de.fhdo.zarya.api.readmodel.MatrixSnapshot;
+
+import java.util.OptionalLong;
+
+public interface ISnapshotFileService {
+    /**
+     * Persists the matrices of the snapshot. The rows needed to seed a schema from it, the sample history included,
+     * are written into a second file when withRows is set and otherwise at most once per
+     * zarya.snapshot.rows-interval-ms
+     */
+    void save(MatrixSnapshot snapshot, boolean withRows);
+
+    /**
+     * Seeds the empty schema from the snapshot file mapped at startup, returns the block it was taken at
+     */
+    OptionalLong restore();
+}
@@ -0,0 +1,29 @@
+package de.fhdo.zarya.api.interfaces.services;
+
+import de.fhdo.zarya.api.persistance.dto.SyncStatus;
+import de.fhdo.zarya.api.persistance.models.SyncRun;
+
+public interface ISyncMetricsService {
+    @FunctionalInterface
+    interface Stage {
+        void run() throws Exception;
+    }
+
+    void runStarted(SyncRun.Kind kind, long fromBlock, long snapshotBlock);
+
+    /**
+     * Runs and times one stage of the current run
+     */
+    void stage(String name, Stage stage) throws Exception;
+
+    void runFinished(SyncRun.Kind kind, long snapshotBlock, Exception error);
+
+    void cellUpdated(boolean isCategorical);
+
+    /**
+     * One eth_call answered after the given time, function is the contract function or the Multicall3 aggregate
+     */
+    void rpcCall(String function, long nanos);
+
+    SyncStatus status();
+}
@@ -0,0 +1,19 @@
+package de.fhdo.zarya.api.interfaces.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.CellSampleRepository;
+import de.fhdo.zarya.api.persistance.dto.WindowAverage;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ITimeSeriesService {
+    /**
+     * Average of the numerical samples in [from, to), scaled with the current decimals of the cell
+     */
+    WindowAverage averageNumerical(int x, int y, Instant from, Instant to);
+
+    /**
+     * Number of samples and first and last sample time per author, most active first
+     */
+    List<CellSampleRepository.AuthorSamples> authors(int x, int y, boolean isCategorical);
+}
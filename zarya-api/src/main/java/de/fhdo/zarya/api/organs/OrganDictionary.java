@@ -0,0 +1,183 @@
+package de.fhdo.zarya.api.organs;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+
+/**
+ * Organ hash → identifier dictionary as one binary image, either memory-mapped from a file or held off-heap.
+ * Layout, all big-endian: a 32 byte header (magic, version, entry count, fingerprint, string pool size), the entries
+ * sorted by their 32 byte Keccak-256 key, each 48 bytes (key, packed organ, pool offset, pool length, padding),
+ * then the UTF-8 identifiers back to back. Lookups binary search the keys in place, nothing is decoded up front
+ */
+public final class OrganDictionary {
+    public static final int NOT_FOUND = -1;
+    public static final int KEY_SIZE = 32;
+
+    // "ZARYAORG"
+    private static final long MAGIC = 0x5A4152594F52474EL;
+    // Bumped whenever the layout changes, a file of another version is regenerated
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 48;
+
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final MemorySegment entries;
+    private final MemorySegment pool;
+    private final int count;
+
+    private OrganDictionary(MemorySegment image) {
+        this.count = image.get(INT, 12);
+        long poolSize = image.get(LONG, 24);
+        this.entries = image.asSlice(HEADER_SIZE, (long) count * ENTRY_SIZE);
+        this.pool = image.asSlice(HEADER_SIZE + (long) count * ENTRY_SIZE, poolSize);
+    }
+
+    /**
+     * Lays out the image in the arena, the organs may come in any order
+     */
+    public static MemorySegment build(long fingerprint, byte[][] keys, int[] organs, String[] identifiers, Arena arena) {
+        int count = keys.length;
+        byte[][] utf8 = new byte[count][];
+        long poolSize = 0;
+        for (int i = 0; i < count; i++) {
+            utf8[i] = identifiers[i].getBytes(StandardCharsets.UTF_8);
+            poolSize += utf8[i].length;
+        }
+        int[] order = IntStream.range(0, count).boxed()
+                .sorted(Comparator.comparing(i -> keys[i], Arrays::compareUnsigned))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        MemorySegment image = arena.allocate(HEADER_SIZE + (long) count * ENTRY_SIZE + poolSize, Long.BYTES);
+        image.set(LONG, 0, MAGIC);
+        image.set(INT, 8, VERSION);
+        image.set(INT, 12, count);
+        image.set(LONG, 16, fingerprint);
+        image.set(LONG, 24, poolSize);
+
+        long poolStart = HEADER_SIZE + (long) count * ENTRY_SIZE;
+        int poolOffset = 0;
+        for (int position = 0; position < count; position++) {
+            int i = order[position];
+            long base = HEADER_SIZE + (long) position * ENTRY_SIZE;
+            MemorySegment.copy(keys[i], 0, image, JAVA_BYTE, base, KEY_SIZE);
+            image.set(INT, base + KEY_SIZE, organs[i]);
+            image.set(INT, base + KEY_SIZE + 4, poolOffset);
+            image.set(INT, base + KEY_SIZE + 8, utf8[i].length);
+            MemorySegment.copy(utf8[i], 0, image, JAVA_BYTE, poolStart + poolOffset, utf8[i].length);
+            poolOffset += utf8[i].length;
+        }
+        return image;
+    }
+
+    public static OrganDictionary of(MemorySegment image) {
+        return new OrganDictionary(image);
+    }
+
+    /**
+     * Maps the file if it holds a dictionary of this version built for the fingerprint, empty otherwise
+     */
+    public static Optional<OrganDictionary> map(Path path, long fingerprint, Arena arena) throws IOException {
+        if (!Files.exists(path)) return Optional.empty();
+        MemorySegment image;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        }
+        if (image.byteSize() < HEADER_SIZE
+                || image.get(LONG, 0) != MAGIC
+                || image.get(INT, 8) != VERSION
+                || image.get(LONG, 16) != fingerprint
+                || image.byteSize() != HEADER_SIZE + (long) image.get(INT, 12) * ENTRY_SIZE + image.get(LONG, 24)) {
+            return Optional.empty();
+        }
+        return Optional.of(new OrganDictionary(image));
+    }
+
+    /**
+     * Writes next to the target and moves it over, a concurrent start never maps a half written file
+     */
+    public static void write(Path path, MemorySegment image) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = image.asByteBuffer();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Position of the entry with the key, or NOT_FOUND
+     */
+    public int find(byte[] key) {
+        if (key.length != KEY_SIZE) return NOT_FOUND;
+        long[] parts = new long[KEY_SIZE / Long.BYTES];
+        MemorySegment keySegment = MemorySegment.ofArray(key);
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = keySegment.get(LONG, (long) i * Long.BYTES);
+        }
+
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compared = compare(mid, parts);
+            if (compared < 0) {
+                low = mid + 1;
+            } else if (compared > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Packed organ the entry was built with, its meaning is up to the writer
+     */
+    public int organ(int position) {
+        return entries.get(INT, (long) position * ENTRY_SIZE + KEY_SIZE);
+    }
+
+    public String identifier(int position) {
+        long base = (long) position * ENTRY_SIZE + KEY_SIZE;
+        int offset = entries.get(INT, base + 4);
+        int length = entries.get(INT, base + 8);
+        return new String(pool.asSlice(offset, length).toArray(JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    private int compare(int position, long[] parts) {
+        long base = (long) position * ENTRY_SIZE;
+        for (int i = 0; i < parts.length; i++) {
+            int compared = Long.compareUnsigned(entries.get(LONG, base + (long) i * Long.BYTES), parts[i]);
+            if (compared != 0) return compared;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,47 @@
+package de.fhdo.zarya.api.organs;
+
+import org.web3j.crypto.Hash;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Decoded party organ: its type, the region code of regional and local organs and the number of local organs.
+ * The hierarchy follows the party structure, local organs belong to the soviet of their region,
+ * regional organs to the central soviet and the central soviet and the chairperson to the congress
+ */
+public record PartyOrganIdentity(PartyOrganType type, String regionCode, Integer number) {
+
+    public PartyOrganIdentity {
+        if (type.isLocal() && (regionCode == null || number == null)) {
+            throw new IllegalArgumentException("Local organs need a region code and a number");
+        }
+        if (type.isRegional() && regionCode == null) {
+            throw new IllegalArgumentException("Regional organs need a region code");
+        }
+        if (!type.isLocal()) number = null;
+        if (!type.isLocal() && !type.isRegional()) regionCode = null;
+    }
+
+    public static PartyOrganIdentity federal(PartyOrganType type) {
+        return new PartyOrganIdentity(type, null, null);
+    }
+
+    public String identifier() {
+        return type.identifier(regionCode, number == null ? 0 : number);
+    }
+
+    /**
+     * Keccak-256 of the identifier, the organ hash stored on-chain
+     */
+    public byte[] hash() {
+        return Hash.sha3(identifier().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Optional<PartyOrganIdentity> parent() {
+        if (type.isLocal()) return Optional.of(new PartyOrganIdentity(PartyOrganType.REGIONAL_SOVIET, regionCode, null));
+        if (type.isRegional()) return Optional.of(federal(PartyOrganType.CENTRAL_SOVIET));
+        if (type != PartyOrganType.CONGRESS) return Optional.of(federal(PartyOrganType.CONGRESS));
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,42 @@
+package de.fhdo.zarya.api.organs;
+
+/**
+ * Kinds of party organs in the order of PartyOrgans.sol, each with the postfix of its identifier
+ */
+public enum PartyOrganType {
+    LOCAL_SOVIET("СОВ"),
+    LOCAL_GENERAL_ASSEMBLY("ОБС"),
+    REGIONAL_SOVIET("СОВ"),
+    REGIONAL_CONFERENCE("КОН"),
+    REGIONAL_GENERAL_ASSEMBLY("ОБС"),
+    CHAIRPERSON("ПРЛ"),
+    CENTRAL_SOVIET("СОВ"),
+    CONGRESS("СЗД");
+
+    private final String postfix;
+
+    PartyOrganType(String postfix) {
+        this.postfix = postfix;
+    }
+
+    public String getPostfix() {
+        return postfix;
+    }
+
+    public boolean isLocal() {
+        return this == LOCAL_SOVIET || this == LOCAL_GENERAL_ASSEMBLY;
+    }
+
+    public boolean isRegional() {
+        return this == REGIONAL_SOVIET || this == REGIONAL_CONFERENCE || this == REGIONAL_GENERAL_ASSEMBLY;
+    }
+
+    /**
+     * Identifier hashed by PartyOrgans.getPartyOrganIdentifier, region and number are ignored where they do not apply
+     */
+    public String identifier(String region, int number) {
+        if (isLocal()) return region + "." + number + "." + postfix;
+        if (isRegional()) return region + "." + postfix;
+        return postfix;
+    }
+}
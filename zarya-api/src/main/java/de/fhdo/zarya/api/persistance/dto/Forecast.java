@@ -0,0 +1,23 @@
+package de.fhdo.zarya.api.persistance.dto;
+
+import lombok.Data;
+
+@Data
+public class Forecast {
+    private int xIndex;
+    private int yIndex;
+    private boolean isCategorical;
+    private long samples;
+    // Samples ahead the predicted value is for
+    private int horizon;
+
+    // Numerical cells only
+    private Double ewma;
+    private Double trend;
+    private Double predicted;
+
+    // Categorical cells only, aligned with categoryId
+    private long[] categoryId;
+    private double[] recentShare;
+    private double[] nextProbability;
+}
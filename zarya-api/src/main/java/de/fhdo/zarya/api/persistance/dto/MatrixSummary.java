@@ -0,0 +1,30 @@
+package de.fhdo.zarya.api.persistance.dto;
+
+import de.fhdo.zarya.api.statistics.RunningStatistics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MatrixSummary {
+    private RunningStatistics overall;
+    private List<GroupSummary> cells;
+    private List<GroupSummary> themes;
+    private List<GroupSummary> statements;
+    private List<GroupSummary> organs;
+
+    /**
+     * Summary of a cell, theme, statement or organ, only the keys of the group are set
+     */
+    @Data
+    @AllArgsConstructor
+    public static class GroupSummary {
+        private Integer xIndex;
+        private Integer yIndex;
+        private Long organId;
+        private String organName;
+        private RunningStatistics statistics;
+    }
+}
@@ -0,0 +1,19 @@
+package de.fhdo.zarya.api.persistance.dto;
+
+import de.fhdo.zarya.api.organs.PartyOrganType;
+import de.fhdo.zarya.api.statistics.RunningStatistics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Numerical statistics rolled up over the cells of all organs of a region or of an organ type,
+ * only the key of the rollup is set
+ */
+@Data
+@AllArgsConstructor
+public class OrganRollup {
+    private String regionCode;
+    private PartyOrganType organType;
+    private long cells;
+    private RunningStatistics statistics;
+}
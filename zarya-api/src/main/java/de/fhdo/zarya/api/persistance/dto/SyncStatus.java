@@ -0,0 +1,48 @@
+package de.fhdo.zarya.api.persistance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncStatus {
+    // Kind of the run in progress, null while idle
+    private String runningKind;
+    private Instant runningSince;
+
+    private Long lastSuccessfulBlock;
+    private Instant lastSuccessfulAt;
+    // Blocks between the last processed one and the snapshot of the latest run
+    private long lagBlocks;
+
+    private String lastKind;
+    private String lastOutcome;
+    private long lastDurationMs;
+    private long lastEthCalls;
+    private long lastCellsUpdated;
+    // In the order the stages ran
+    private Map<String, Long> lastStageDurationsMs;
+
+    private long errors;
+    private String lastError;
+    private Instant lastErrorAt;
+
+    private List<FunctionLatency> rpcLatency;
+
+    @Data
+    @AllArgsConstructor
+    public static class FunctionLatency {
+        private String function;
+        private long calls;
+        private double meanMs;
+        private double maxMs;
+    }
+}
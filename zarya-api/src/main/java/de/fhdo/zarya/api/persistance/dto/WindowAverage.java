@@ -0,0 +1,18 @@
+package de.fhdo.zarya.api.persistance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class WindowAverage {
+    private int xIndex;
+    private int yIndex;
+    private Instant from;
+    private Instant to;
+    private long samples;
+    // Null when the window holds no sample
+    private Double average;
+}
@@ -2,9 +2,10 @@ package de.fhdo.zarya.api.persistance.models;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
-import java.util.List;
 
 @Entity
 @Getter
@@ -16,11 +17,22 @@ public class CategoricalCell {
     @ManyToOne
     private Organ organ;
 
-    @ElementCollection
-    private List<String> category;
+    // Dictionary-encoded samples: the on-chain category id of every vote, names live once per cell in cell_category
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "category_id")
+    private long[] categoryId;
 
-    @ElementCollection
-    private List<String> allowedCategory;
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "allowed_category_id")
+    private long[] allowedCategoryId;
+
+    // Number of on-chain samples already mirrored, histories only grow so only the rest is fetched
+    @Column(name = "synced_sample_length", nullable = false)
+    private long syncedSampleLength;
+
+    // Snapshot block of the run that last wrote the cell, a resumed run skips cells it already wrote
+    @Column(name = "synced_at_block")
+    private Long syncedAtBlock;
 
     @Id
     @Column(name = "x_index", nullable = false)
@@ -0,0 +1,42 @@
+package de.fhdo.zarya.api.persistance.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Name of an allowed category of a categorical cell, names never change once the category was added
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "cell_category")
+@IdClass(CellCategory.CellCategoryId.class)
+public class CellCategory {
+
+    @Id
+    @Column(name = "x_index", nullable = false)
+    private int xIndex;
+
+    @Id
+    @Column(name = "y_index", nullable = false)
+    private int yIndex;
+
+    // On-chain uint64 id, kept in the signed 64 bit range of the column
+    @Id
+    @Column(name = "category_id", nullable = false)
+    private long categoryId;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CellCategoryId implements Serializable {
+        private int xIndex;
+        private int yIndex;
+        private long categoryId;
+    }
+}
@@ -0,0 +1,69 @@
+package de.fhdo.zarya.api.persistance.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+
+/**
+ * Model state of the forecasts of a cell, advanced with every appended sample instead of refit from the history
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "cell_forecast_state")
+@IdClass(CellForecastState.CellForecastStateId.class)
+public class CellForecastState {
+
+    @Id
+    @Column(name = "x_index", nullable = false)
+    private int xIndex;
+
+    @Id
+    @Column(name = "y_index", nullable = false)
+    private int yIndex;
+
+    @Id
+    @Column(name = "is_categorical", nullable = false)
+    private boolean isCategorical;
+
+    @Column(name = "sample_count", nullable = false)
+    private long count;
+
+    // Numerical cells only
+    @Column(name = "ewma")
+    private double ewma;
+
+    @Column(name = "holt_level")
+    private double holtLevel;
+
+    @Column(name = "holt_trend")
+    private double holtTrend;
+
+    // Categorical cells only
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "category_id")
+    private long[] categoryId;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "decayed_frequency")
+    private double[] decayedFrequency;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "transition")
+    private double[] transition;
+
+    @Column(name = "last_category_id")
+    private long lastCategoryId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CellForecastStateId implements Serializable {
+        private int xIndex;
+        private int yIndex;
+        private boolean isCategorical;
+    }
+}
@@ -0,0 +1,79 @@
+package de.fhdo.zarya.api.persistance.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * One on-chain sample of a cell as returned by the history calls, the time series behind the value lists
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "cell_sample", indexes = {
+        @Index(name = "idx_cell_sample_cell_time", columnList = "x_index, y_index, sampled_at"),
+        @Index(name = "idx_cell_sample_author", columnList = "author")
+})
+@IdClass(CellSample.CellSampleId.class)
+public class CellSample implements Persistable<CellSample.CellSampleId> {
+
+    @Id
+    @Column(name = "x_index", nullable = false)
+    private int xIndex;
+
+    @Id
+    @Column(name = "y_index", nullable = false)
+    private int yIndex;
+
+    @Id
+    @Column(name = "is_categorical", nullable = false)
+    private boolean isCategorical;
+
+    // Position in the on-chain history of the cell
+    @Id
+    @Column(name = "sample_index", nullable = false)
+    private long sampleIndex;
+
+    @Column(name = "sampled_at", nullable = false)
+    private Instant timestamp;
+
+    @Column(name = "author", nullable = false, length = 42)
+    private String author;
+
+    // On-chain uint64, the unscaled number of a numerical cell or the category id of a categorical one
+    @Column(name = "raw_value", nullable = false)
+    private long rawValue;
+
+    // Samples are only ever appended, saving them must not select each one first
+    @Transient
+    private boolean isNew = true;
+
+    @Override
+    public CellSampleId getId() {
+        return new CellSampleId(xIndex, yIndex, isCategorical, sampleIndex);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CellSampleId implements Serializable {
+        private int xIndex;
+        private int yIndex;
+        private boolean isCategorical;
+        private long sampleIndex;
+    }
+}
@@ -0,0 +1,96 @@
+package de.fhdo.zarya.api.persistance.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+
+/**
+ * Summary of the samples of a cell, merged with every appended batch during synchronization
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "cell_statistics")
+@IdClass(CellStatistics.CellStatisticsId.class)
+public class CellStatistics {
+
+    @Id
+    @Column(name = "x_index", nullable = false)
+    private int xIndex;
+
+    @Id
+    @Column(name = "y_index", nullable = false)
+    private int yIndex;
+
+    @Id
+    @Column(name = "is_categorical", nullable = false)
+    private boolean isCategorical;
+
+    @Column(name = "sample_count", nullable = false)
+    private long count;
+
+    // Numerical cells only
+    @Column(name = "value_sum")
+    private double sum;
+
+    @Column(name = "sum_of_squares")
+    private double sumOfSquares;
+
+    @Column(name = "mean")
+    private double mean;
+
+    @Column(name = "m2")
+    private double m2;
+
+    @Column(name = "min_value")
+    private Double min;
+
+    @Column(name = "max_value")
+    private Double max;
+
+    // Numerical cells only, t-digest sketch in its small byte form
+    @JsonIgnore
+    @Column(name = "digest")
+    private byte[] digest;
+
+    // Numerical cells only, fixed-bin histogram with an underflow and an overflow bin
+    @Column(name = "histogram_min")
+    private Double histogramMin;
+
+    @Column(name = "histogram_max")
+    private Double histogramMax;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "histogram")
+    private long[] histogram;
+
+    // Categorical cells only, votes per category id
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "category_id")
+    private long[] categoryId;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "category_count")
+    private long[] categoryCount;
+
+    public double getVariance() {
+        return count == 0 ? 0.0 : m2 / count;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CellStatisticsId implements Serializable {
+        private int xIndex;
+        private int yIndex;
+        private boolean isCategorical;
+    }
+}
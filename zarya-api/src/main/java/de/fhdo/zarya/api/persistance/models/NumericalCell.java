@@ -2,9 +2,10 @@ package de.fhdo.zarya.api.persistance.models;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
-import java.util.List;
 
 @Entity
 @Getter
@@ -16,8 +17,21 @@ public class NumericalCell {
     @ManyToOne
     private Organ organ;
 
-    @ElementCollection
-    private List<Double> value;
+    // One float8[] column, the samples load with the row instead of from a join table
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "value")
+    private double[] value;
+
+    // Number of on-chain samples already mirrored, histories only grow so only the rest is fetched
+    @Column(name = "synced_sample_length", nullable = false)
+    private long syncedSampleLength;
+
+    // Snapshot block of the run that last wrote the cell, a resumed run skips cells it already wrote
+    @Column(name = "synced_at_block")
+    private Long syncedAtBlock;
+
+    @Column(name = "decimals", nullable = false)
+    private int decimals;
 
     @Id
     @Column(name = "x_index", nullable = false)
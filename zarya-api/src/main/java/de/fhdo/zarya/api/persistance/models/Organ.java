@@ -1,5 +1,8 @@
 package de.fhdo.zarya.api.persistance.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.fhdo.zarya.api.organs.PartyOrganType;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,11 +10,43 @@ import lombok.Setter;
 @Entity
 @Getter
 @Setter
-@Table(name = "organ")
+@Table(name = "organ", indexes = {
+        @Index(name = "idx_organ_type", columnList = "type"),
+        @Index(name = "idx_organ_region_code", columnList = "region_code"),
+        @Index(name = "idx_organ_parent", columnList = "parent_id")
+})
 public class Organ {
+    // First 64 bits of the hash, the full hash is what identifies the organ
     @Id
     private Long id;
 
+    // Keccak-256 of the identifier as stored on-chain
+    @JsonIgnore
+    @Column(name = "hash", nullable = false, unique = true, length = 32)
+    private byte[] hash;
+
     @Column(name = "name", nullable = false)
     private String name;
+
+    // Type, region and number are unset for organs the decoder does not know
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 32)
+    private PartyOrganType type;
+
+    @Column(name = "region_code", length = 2)
+    private String regionCode;
+
+    @Column(name = "number")
+    private Integer number;
+
+    // Federal → regional → local, the congress has none. Eager, the chain is at most three organs long
+    @ManyToOne
+    @JoinColumn(name = "parent_id")
+    @JsonIgnore
+    private Organ parent;
+
+    @JsonProperty("parentId")
+    public Long getParentId() {
+        return parent == null ? null : parent.getId();
+    }
 }
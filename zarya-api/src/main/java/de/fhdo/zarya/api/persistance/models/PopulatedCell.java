@@ -0,0 +1,42 @@
+package de.fhdo.zarya.api.persistance.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Sparse index of the cells holding at least one sample, the reconciliation only enumerates these
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "populated_cell")
+@IdClass(PopulatedCell.PopulatedCellId.class)
+public class PopulatedCell {
+
+    @Id
+    @Column(name = "x_index", nullable = false)
+    private int xIndex;
+
+    @Id
+    @Column(name = "y_index", nullable = false)
+    private int yIndex;
+
+    @Id
+    @Column(name = "is_categorical", nullable = false)
+    private boolean isCategorical;
+
+    // Snapshot block of the run that first saw a sample in the cell
+    @Column(name = "discovered_at_block", nullable = false)
+    private long discoveredAtBlock;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PopulatedCellId implements Serializable {
+        private int xIndex;
+        private int yIndex;
+        private boolean isCategorical;
+    }
+}
@@ -0,0 +1,48 @@
+package de.fhdo.zarya.api.persistance.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One synchronization run, every contract read of the run is done at its snapshot block
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "sync_run")
+public class SyncRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false)
+    private Kind kind;
+
+    @Column(name = "snapshot_block", nullable = false)
+    private Long snapshotBlock;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    public enum Kind {
+        RECONCILE,
+        INCREMENTAL
+    }
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,36 @@
+package de.fhdo.zarya.api.persistance.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A voting whose finalization changes matrix data without emitting a Matricies event
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "tracked_voting")
+public class TrackedVoting {
+    @Id
+    private Long votingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "kind", nullable = false)
+    private Kind kind;
+
+    @Column(name = "is_categorical", nullable = false)
+    private boolean isCategorical;
+
+    @Column(name = "x_index")
+    private Long XIndex;
+
+    @Column(name = "y_index")
+    private Long YIndex;
+
+    public enum Kind {
+        THEME,
+        STATEMENT,
+        DECIMALS
+    }
+}
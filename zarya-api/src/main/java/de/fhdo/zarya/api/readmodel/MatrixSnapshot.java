@@ -0,0 +1,366 @@
+package de.fhdo.zarya.api.readmodel;
+
+import de.fhdo.zarya.api.persistance.models.CategoricalCell;
+import de.fhdo.zarya.api.persistance.models.NumericalCell;
+import de.fhdo.zarya.api.persistance.models.Organ;
+import de.fhdo.zarya.api.statistics.MatrixAggregation;
+import de.fhdo.zarya.api.statistics.RunningStatistics;
+import lombok.Getter;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+
+import static java.lang.foreign.ValueLayout.*;
+
+/**
+ * Immutable copy of both matrices in off-heap memory, valid as of one block.
+ * Every cell has a fixed-size entry in an index segment sorted by (x, y), its samples are a slice of one shared
+ * value segment, so a lookup is a binary search and a read copies a single primitive array
+ */
+public final class MatrixSnapshot {
+    static final StructLayout NUMERICAL_ENTRY = MemoryLayout.structLayout(
+            JAVA_LONG.withName("key"),
+            JAVA_LONG.withName("organ"),
+            JAVA_LONG.withName("offset"),
+            JAVA_LONG.withName("length"),
+            JAVA_LONG.withName("decimals"),
+            JAVA_DOUBLE.withName("sum"),
+            JAVA_DOUBLE.withName("sumOfSquares"),
+            JAVA_DOUBLE.withName("mean"),
+            JAVA_DOUBLE.withName("m2"),
+            JAVA_DOUBLE.withName("min"),
+            JAVA_DOUBLE.withName("max"),
+            JAVA_LONG.withName("syncedSampleLength"),
+            JAVA_LONG.withName("syncedAtBlock"),
+            JAVA_BYTE.withName("hasOrgan"),
+            JAVA_BYTE.withName("isSynced"),
+            MemoryLayout.paddingLayout(6));
+
+    static final StructLayout CATEGORICAL_ENTRY = MemoryLayout.structLayout(
+            JAVA_LONG.withName("key"),
+            JAVA_LONG.withName("organ"),
+            JAVA_LONG.withName("offset"),
+            JAVA_LONG.withName("length"),
+            JAVA_LONG.withName("allowedOffset"),
+            JAVA_LONG.withName("allowedLength"),
+            JAVA_LONG.withName("syncedSampleLength"),
+            JAVA_LONG.withName("syncedAtBlock"),
+            JAVA_BYTE.withName("hasOrgan"),
+            JAVA_BYTE.withName("isSynced"),
+            MemoryLayout.paddingLayout(6));
+
+    private static final VarHandle N_KEY = handle(NUMERICAL_ENTRY, "key");
+    private static final VarHandle N_ORGAN = handle(NUMERICAL_ENTRY, "organ");
+    private static final VarHandle N_HAS_ORGAN = handle(NUMERICAL_ENTRY, "hasOrgan");
+    private static final VarHandle N_OFFSET = handle(NUMERICAL_ENTRY, "offset");
+    private static final VarHandle N_LENGTH = handle(NUMERICAL_ENTRY, "length");
+    private static final VarHandle N_DECIMALS = handle(NUMERICAL_ENTRY, "decimals");
+    private static final VarHandle N_SUM = handle(NUMERICAL_ENTRY, "sum");
+    private static final VarHandle N_SUM_OF_SQUARES = handle(NUMERICAL_ENTRY, "sumOfSquares");
+    private static final VarHandle N_MEAN = handle(NUMERICAL_ENTRY, "mean");
+    private static final VarHandle N_M2 = handle(NUMERICAL_ENTRY, "m2");
+    private static final VarHandle N_MIN = handle(NUMERICAL_ENTRY, "min");
+    private static final VarHandle N_MAX = handle(NUMERICAL_ENTRY, "max");
+    private static final VarHandle N_SYNCED_SAMPLE_LENGTH = handle(NUMERICAL_ENTRY, "syncedSampleLength");
+    private static final VarHandle N_SYNCED_AT_BLOCK = handle(NUMERICAL_ENTRY, "syncedAtBlock");
+    private static final VarHandle N_IS_SYNCED = handle(NUMERICAL_ENTRY, "isSynced");
+
+    private static final VarHandle C_KEY = handle(CATEGORICAL_ENTRY, "key");
+    private static final VarHandle C_ORGAN = handle(CATEGORICAL_ENTRY, "organ");
+    private static final VarHandle C_HAS_ORGAN = handle(CATEGORICAL_ENTRY, "hasOrgan");
+    private static final VarHandle C_OFFSET = handle(CATEGORICAL_ENTRY, "offset");
+    private static final VarHandle C_LENGTH = handle(CATEGORICAL_ENTRY, "length");
+    private static final VarHandle C_ALLOWED_OFFSET = handle(CATEGORICAL_ENTRY, "allowedOffset");
+    private static final VarHandle C_ALLOWED_LENGTH = handle(CATEGORICAL_ENTRY, "allowedLength");
+    private static final VarHandle C_SYNCED_SAMPLE_LENGTH = handle(CATEGORICAL_ENTRY, "syncedSampleLength");
+    private static final VarHandle C_SYNCED_AT_BLOCK = handle(CATEGORICAL_ENTRY, "syncedAtBlock");
+    private static final VarHandle C_IS_SYNCED = handle(CATEGORICAL_ENTRY, "isSynced");
+
+    @Getter
+    private final long block;
+    private final Map<Long, Organ> organs;
+    private final MemorySegment numericalIndex;
+    private final MemorySegment numericalValues;
+    private final MemorySegment categoricalIndex;
+    private final MemorySegment categoricalIds;
+
+    MatrixSnapshot(long block, Map<Long, Organ> organs,
+                   MemorySegment numericalIndex, MemorySegment numericalValues,
+                   MemorySegment categoricalIndex, MemorySegment categoricalIds) {
+        this.block = block;
+        this.organs = organs;
+        this.numericalIndex = numericalIndex;
+        this.numericalValues = numericalValues;
+        this.categoricalIndex = categoricalIndex;
+        this.categoricalIds = categoricalIds;
+    }
+
+    /**
+     * Copies the cells into segments of the arena, the statistics of every numerical cell are computed on the way
+     */
+    public static MatrixSnapshot build(long block, Collection<NumericalCell> numericalCells,
+                                       Collection<CategoricalCell> categoricalCells, Arena arena) {
+        Map<Long, Organ> organs = new HashMap<>();
+
+        List<NumericalCell> numerical = new ArrayList<>(numericalCells);
+        numerical.sort(Comparator.comparingLong(cell -> key(cell.getXIndex(), cell.getYIndex())));
+        long valueCount = 0;
+        for (NumericalCell cell : numerical) {
+            valueCount += length(cell.getValue());
+        }
+
+        MemorySegment numericalIndex = arena.allocate(NUMERICAL_ENTRY, numerical.size());
+        MemorySegment numericalValues = arena.allocate(JAVA_DOUBLE, valueCount);
+        long valueOffset = 0;
+        for (int i = 0; i < numerical.size(); i++) {
+            NumericalCell cell = numerical.get(i);
+            double[] values = cell.getValue() == null ? new double[0] : cell.getValue();
+            MemorySegment.copy(values, 0, numericalValues, JAVA_DOUBLE, valueOffset * JAVA_DOUBLE.byteSize(), values.length);
+
+            RunningStatistics statistics = new RunningStatistics();
+            statistics.addAll(values);
+
+            long base = i * NUMERICAL_ENTRY.byteSize();
+            N_KEY.set(numericalIndex, base, key(cell.getXIndex(), cell.getYIndex()));
+            // Organ ids take any long value, whether there is one is a flag of its own
+            N_ORGAN.set(numericalIndex, base, organId(cell.getOrgan(), organs));
+            N_HAS_ORGAN.set(numericalIndex, base, cell.getOrgan() == null ? (byte) 0 : (byte) 1);
+            N_OFFSET.set(numericalIndex, base, valueOffset);
+            N_LENGTH.set(numericalIndex, base, (long) values.length);
+            N_DECIMALS.set(numericalIndex, base, (long) cell.getDecimals());
+            N_SUM.set(numericalIndex, base, statistics.getSum());
+            N_SUM_OF_SQUARES.set(numericalIndex, base, statistics.getSumOfSquares());
+            N_MEAN.set(numericalIndex, base, statistics.getMean());
+            N_M2.set(numericalIndex, base, statistics.getM2());
+            N_MIN.set(numericalIndex, base, statistics.getMin());
+            N_MAX.set(numericalIndex, base, statistics.getMax());
+            // The sync cursor is kept as stored, cells edited by hand have none
+            N_SYNCED_SAMPLE_LENGTH.set(numericalIndex, base, cell.getSyncedSampleLength());
+            N_SYNCED_AT_BLOCK.set(numericalIndex, base, cell.getSyncedAtBlock() == null ? 0L : cell.getSyncedAtBlock());
+            N_IS_SYNCED.set(numericalIndex, base, cell.getSyncedAtBlock() == null ? (byte) 0 : (byte) 1);
+            valueOffset += values.length;
+        }
+
+        List<CategoricalCell> categorical = new ArrayList<>(categoricalCells);
+        categorical.sort(Comparator.comparingLong(cell -> key(cell.getXIndex(), cell.getYIndex())));
+        long idCount = 0;
+        for (CategoricalCell cell : categorical) {
+            idCount += length(cell.getCategoryId()) + length(cell.getAllowedCategoryId());
+        }
+
+        MemorySegment categoricalIndex = arena.allocate(CATEGORICAL_ENTRY, categorical.size());
+        MemorySegment categoricalIds = arena.allocate(JAVA_LONG, idCount);
+        long idOffset = 0;
+        for (int i = 0; i < categorical.size(); i++) {
+            CategoricalCell cell = categorical.get(i);
+            long[] ids = cell.getCategoryId() == null ? new long[0] : cell.getCategoryId();
+            long[] allowed = cell.getAllowedCategoryId() == null ? new long[0] : cell.getAllowedCategoryId();
+            MemorySegment.copy(ids, 0, categoricalIds, JAVA_LONG, idOffset * JAVA_LONG.byteSize(), ids.length);
+            MemorySegment.copy(allowed, 0, categoricalIds, JAVA_LONG,
+                    (idOffset + ids.length) * JAVA_LONG.byteSize(), allowed.length);
+
+            long base = i * CATEGORICAL_ENTRY.byteSize();
+            C_KEY.set(categoricalIndex, base, key(cell.getXIndex(), cell.getYIndex()));
+            C_ORGAN.set(categoricalIndex, base, organId(cell.getOrgan(), organs));
+            C_HAS_ORGAN.set(categoricalIndex, base, cell.getOrgan() == null ? (byte) 0 : (byte) 1);
+            C_OFFSET.set(categoricalIndex, base, idOffset);
+            C_LENGTH.set(categoricalIndex, base, (long) ids.length);
+            C_ALLOWED_OFFSET.set(categoricalIndex, base, idOffset + ids.length);
+            C_ALLOWED_LENGTH.set(categoricalIndex, base, (long) allowed.length);
+            C_SYNCED_SAMPLE_LENGTH.set(categoricalIndex, base, cell.getSyncedSampleLength());
+            C_SYNCED_AT_BLOCK.set(categoricalIndex, base, cell.getSyncedAtBlock() == null ? 0L : cell.getSyncedAtBlock());
+            C_IS_SYNCED.set(categoricalIndex, base, cell.getSyncedAtBlock() == null ? (byte) 0 : (byte) 1);
+            idOffset += ids.length + allowed.length;
+        }
+
+        return new MatrixSnapshot(block, Map.copyOf(organs), numericalIndex, numericalValues, categoricalIndex, categoricalIds);
+    }
+
+    /**
+     * Organs of the cells by id
+     */
+    public Map<Long, Organ> organs() {
+        return organs;
+    }
+
+    MemorySegment numericalIndex() {
+        return numericalIndex;
+    }
+
+    MemorySegment numericalValues() {
+        return numericalValues;
+    }
+
+    MemorySegment categoricalIndex() {
+        return categoricalIndex;
+    }
+
+    MemorySegment categoricalIds() {
+        return categoricalIds;
+    }
+
+    public int numericalCount() {
+        return (int) (numericalIndex.byteSize() / NUMERICAL_ENTRY.byteSize());
+    }
+
+    public int categoricalCount() {
+        return (int) (categoricalIndex.byteSize() / CATEGORICAL_ENTRY.byteSize());
+    }
+
+    public Optional<NumericalCell> numericalCell(int x, int y) {
+        int i = search(numericalIndex, NUMERICAL_ENTRY, N_KEY, numericalCount(), key(x, y));
+        return i < 0 ? Optional.empty() : Optional.of(numericalCellAt(i));
+    }
+
+    public Optional<CategoricalCell> categoricalCell(int x, int y) {
+        int i = search(categoricalIndex, CATEGORICAL_ENTRY, C_KEY, categoricalCount(), key(x, y));
+        return i < 0 ? Optional.empty() : Optional.of(categoricalCellAt(i));
+    }
+
+    /**
+     * Cells from the given position in (x, y) order, only the requested ones are copied out of the segments
+     */
+    public List<NumericalCell> numericalCells(long from, int size) {
+        int to = (int) Math.min(numericalCount(), from + size);
+        List<NumericalCell> cells = new ArrayList<>(Math.max(0, to - (int) from));
+        for (int i = (int) from; i < to; i++) {
+            cells.add(numericalCellAt(i));
+        }
+        return cells;
+    }
+
+    public List<CategoricalCell> categoricalCells(long from, int size) {
+        int to = (int) Math.min(categoricalCount(), from + size);
+        List<CategoricalCell> cells = new ArrayList<>(Math.max(0, to - (int) from));
+        for (int i = (int) from; i < to; i++) {
+            cells.add(categoricalCellAt(i));
+        }
+        return cells;
+    }
+
+    /**
+     * Statistics precomputed when the snapshot was built, the samples are not touched
+     */
+    public Optional<RunningStatistics> numericalStatistics(int x, int y) {
+        int i = search(numericalIndex, NUMERICAL_ENTRY, N_KEY, numericalCount(), key(x, y));
+        if (i < 0) return Optional.empty();
+        return Optional.of(statisticsAt(i * NUMERICAL_ENTRY.byteSize()));
+    }
+
+    private RunningStatistics statisticsAt(long base) {
+        return new RunningStatistics(
+                (long) N_LENGTH.get(numericalIndex, base),
+                (double) N_SUM.get(numericalIndex, base),
+                (double) N_SUM_OF_SQUARES.get(numericalIndex, base),
+                (double) N_MEAN.get(numericalIndex, base),
+                (double) N_M2.get(numericalIndex, base),
+                (double) N_MIN.get(numericalIndex, base),
+                (double) N_MAX.get(numericalIndex, base));
+    }
+
+    /**
+     * Precomputed statistics of every numerical cell in (x, y) order, for merging without touching the samples
+     */
+    public List<MatrixAggregation.CellSummary> numericalSummaries() {
+        List<MatrixAggregation.CellSummary> summaries = new ArrayList<>(numericalCount());
+        for (int i = 0; i < numericalCount(); i++) {
+            long base = i * NUMERICAL_ENTRY.byteSize();
+            long cellKey = (long) N_KEY.get(numericalIndex, base);
+            Long organId = (byte) N_HAS_ORGAN.get(numericalIndex, base) == 0
+                    ? null : (Long) (long) N_ORGAN.get(numericalIndex, base);
+            summaries.add(new MatrixAggregation.CellSummary((int) (cellKey >> 32), (int) cellKey, organId,
+                    statisticsAt(base)));
+        }
+        return summaries;
+    }
+
+    private NumericalCell numericalCellAt(int i) {
+        long base = i * NUMERICAL_ENTRY.byteSize();
+        long cellKey = (long) N_KEY.get(numericalIndex, base);
+        long offset = (long) N_OFFSET.get(numericalIndex, base);
+        long length = (long) N_LENGTH.get(numericalIndex, base);
+
+        NumericalCell cell = new NumericalCell();
+        cell.setXIndex((int) (cellKey >> 32));
+        cell.setYIndex((int) cellKey);
+        if ((byte) N_HAS_ORGAN.get(numericalIndex, base) != 0) {
+            cell.setOrgan(organs.get((long) N_ORGAN.get(numericalIndex, base)));
+        }
+        cell.setDecimals((int) (long) N_DECIMALS.get(numericalIndex, base));
+        cell.setValue(numericalValues.asSlice(offset * JAVA_DOUBLE.byteSize(), length * JAVA_DOUBLE.byteSize())
+                .toArray(JAVA_DOUBLE));
+        cell.setSyncedSampleLength((long) N_SYNCED_SAMPLE_LENGTH.get(numericalIndex, base));
+        if ((byte) N_IS_SYNCED.get(numericalIndex, base) != 0) {
+            cell.setSyncedAtBlock((long) N_SYNCED_AT_BLOCK.get(numericalIndex, base));
+        }
+        return cell;
+    }
+
+    private CategoricalCell categoricalCellAt(int i) {
+        long base = i * CATEGORICAL_ENTRY.byteSize();
+        long cellKey = (long) C_KEY.get(categoricalIndex, base);
+        long length = (long) C_LENGTH.get(categoricalIndex, base);
+
+        CategoricalCell cell = new CategoricalCell();
+        cell.setXIndex((int) (cellKey >> 32));
+        cell.setYIndex((int) cellKey);
+        if ((byte) C_HAS_ORGAN.get(categoricalIndex, base) != 0) {
+            cell.setOrgan(organs.get((long) C_ORGAN.get(categoricalIndex, base)));
+        }
+        cell.setCategoryId(ids((long) C_OFFSET.get(categoricalIndex, base), length));
+        cell.setAllowedCategoryId(ids((long) C_ALLOWED_OFFSET.get(categoricalIndex, base),
+                (long) C_ALLOWED_LENGTH.get(categoricalIndex, base)));
+        cell.setSyncedSampleLength((long) C_SYNCED_SAMPLE_LENGTH.get(categoricalIndex, base));
+        if ((byte) C_IS_SYNCED.get(categoricalIndex, base) != 0) {
+            cell.setSyncedAtBlock((long) C_SYNCED_AT_BLOCK.get(categoricalIndex, base));
+        }
+        return cell;
+    }
+
+    private long[] ids(long offset, long length) {
+        return categoricalIds.asSlice(offset * JAVA_LONG.byteSize(), length * JAVA_LONG.byteSize()).toArray(JAVA_LONG);
+    }
+
+    private static int search(MemorySegment index, StructLayout entry, VarHandle keyHandle, int count, long key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = (long) keyHandle.get(index, mid * entry.byteSize());
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static long organId(Organ organ, Map<Long, Organ> organs) {
+        if (organ == null) return 0;
+        organs.putIfAbsent(organ.getId(), organ);
+        return organ.getId();
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static int length(double[] values) {
+        return values == null ? 0 : values.length;
+    }
+
+    private static int length(long[] values) {
+        return values == null ? 0 : values.length;
+    }
+
+    private static VarHandle handle(StructLayout layout, String name) {
+        return layout.varHandle(MemoryLayout.PathElement.groupElement(name));
+    }
+}
@@ -0,0 +1,392 @@
+package de.fhdo.zarya.api.readmodel;
+
+import de.fhdo.zarya.api.organs.PartyOrganType;
+import de.fhdo.zarya.api.persistance.models.*;
+
+import java.io.*;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Binary image of a matrix snapshot and the rows it refers to, tagged with its block.
+ * The matrix sections are the raw segments of the snapshot, so a mapped file is used as is without decoding them.
+ * Layout: an 80 byte header (magic, version, block, section lengths) followed by the numerical index, the numerical
+ * values, the categorical index, the categorical ids, the encoded organs and the rows, each padded to 8 bytes.
+ * The rows are optional and streamed, a file without them serves the read model but can not seed a schema
+ */
+public final class SnapshotFile {
+    // "ZARYASNP", also rejects files written on a machine of the other byte order
+    private static final long MAGIC = 0x5A41525941534E50L;
+    // Bumped whenever the layout of a section changes, older files are ignored
+    public static final int VERSION = 6;
+    private static final int HEADER_SIZE = 80;
+    private static final int SECTIONS = 6;
+    private static final int HASH_SIZE = 32;
+
+    // Tags of the rows section, every row is one tagged record and END closes the section
+    private static final int END = 0;
+    private static final int THEME = 1;
+    private static final int STATEMENT = 2;
+    private static final int CATEGORY = 3;
+    private static final int SAMPLE = 4;
+    private static final int TRACKED_VOTING = 5;
+
+    /**
+     * The matrices with their organs, rows is empty when the file was written without them
+     */
+    public record Contents(MatrixSnapshot matrices, List<Organ> organs, MemorySegment rows) {
+        public boolean hasRows() {
+            return rows.byteSize() > 0;
+        }
+    }
+
+    /**
+     * Writes the rows of a snapshot, called once and free to page through its repositories
+     */
+    @FunctionalInterface
+    public interface RowSource {
+        void writeTo(RowWriter writer) throws IOException;
+    }
+
+    /**
+     * Receives the rows of a mapped file in the order they were written
+     */
+    public interface RowVisitor {
+        default void theme(Theme theme) {
+        }
+
+        default void statement(Statement statement) {
+        }
+
+        default void category(CellCategory category) {
+        }
+
+        default void sample(CellSample sample) {
+        }
+
+        default void trackedVoting(TrackedVoting voting) {
+        }
+    }
+
+    /**
+     * Appends rows to the file as they come, nothing is collected in memory
+     */
+    public static final class RowWriter {
+        private final DataOutputStream out;
+
+        private RowWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        public void theme(Theme theme) throws IOException {
+            out.writeByte(THEME);
+            out.writeLong(theme.getXIndex());
+            out.writeBoolean(theme.isCategorical());
+            out.writeUTF(theme.getText());
+        }
+
+        public void statement(Statement statement) throws IOException {
+            out.writeByte(STATEMENT);
+            out.writeLong(statement.getYIndex());
+            out.writeBoolean(statement.isCategorical());
+            out.writeUTF(statement.getText());
+        }
+
+        public void category(CellCategory category) throws IOException {
+            out.writeByte(CATEGORY);
+            out.writeInt(category.getXIndex());
+            out.writeInt(category.getYIndex());
+            out.writeLong(category.getCategoryId());
+            out.writeUTF(category.getName());
+        }
+
+        public void sample(CellSample sample) throws IOException {
+            out.writeByte(SAMPLE);
+            out.writeInt(sample.getXIndex());
+            out.writeInt(sample.getYIndex());
+            out.writeBoolean(sample.isCategorical());
+            out.writeLong(sample.getSampleIndex());
+            out.writeLong(sample.getTimestamp().getEpochSecond());
+            out.writeUTF(sample.getAuthor());
+            out.writeLong(sample.getRawValue());
+        }
+
+        public void trackedVoting(TrackedVoting voting) throws IOException {
+            out.writeByte(TRACKED_VOTING);
+            out.writeLong(voting.getVotingId());
+            out.writeByte(voting.getKind().ordinal());
+            out.writeBoolean(voting.isCategorical());
+            out.writeLong(voting.getXIndex() == null ? -1 : voting.getXIndex());
+            out.writeLong(voting.getYIndex() == null ? -1 : voting.getYIndex());
+        }
+    }
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes next to the target and moves it over, a crash never leaves a half written snapshot behind.
+     * The organs of the cells and their parents are always written, further organs only when given
+     *
+     * @param rows null to write the matrices only
+     */
+    public static void write(Path path, MatrixSnapshot snapshot, Collection<Organ> organs, RowSource rows)
+            throws IOException {
+        Map<Long, Organ> written = new LinkedHashMap<>();
+        for (Organ organ : snapshot.organs().values()) {
+            withParents(organ, written);
+        }
+        for (Organ organ : organs) {
+            withParents(organ, written);
+        }
+        MemorySegment[] sections = {
+                snapshot.numericalIndex(),
+                snapshot.numericalValues(),
+                snapshot.categoricalIndex(),
+                snapshot.categoricalIds(),
+                MemorySegment.ofArray(encode(written.values()))
+        };
+        long[] lengths = new long[SECTIONS];
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            for (int i = 0; i < sections.length; i++) {
+                writeFully(channel, sections[i].asByteBuffer());
+                pad(channel, sections[i].byteSize());
+                lengths[i] = sections[i].byteSize();
+            }
+            if (rows != null) {
+                long start = channel.position();
+                // Not closed, closing the stream would close the channel before the header is written
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                rows.writeTo(new RowWriter(out));
+                out.writeByte(END);
+                out.flush();
+                lengths[SECTIONS - 1] = channel.position() - start;
+                pad(channel, lengths[SECTIONS - 1]);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            header.putLong(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(0);
+            header.putLong(snapshot.getBlock());
+            for (long length : lengths) {
+                header.putLong(length);
+            }
+            header.flip();
+            channel.position(0);
+            writeFully(channel, header);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps the file read-only into the arena, the matrix segments and the rows stay backed by the page cache
+     */
+    public static Contents map(Path path, Arena arena) throws IOException {
+        MemorySegment file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        }
+        if (file.byteSize() < HEADER_SIZE || file.get(JAVA_LONG, 0) != MAGIC) {
+            throw new IOException("Not a snapshot file: " + path);
+        }
+        int version = file.get(JAVA_INT, 8);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + path);
+        }
+        long block = file.get(JAVA_LONG, 16);
+
+        MemorySegment[] sections = new MemorySegment[SECTIONS];
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < SECTIONS; i++) {
+            long length = file.get(JAVA_LONG, 24 + i * 8L);
+            if (offset + length > file.byteSize()) {
+                throw new IOException("Truncated snapshot file: " + path);
+            }
+            sections[i] = file.asSlice(offset, length);
+            offset += padded(length);
+        }
+
+        List<Organ> organs = decodeOrgans(sections[4].toArray(JAVA_BYTE));
+        Map<Long, Organ> organsById = new HashMap<>();
+        organs.forEach(organ -> organsById.put(organ.getId(), organ));
+        MatrixSnapshot matrices = new MatrixSnapshot(block, Map.copyOf(organsById),
+                sections[0], sections[1], sections[2], sections[3]);
+        return new Contents(matrices, organs, sections[5]);
+    }
+
+    /**
+     * Decodes the rows one at a time straight from the mapped file
+     */
+    public static void readRows(Contents contents, RowVisitor visitor) throws IOException {
+        if (!contents.hasRows()) {
+            throw new IOException("Snapshot file has no rows");
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new SegmentInputStream(contents.rows())))) {
+            for (int tag = in.readByte(); tag != END; tag = in.readByte()) {
+                switch (tag) {
+                    case THEME -> {
+                        Theme theme = new Theme();
+                        theme.setXIndex(in.readLong());
+                        theme.setCategorical(in.readBoolean());
+                        theme.setText(in.readUTF());
+                        visitor.theme(theme);
+                    }
+                    case STATEMENT -> {
+                        Statement statement = new Statement();
+                        statement.setYIndex(in.readLong());
+                        statement.setCategorical(in.readBoolean());
+                        statement.setText(in.readUTF());
+                        visitor.statement(statement);
+                    }
+                    case CATEGORY -> {
+                        CellCategory category = new CellCategory();
+                        category.setXIndex(in.readInt());
+                        category.setYIndex(in.readInt());
+                        category.setCategoryId(in.readLong());
+                        category.setName(in.readUTF());
+                        visitor.category(category);
+                    }
+                    case SAMPLE -> {
+                        CellSample sample = new CellSample();
+                        sample.setXIndex(in.readInt());
+                        sample.setYIndex(in.readInt());
+                        sample.setCategorical(in.readBoolean());
+                        sample.setSampleIndex(in.readLong());
+                        sample.setTimestamp(Instant.ofEpochSecond(in.readLong()));
+                        sample.setAuthor(in.readUTF());
+                        sample.setRawValue(in.readLong());
+                        visitor.sample(sample);
+                    }
+                    case TRACKED_VOTING -> {
+                        TrackedVoting voting = new TrackedVoting();
+                        voting.setVotingId(in.readLong());
+                        voting.setKind(TrackedVoting.Kind.values()[in.readByte()]);
+                        voting.setCategorical(in.readBoolean());
+                        long x = in.readLong();
+                        voting.setXIndex(x < 0 ? null : x);
+                        long y = in.readLong();
+                        voting.setYIndex(y < 0 ? null : y);
+                        visitor.trackedVoting(voting);
+                    }
+                    default -> throw new IOException("Unknown row tag " + tag + " in snapshot file");
+                }
+            }
+        }
+    }
+
+    private static byte[] encode(Collection<Organ> organs) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(organs.size());
+            // Parents were added before their children, restoring them in file order never references a missing organ
+            for (Organ organ : organs) {
+                out.writeLong(organ.getId());
+                out.write(organ.getHash());
+                out.writeUTF(organ.getName());
+                out.writeByte(organ.getType() == null ? -1 : organ.getType().ordinal());
+                out.writeUTF(organ.getRegionCode() == null ? "" : organ.getRegionCode());
+                out.writeInt(organ.getNumber() == null ? -1 : organ.getNumber());
+                out.writeBoolean(organ.getParent() != null);
+                if (organ.getParent() != null) {
+                    out.writeLong(organ.getParent().getId());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Organ> decodeOrgans(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            List<Organ> organs = new ArrayList<>();
+            Map<Long, Organ> organsById = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                Organ organ = new Organ();
+                organ.setId(in.readLong());
+                byte[] hash = new byte[HASH_SIZE];
+                in.readFully(hash);
+                organ.setHash(hash);
+                organ.setName(in.readUTF());
+                byte type = in.readByte();
+                organ.setType(type < 0 ? null : PartyOrganType.values()[type]);
+                String regionCode = in.readUTF();
+                organ.setRegionCode(regionCode.isEmpty() ? null : regionCode);
+                int number = in.readInt();
+                organ.setNumber(number < 0 ? null : number);
+                if (in.readBoolean()) {
+                    organ.setParent(organsById.get(in.readLong()));
+                }
+                organs.add(organ);
+                organsById.put(organ.getId(), organ);
+            }
+            return organs;
+        }
+    }
+
+    private static void withParents(Organ organ, Map<Long, Organ> written) {
+        if (organ == null || written.containsKey(organ.getId())) return;
+        withParents(organ.getParent(), written);
+        written.put(organ.getId(), organ);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void pad(FileChannel channel, long length) throws IOException {
+        writeFully(channel, ByteBuffer.allocate((int) (padded(length) - length)));
+    }
+
+    private static long padded(long length) {
+        return (length + 7) & ~7L;
+    }
+
+    /**
+     * Reads a segment of any size, a ByteBuffer view would be limited to 2 GB
+     */
+    private static final class SegmentInputStream extends InputStream {
+        private final MemorySegment segment;
+        private long position;
+
+        private SegmentInputStream(MemorySegment segment) {
+            this.segment = segment;
+        }
+
+        @Override
+        public int read() {
+            return position < segment.byteSize() ? segment.get(JAVA_BYTE, position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) return 0;
+            long remaining = segment.byteSize() - position;
+            if (remaining <= 0) return -1;
+            int count = (int) Math.min(length, remaining);
+            MemorySegment.copy(segment, JAVA_BYTE, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package de.fhdo.zarya.api.rpc;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Raw JSON-RPC response bodies. The result or error is cut out of the upstream body as is with a streaming parser,
+ * no object tree is built for it, and is put back together with the id of each caller
+ */
+public final class JsonRpcBodies {
+    private static final byte[] PREFIX = "{\"jsonrpc\":\"2.0\",\"id\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESULT = ",\"result\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR = ",\"error\":".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Raw JSON of the result or of the error member, the other one is null
+     */
+    public record Member(byte[] result, byte[] error) {
+        public boolean isResult() {
+            return result != null && error == null;
+        }
+    }
+
+    private JsonRpcBodies() {
+    }
+
+    /**
+     * The result and error members of a single response, empty for batches and anything that is not JSON-RPC
+     */
+    public static Member scan(JsonFactory factory, byte[] body) throws IOException {
+        byte[] result = null;
+        byte[] error = null;
+        try (JsonParser parser = factory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return new Member(null, null);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                long start = parser.currentTokenLocation().getByteOffset();
+                if (value == JsonToken.VALUE_STRING) {
+                    // Strings are read lazily, the end of the token is only known once it is finished
+                    parser.finishToken();
+                } else {
+                    parser.skipChildren();
+                }
+                long end = parser.currentLocation().getByteOffset();
+                if (name.equals("result")) {
+                    result = Arrays.copyOfRange(body, (int) start, (int) end);
+                } else if (name.equals("error")) {
+                    error = Arrays.copyOfRange(body, (int) start, (int) end);
+                }
+            }
+        }
+        return new Member(result, error);
+    }
+
+    /**
+     * Response to the request with the raw JSON id
+     */
+    public static byte[] response(byte[] id, Member member) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                PREFIX.length + id.length + RESULT.length + Math.max(length(member.result()), length(member.error())) + 1);
+        out.writeBytes(PREFIX);
+        out.writeBytes(id);
+        if (member.isResult()) {
+            out.writeBytes(RESULT);
+            out.writeBytes(member.result());
+        } else {
+            out.writeBytes(ERROR);
+            out.writeBytes(member.error());
+        }
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+}
@@ -0,0 +1,120 @@
+package de.fhdo.zarya.api.rpc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * How long the result of a proxied JSON-RPC request stays valid, decided from the method and its block parameter.
+ * Results at or below the finalized block never change, results at the head change with every block
+ * and pending state or writes are never cached
+ */
+public final class RpcCachePolicy {
+
+    public enum Scope {
+        // Valid until evicted
+        IMMUTABLE,
+        // Valid while the head stays at the block it was read at
+        BLOCK,
+        // Forwarded as is, neither cached nor coalesced
+        NONE
+    }
+
+    // Chain constants
+    private static final Set<String> CONSTANT = Set.of("eth_chainId", "net_version");
+    // Looked up by hash, immutable once mined and finalized, the block of the result decides
+    private static final Set<String> BY_HASH = Set.of(
+            "eth_getTransactionReceipt", "eth_getTransactionByHash", "eth_getBlockByHash",
+            "eth_getTransactionByBlockHashAndIndex", "eth_getBlockTransactionCountByHash");
+    // Block tag as the last parameter
+    private static final Set<String> AT_BLOCK = Set.of(
+            "eth_call", "eth_getBalance", "eth_getCode", "eth_getStorageAt", "eth_getTransactionCount");
+    // Block tag as the first parameter
+    private static final Set<String> OF_BLOCK = Set.of(
+            "eth_getBlockByNumber", "eth_getTransactionByBlockNumberAndIndex",
+            "eth_getBlockTransactionCountByNumber");
+    // Only change with the head
+    private static final Set<String> HEAD = Set.of(
+            "eth_blockNumber", "eth_gasPrice", "eth_maxPriorityFeePerGas", "eth_feeHistory", "eth_blobBaseFee");
+
+    private RpcCachePolicy() {
+    }
+
+    /**
+     * Whether the method may be cached at all, only those need the head to be scoped
+     */
+    public static boolean isCacheable(String method) {
+        return method != null && (CONSTANT.contains(method) || BY_HASH.contains(method) || AT_BLOCK.contains(method)
+                || OF_BLOCK.contains(method) || HEAD.contains(method) || method.equals("eth_getLogs"));
+    }
+
+    public static boolean isLookupByHash(String method) {
+        return BY_HASH.contains(method);
+    }
+
+    /**
+     * Scope of the request before it is sent, by-hash lookups are refined by {@link #scopeOfResult}
+     */
+    public static Scope scopeOf(String method, List<?> params, long finalizedBlock) {
+        if (method == null) return Scope.NONE;
+        if (CONSTANT.contains(method)) return Scope.IMMUTABLE;
+        if (HEAD.contains(method) || BY_HASH.contains(method)) return Scope.BLOCK;
+        if (AT_BLOCK.contains(method)) {
+            Object tag = params == null || params.size() < 2 ? "latest" : params.getLast();
+            return scopeOfTag(tag, finalizedBlock);
+        }
+        if (OF_BLOCK.contains(method)) {
+            return params == null || params.isEmpty() ? Scope.NONE : scopeOfTag(params.getFirst(), finalizedBlock);
+        }
+        if (method.equals("eth_getLogs")) {
+            if (params == null || params.isEmpty() || !(params.getFirst() instanceof Map<?, ?> filter)) {
+                return Scope.NONE;
+            }
+            if (filter.containsKey("blockHash")) return Scope.BLOCK;
+            return scopeOfTag(filter.containsKey("toBlock") ? filter.get("toBlock") : "latest", finalizedBlock);
+        }
+        return Scope.NONE;
+    }
+
+    /**
+     * By-hash lookups are immutable when the object they found is in a finalized block.
+     * Missing objects, e.g. receipts of pending transactions, stay scoped to the block
+     */
+    public static Scope scopeOfResult(String method, Scope scope, Object result, long finalizedBlock) {
+        if (scope != Scope.BLOCK || !BY_HASH.contains(method)) return scope;
+        if (!(result instanceof Map<?, ?> found) || !(found.get("blockNumber") instanceof String block)) {
+            return Scope.BLOCK;
+        }
+        long number = parseQuantity(block);
+        return number >= 0 && number <= finalizedBlock ? Scope.IMMUTABLE : Scope.BLOCK;
+    }
+
+    private static Scope scopeOfTag(Object tag, long finalizedBlock) {
+        if (!(tag instanceof String name)) {
+            // EIP-1898 block objects, by hash or number
+            return Scope.BLOCK;
+        }
+        return switch (name) {
+            case "pending" -> Scope.NONE;
+            case "earliest" -> Scope.IMMUTABLE;
+            case "latest", "safe", "finalized" -> Scope.BLOCK;
+            default -> {
+                long number = parseQuantity(name);
+                if (number < 0) yield Scope.NONE;
+                yield number <= finalizedBlock ? Scope.IMMUTABLE : Scope.BLOCK;
+            }
+        };
+    }
+
+    /**
+     * Hex quantity as sent in JSON-RPC, -1 where it is not one
+     */
+    public static long parseQuantity(String quantity) {
+        if (!quantity.startsWith("0x") || quantity.length() < 3 || quantity.length() > 18) return -1;
+        try {
+            return Long.parseLong(quantity.substring(2), 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
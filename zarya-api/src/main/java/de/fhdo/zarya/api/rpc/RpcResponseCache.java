@@ -0,0 +1,152 @@
+package de.fhdo.zarya.api.rpc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Results of proxied requests by method and canonical parameters, with the identical requests in flight coalesced.
+ * Both scopes are bounded by the bytes they hold: immutable results are evicted least recently used first,
+ * block-scoped results are dropped as soon as the head moves on and are not stored while their budget is spent.
+ * Single results above the entry limit are never stored
+ *
+ * @param <V> the cached response
+ */
+public final class RpcResponseCache<V> {
+
+    public enum Outcome {
+        HIT, COALESCED, MISS
+    }
+
+    public record Lookup<V>(V value, Outcome outcome) {
+    }
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final ToLongFunction<V> weigher;
+    // Access ordered, the eldest entry is the least recently used one
+    private final LinkedHashMap<String, V> immutable = new LinkedHashMap<>(16, 0.75f, true);
+    private long immutableBytes;
+    private final Map<String, V> atBlock = new ConcurrentHashMap<>();
+    private long atBlockBytes;
+    private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private volatile long block = -1;
+
+    /**
+     * @param maxBytes      bytes held by each scope, keys included
+     * @param maxEntryBytes bytes of the largest result that is stored
+     * @param weigher       bytes held by a result
+     */
+    public RpcResponseCache(long maxBytes, long maxEntryBytes, ToLongFunction<V> weigher) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Moves the cache to the head block, block-scoped results of earlier blocks are dropped
+     */
+    public void advanceTo(long head) {
+        synchronized (atBlock) {
+            if (head > block) {
+                block = head;
+                atBlock.clear();
+                atBlockBytes = 0;
+            }
+        }
+    }
+
+    public long block() {
+        return block;
+    }
+
+    /**
+     * The cached value, or the one loaded by the first of the identical concurrent callers.
+     * The loader decides whether its value is stored, a failed load is passed to all waiting callers.
+     * A loader may return null for a result that is not shared, the waiting callers then get null as well
+     */
+    public Lookup<V> get(String key, Supplier<V> loader) {
+        V cached = cached(key);
+        if (cached != null) return new Lookup<>(cached, Outcome.HIT);
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            return new Lookup<>(running.join(), Outcome.COALESCED);
+        }
+        try {
+            V value = loader.get();
+            load.complete(value);
+            return new Lookup<>(value, Outcome.MISS);
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Whether a result of that many bytes may be stored at all, larger ones need not be buffered for the cache
+     */
+    public boolean fits(long bytes) {
+        return bytes <= maxEntryBytes;
+    }
+
+    public void put(String key, V value, RpcCachePolicy.Scope scope, long readAtBlock) {
+        long bytes = weigher.applyAsLong(value);
+        if (!fits(bytes)) return;
+        bytes += 2L * key.length();
+        switch (scope) {
+            case IMMUTABLE -> {
+                synchronized (immutable) {
+                    V replaced = immutable.put(key, value);
+                    if (replaced != null) immutableBytes -= weigher.applyAsLong(replaced) + 2L * key.length();
+                    immutableBytes += bytes;
+                    Iterator<Map.Entry<String, V>> eldest = immutable.entrySet().iterator();
+                    while (immutableBytes > maxBytes && eldest.hasNext()) {
+                        Map.Entry<String, V> entry = eldest.next();
+                        immutableBytes -= weigher.applyAsLong(entry.getValue()) + 2L * entry.getKey().length();
+                        eldest.remove();
+                    }
+                }
+            }
+            // A result of an older head than the current one is already stale
+            case BLOCK -> {
+                synchronized (atBlock) {
+                    if (readAtBlock != block || atBlockBytes + bytes > maxBytes) return;
+                    V replaced = atBlock.put(key, value);
+                    if (replaced != null) atBlockBytes -= weigher.applyAsLong(replaced) + 2L * key.length();
+                    atBlockBytes += bytes;
+                }
+            }
+            case NONE -> {
+            }
+        }
+    }
+
+    /**
+     * Bytes held by the immutable and by the block-scoped results
+     */
+    public long bytes() {
+        long bytes;
+        synchronized (immutable) {
+            bytes = immutableBytes;
+        }
+        synchronized (atBlock) {
+            return bytes + atBlockBytes;
+        }
+    }
+
+    private V cached(String key) {
+        V value;
+        synchronized (immutable) {
+            value = immutable.get(key);
+        }
+        return value != null ? value : atBlock.get(key);
+    }
+}
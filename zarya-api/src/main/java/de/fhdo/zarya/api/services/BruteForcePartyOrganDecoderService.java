@@ -1,27 +1,28 @@
 package de.fhdo.zarya.api.services;
 
 import de.fhdo.zarya.api.interfaces.services.IPartyOrganDecoderService;
+import de.fhdo.zarya.api.organs.OrganDictionary;
+import de.fhdo.zarya.api.organs.PartyOrganIdentity;
+import de.fhdo.zarya.api.organs.PartyOrganType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 @Slf4j
 @Service
 public class BruteForcePartyOrganDecoderService implements IPartyOrganDecoderService {
-    
-    private final Map<String, String> HASH_TO_IDENTIFIER = new HashMap<>();
-
-    // Postfixes from PartyOrgans.sol
-    private static final String CONGRESS_POSTFIX = "СЗД";
-    private static final String SOVIET_POSTFIX = "СОВ";
-    private static final String CHAIRPERSON_POSTFIX = "ПРЛ";
-    private static final String GENERAL_ASSEMBLY_POSTFIX = "ОБС";
-    private static final String CONFERENCE_POSTFIX = "КОН";
-    
+
     // All region codes from Regions.sol
     private static final String[] REGION_CODES = {
         "00", "01", "02", "03", "04", "05", "06", "07", "08", "09",
@@ -36,69 +37,141 @@ public class BruteForcePartyOrganDecoderService implements IPartyOrganDecoderSer
         "92", "93", "94", "95", "96", "97", "98", "99"
     };
 
-    @Value("${zarya.scan.organs.size}")
-    private int scanOrganSize;
+    // Federal organs have no region, their identifier is only the postfix
+    private static final PartyOrganType[] FEDERAL_TYPES = {
+        PartyOrganType.CHAIRPERSON, PartyOrganType.CENTRAL_SOVIET, PartyOrganType.CONGRESS
+    };
+    private static final PartyOrganType[] REGIONAL_TYPES = {
+        PartyOrganType.REGIONAL_SOVIET, PartyOrganType.REGIONAL_CONFERENCE, PartyOrganType.REGIONAL_GENERAL_ASSEMBLY
+    };
+    private static final PartyOrganType[] LOCAL_TYPES = {
+        PartyOrganType.LOCAL_SOVIET, PartyOrganType.LOCAL_GENERAL_ASSEMBLY
+    };
 
-    public BruteForcePartyOrganDecoderService() {
-        buildReverseLookup();
+    // An organ is packed into the dictionary as type (3 bits), region index (7 bits) and local number (20 bits)
+    private static final int TYPE_SHIFT = 27;
+    private static final int REGION_SHIFT = 20;
+    private static final int NUMBER_MASK = (1 << REGION_SHIFT) - 1;
+
+    private final int scanOrganSize;
+    private final Path dictionaryPath;
+    // Changes with the region list and the organ range, a dictionary file built for other ones is regenerated
+    private final long fingerprint;
+    private final CompletableFuture<OrganDictionary> reverseLookup;
+
+    public BruteForcePartyOrganDecoderService(@Value("${zarya.scan.organs.size}") int scanOrganSize,
+                                              @Value("${zarya.organs.dictionary.path:organ-dictionary.bin}") String dictionaryPath) {
+        if (scanOrganSize < 0 || scanOrganSize > NUMBER_MASK + 1) {
+            throw new IllegalArgumentException("zarya.scan.organs.size must be within 0.." + (NUMBER_MASK + 1));
+        }
+        this.scanOrganSize = scanOrganSize;
+        this.dictionaryPath = Path.of(dictionaryPath);
+        this.fingerprint = fingerprint(scanOrganSize);
+
+        Optional<OrganDictionary> mapped = Optional.empty();
+        try {
+            mapped = OrganDictionary.map(this.dictionaryPath, fingerprint, Arena.ofAuto());
+        } catch (IOException e) {
+            log.warn("Could not map organ dictionary {}: {}", dictionaryPath, e.getMessage());
+        }
+        if (mapped.isPresent()) {
+            log.info("Mapped organ dictionary {} with {} party organs", dictionaryPath, mapped.get().size());
+            this.reverseLookup = CompletableFuture.completedFuture(mapped.get());
+        } else {
+            // Hashed in the background, only the first decode has to wait for it
+            this.reverseLookup = CompletableFuture.supplyAsync(this::buildReverseLookup);
+        }
     }
 
-    private void buildReverseLookup() {
-        // Federal-level organs (no region)
-        addOrgan("0.0" + CHAIRPERSON_POSTFIX);
-        addOrgan("0.0" + SOVIET_POSTFIX);
-        addOrgan("0.0" + CONGRESS_POSTFIX);
-        
-        // Regional organs
-        for (String region : REGION_CODES) {
-            // RegionalSoviet: REGION.СОВ
-            addOrgan(region + "." + SOVIET_POSTFIX);
-            
-            // RegionalConference: REGION.КОН
-            addOrgan(region + "." + CONFERENCE_POSTFIX);
-            
-            // RegionalGeneralAssembly: REGION.ОБС
-            addOrgan(region + "." + GENERAL_ASSEMBLY_POSTFIX);
-            
-            // Local organs with numbers (0-999 should cover most cases)
-            for (int num = 0; num < scanOrganSize; num++) {
-                // LocalSoviet: REGION.NUMBER.СОВ
-                addOrgan(region + "." + num + "." + SOVIET_POSTFIX);
-                
-                // LocalGeneralAssembly: REGION.NUMBER.ОБС
-                addOrgan(region + "." + num + "." + GENERAL_ASSEMBLY_POSTFIX);
-            }
+    /**
+     * Hashes every identifier in the configured range across the cores and persists the sorted dictionary.
+     * Where the file cannot be written the dictionary stays in memory until the next start
+     */
+    private OrganDictionary buildReverseLookup() {
+        long started = System.currentTimeMillis();
+        int organCount = FEDERAL_TYPES.length + REGION_CODES.length * organsPerRegion();
+        byte[][] keys = new byte[organCount][];
+        int[] codes = new int[organCount];
+        String[] identifiers = new String[organCount];
+        IntStream.range(0, organCount).parallel().forEach(i -> {
+            codes[i] = code(i);
+            identifiers[i] = identity(codes[i]).identifier();
+            keys[i] = keccak256(identifiers[i]);
+        });
+
+        MemorySegment image = OrganDictionary.build(fingerprint, keys, codes, identifiers, Arena.ofAuto());
+        log.info("Built organ dictionary of {} party organs in {} ms", organCount, System.currentTimeMillis() - started);
+        try {
+            OrganDictionary.write(dictionaryPath, image);
+            return OrganDictionary.map(dictionaryPath, fingerprint, Arena.ofAuto()).orElseThrow(
+                    () -> new IOException("Written organ dictionary does not match"));
+        } catch (IOException e) {
+            log.warn("Could not persist organ dictionary {}, keeping it in memory", dictionaryPath, e);
+            return OrganDictionary.of(image);
         }
     }
-    
-    private void addOrgan(String identifier) {
-        String hash = computeKeccak256(identifier);
-        HASH_TO_IDENTIFIER.put(hash, identifier);
+
+    private static long fingerprint(int scanOrganSize) {
+        byte[] digest = Hash.sha3((String.join(",", REGION_CODES) + "|" + scanOrganSize)
+                .getBytes(StandardCharsets.UTF_8));
+        long fingerprint = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            fingerprint = (fingerprint << 8) | (digest[i] & 0xFF);
+        }
+        return fingerprint;
     }
-    
-    private String computeKeccak256(String input) {
-        byte[] hash = Hash.sha3(input.getBytes());
-        return bytesToHex(hash);
+
+    private int organsPerRegion() {
+        return REGIONAL_TYPES.length + LOCAL_TYPES.length * scanOrganSize;
     }
-    
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder result = new StringBuilder();
-        for (byte b : bytes) {
-            result.append(String.format("%02x", b));
+
+    /**
+     * Packed organ of the i-th identifier: the federal organs, then per region its regional and local organs
+     */
+    private int code(int i) {
+        if (i < FEDERAL_TYPES.length) {
+            return FEDERAL_TYPES[i].ordinal() << TYPE_SHIFT;
         }
-        return result.toString();
+        int inRegions = i - FEDERAL_TYPES.length;
+        int region = inRegions / organsPerRegion();
+        int inRegion = inRegions % organsPerRegion();
+        if (inRegion < REGIONAL_TYPES.length) {
+            return REGIONAL_TYPES[inRegion].ordinal() << TYPE_SHIFT | region << REGION_SHIFT;
+        }
+        int local = inRegion - REGIONAL_TYPES.length;
+        PartyOrganType type = LOCAL_TYPES[local % LOCAL_TYPES.length];
+        return type.ordinal() << TYPE_SHIFT | region << REGION_SHIFT | local / LOCAL_TYPES.length;
+    }
+
+    private PartyOrganIdentity identity(int code) {
+        PartyOrganType type = PartyOrganType.values()[code >>> TYPE_SHIFT];
+        String region = REGION_CODES[(code >>> REGION_SHIFT) & ((1 << (TYPE_SHIFT - REGION_SHIFT)) - 1)];
+        return new PartyOrganIdentity(type, region, code & NUMBER_MASK);
+    }
+
+    private byte[] keccak256(String input) {
+        return Hash.sha3(input.getBytes(StandardCharsets.UTF_8));
     }
-    
+
+    @Override
     public String decodeOrganHash(byte[] organHashBytes) {
-        String hash = bytesToHex(organHashBytes);
-        return HASH_TO_IDENTIFIER.getOrDefault(hash, "Unknown Organ (0x" + hash + ")");
+        OrganDictionary dictionary = reverseLookup.join();
+        int position = dictionary.find(organHashBytes);
+        if (position != OrganDictionary.NOT_FOUND) {
+            return dictionary.identifier(position);
+        }
+        return "Unknown Organ (0x" + Numeric.toHexStringNoPrefix(organHashBytes) + ")";
+    }
+
+    @Override
+    public Optional<PartyOrganIdentity> decode(byte[] organHashBytes) {
+        OrganDictionary dictionary = reverseLookup.join();
+        int position = dictionary.find(organHashBytes);
+        if (position == OrganDictionary.NOT_FOUND) return Optional.empty();
+        return Optional.of(identity(dictionary.organ(position)));
     }
-    
+
     public String decodeOrganHash(String organHash) {
-        // Remove 0x prefix if present
-        if (organHash.startsWith("0x")) {
-            organHash = organHash.substring(2);
-        }
-        return HASH_TO_IDENTIFIER.getOrDefault(organHash.toLowerCase(), "Unknown Organ (0x" + organHash + ")");
+        return decodeOrganHash(Numeric.hexStringToByteArray(organHash));
     }
 }
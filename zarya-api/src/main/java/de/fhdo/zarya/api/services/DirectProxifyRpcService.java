@@ -1,61 +1,297 @@
 package de.fhdo.zarya.api.services;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import de.fhdo.zarya.api.interfaces.services.IProxifyRpcService;
+import de.fhdo.zarya.api.rpc.JsonRpcBodies;
+import de.fhdo.zarya.api.rpc.RpcCachePolicy;
+import de.fhdo.zarya.api.rpc.RpcResponseCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.*;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Forwards the frontend's JSON-RPC requests to the provider over the pooled RPC client. Reads are answered from
+ * a cache scoped by {@link RpcCachePolicy} and identical reads in flight share one upstream call, the head block
+ * is polled at most once per ethereum.rpc.proxy.cache.head-ttl-ms for all of them.
+ * Reads larger than ethereum.rpc.proxy.cache.max-entry-bytes and everything else, batches included,
+ * are streamed through without parsing the response
+ */
 @Slf4j
 @Service
 public class DirectProxifyRpcService implements IProxifyRpcService {
+    private static final MediaType JSON = MediaType.get("application/json");
+    private static final byte[] HEAD_REQUEST =
+            "{\"jsonrpc\":\"2.0\",\"id\":0,\"method\":\"eth_blockNumber\",\"params\":[]}".getBytes(StandardCharsets.US_ASCII);
 
-    @Value("${ethereum.rpc.url:http://localhost:8545}")
-    private String ethereumRpcUrl;
+    private final String ethereumRpcUrl;
+    private final long headTtlMs;
+    private final long finalityDepth;
+    private final long maxEntryBytes;
 
-    private final RestTemplate restTemplate;
+    private final OkHttpClient rpcHttpClient;
+    private final ObjectMapper objectMapper;
+    // Canonical parameters, the same filter with its keys in another order is the same request
+    private final ObjectMapper keyMapper;
+    private final RpcResponseCache<JsonRpcBodies.Member> cache;
+    private final Object headLock = new Object();
+    private volatile long headReadAt;
 
-    public DirectProxifyRpcService() {
-        this.restTemplate = new RestTemplate();
+    private final MeterRegistry meterRegistry;
+    private final Timer latency;
+
+    public DirectProxifyRpcService(@Value("${ethereum.rpc.url:http://localhost:8545}") String ethereumRpcUrl,
+                                   @Value("${ethereum.rpc.proxy.cache.max-bytes:67108864}") long maxBytes,
+                                   @Value("${ethereum.rpc.proxy.cache.max-entry-bytes:1048576}") long maxEntryBytes,
+                                   @Value("${ethereum.rpc.proxy.cache.head-ttl-ms:2000}") long headTtlMs,
+                                   @Value("${ethereum.rpc.proxy.cache.finality-depth:64}") long finalityDepth,
+                                   OkHttpClient rpcHttpClient,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry) {
+        this.ethereumRpcUrl = ethereumRpcUrl;
+        this.headTtlMs = headTtlMs;
+        this.finalityDepth = finalityDepth;
+        this.maxEntryBytes = maxEntryBytes;
+        this.rpcHttpClient = rpcHttpClient;
+        this.objectMapper = objectMapper;
+        this.keyMapper = objectMapper.copy().enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.cache = new RpcResponseCache<>(maxBytes, maxEntryBytes,
+                member -> length(member.result()) + length(member.error()));
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("zarya.rpc.proxy.cache.bytes", cache, RpcResponseCache::bytes)
+                .description("Bytes held by the RPC response cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.latency = Timer.builder("zarya.rpc.proxy.latency")
+                .description("Latency of proxied RPC requests as seen by the frontend")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
     }
 
     @Override
-    public ResponseEntity<Map<String, Object>> proxyRpcCall(Map<String, Object> rpcRequest) {
+    public void proxyRpcCall(byte[] rpcRequest, HttpServletResponse response) throws IOException {
+        long started = System.nanoTime();
         try {
-            log.debug("Proxying RPC call to Ethereum client: {}", rpcRequest);
+            if (log.isDebugEnabled()) {
+                log.debug("Proxying RPC call to Ethereum client: {}", new String(rpcRequest, StandardCharsets.UTF_8));
+            }
+            cachedOrStreamed(rpcRequest, response);
+        } catch (Exception e) {
+            log.error("Error proxying RPC call to Ethereum client", e);
+            // Once streaming has begun the status is sent, the truncated body is all the client gets
+            if (response.isCommitted()) return;
+            response.reset();
+            write(response, HttpStatus.BAD_GATEWAY.value(), objectMapper.writeValueAsBytes(Map.of(
+                    "error", Map.of(
+                            "code", -32603,
+                            "message", "Internal error: " + e.getMessage()
+                    )
+            )));
+        } finally {
+            latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+    private void cachedOrStreamed(byte[] rpcRequest, HttpServletResponse response) throws IOException {
+        // Only the request is parsed to pick the method, batches are not cached
+        Map<String, Object> request = isObject(rpcRequest)
+                ? objectMapper.readValue(rpcRequest, new TypeReference<>() {
+                })
+                : Map.of();
+        String method = request.get("method") instanceof String name ? name : null;
+        if (!RpcCachePolicy.isCacheable(method)) {
+            count("bypass");
+            stream(rpcRequest, response);
+            return;
+        }
 
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(rpcRequest, headers);
+        byte[] id = objectMapper.writeValueAsBytes(request.get("id"));
+        long head = head();
+        if (method.equals("eth_blockNumber")) {
+            count("hit");
+            byte[] result = objectMapper.writeValueAsBytes("0x" + Long.toHexString(head));
+            write(response, HttpStatus.OK.value(), JsonRpcBodies.response(id, new JsonRpcBodies.Member(result, null)));
+            return;
+        }
 
-            var response = restTemplate.exchange(
-                    ethereumRpcUrl,
-                    HttpMethod.POST,
-                    entity,
-                    Map.class
-            );
+        List<?> params = request.get("params") instanceof List<?> list ? list : List.of();
+        long finalized = head - finalityDepth;
+        RpcCachePolicy.Scope scope = RpcCachePolicy.scopeOf(method, params, finalized);
+        if (scope == RpcCachePolicy.Scope.NONE) {
+            count("bypass");
+            stream(rpcRequest, response);
+            return;
+        }
 
-            log.debug("Received response from Ethereum client: {}", response.getBody());
+        String parameters = keyMapper.writeValueAsString(params);
+        // Block-scoped keys carry the head, a result read at an older block is never served for a newer one
+        String key = scope == RpcCachePolicy.Scope.IMMUTABLE
+                ? method + parameters
+                : method + parameters + "@" + head;
+        RpcResponseCache.Lookup<JsonRpcBodies.Member> lookup = cache.get(key, () -> {
+            try {
+                byte[] body = fetchOrStream(rpcRequest, response);
+                // Too large to be cached, it already went to this caller
+                if (body == null) return null;
+                JsonRpcBodies.Member member = JsonRpcBodies.scan(objectMapper.getFactory(), body);
+                // Provider errors, e.g. rate limits, are passed on but never stored
+                if (member.isResult()) {
+                    cache.put(key, member, scopeOfResult(method, scope, member, finalized), head);
+                } else if (member.error() == null) {
+                    throw new IOException("Invalid JSON-RPC response to " + method);
+                }
+                return member;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        if (lookup.value() == null) {
+            if (lookup.outcome() == RpcResponseCache.Outcome.MISS) {
+                count("oversized");
+            } else {
+                // The caller that loaded it streamed the response to itself, the others stream their own
+                count("bypass");
+                stream(rpcRequest, response);
+            }
+            return;
+        }
+        count(lookup.outcome().name().toLowerCase());
+        write(response, HttpStatus.OK.value(), JsonRpcBodies.response(id, lookup.value()));
+    }
 
-            //noinspection unchecked
-            return ResponseEntity
-                    .status(response.getStatusCode())
-                    .body((Map<String, Object>) response.getBody());
+    // Only lookups by hash depend on their result, those are small enough to parse
+    private RpcCachePolicy.Scope scopeOfResult(String method, RpcCachePolicy.Scope scope, JsonRpcBodies.Member member,
+                                               long finalized) throws IOException {
+        if (!RpcCachePolicy.isLookupByHash(method)) return scope;
+        return RpcCachePolicy.scopeOfResult(method, scope, objectMapper.readValue(member.result(), Object.class),
+                finalized);
+    }
 
-        } catch (Exception e) {
-            log.error("Error proxying RPC call to Ethereum client", e);
-            return ResponseEntity
-                    .status(HttpStatus.BAD_GATEWAY)
-                    .body(Map.of(
-                            "error", Map.of(
-                                    "code", -32603,
-                                    "message", "Internal error: " + e.getMessage()
-                            )
-                    ));
+    /**
+     * Head block of the provider, refreshed by one caller at a time once it is older than the TTL
+     */
+    private long head() throws IOException {
+        if (cache.block() >= 0 && System.currentTimeMillis() - headReadAt < headTtlMs) {
+            return cache.block();
+        }
+        synchronized (headLock) {
+            if (cache.block() < 0 || System.currentTimeMillis() - headReadAt >= headTtlMs) {
+                JsonRpcBodies.Member member = JsonRpcBodies.scan(objectMapper.getFactory(), fetch(HEAD_REQUEST));
+                long head = member.isResult()
+                        ? RpcCachePolicy.parseQuantity(objectMapper.readValue(member.result(), String.class))
+                        : -1;
+                if (head < 0) {
+                    throw new IOException("Invalid eth_blockNumber response");
+                }
+                cache.advanceTo(head);
+                headReadAt = System.currentTimeMillis();
+            }
+            return cache.block();
+        }
+    }
+
+    /**
+     * Copies the upstream status and body to the client as they arrive, the body is never held in memory
+     */
+    private void stream(byte[] rpcRequest, HttpServletResponse response) throws IOException {
+        try (Response upstream = rpcHttpClient.newCall(post(rpcRequest)).execute()) {
+            ResponseBody body = upstream.body();
+            response.setStatus(upstream.code());
+            response.setContentType(JSON.toString());
+            if (body.contentLength() >= 0) {
+                response.setContentLengthLong(body.contentLength());
+            }
+            try (InputStream in = body.byteStream()) {
+                in.transferTo(response.getOutputStream());
+            }
         }
     }
+
+    /**
+     * The upstream body if it is small enough to be cached, otherwise it is streamed to the client like an uncached
+     * call and null is returned. At most one entry's worth of the body is buffered
+     */
+    private byte[] fetchOrStream(byte[] rpcRequest, HttpServletResponse response) throws IOException {
+        try (Response upstream = rpcHttpClient.newCall(post(rpcRequest)).execute()) {
+            if (!upstream.isSuccessful()) {
+                throw new IOException("Ethereum client responded with HTTP " + upstream.code());
+            }
+            ResponseBody body = upstream.body();
+            try (InputStream in = body.byteStream()) {
+                byte[] buffered = cache.fits(body.contentLength())
+                        ? in.readNBytes((int) Math.min(maxEntryBytes + 1, Integer.MAX_VALUE - 8))
+                        : new byte[0];
+                if (buffered.length <= maxEntryBytes && cache.fits(body.contentLength())) {
+                    return buffered;
+                }
+                // Chunked bodies show their size only while they are read, what was read goes first
+                response.setStatus(upstream.code());
+                response.setContentType(JSON.toString());
+                if (body.contentLength() >= 0) {
+                    response.setContentLengthLong(body.contentLength());
+                }
+                response.getOutputStream().write(buffered);
+                in.transferTo(response.getOutputStream());
+                return null;
+            }
+        }
+    }
+
+    private byte[] fetch(byte[] rpcRequest) throws IOException {
+        try (Response upstream = rpcHttpClient.newCall(post(rpcRequest)).execute()) {
+            if (!upstream.isSuccessful()) {
+                throw new IOException("Ethereum client responded with HTTP " + upstream.code());
+            }
+            return upstream.body().bytes();
+        }
+    }
+
+    private Request post(byte[] rpcRequest) {
+        return new Request.Builder()
+                .url(ethereumRpcUrl)
+                .post(RequestBody.create(rpcRequest, JSON))
+                .build();
+    }
+
+    private void write(HttpServletResponse response, int status, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(JSON.toString());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean isObject(byte[] body) {
+        for (byte b : body) {
+            if (!Character.isWhitespace(b)) return b == '{';
+        }
+        return false;
+    }
+
+    private static long length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private void count(String outcome) {
+        Counter.builder("zarya.rpc.proxy.requests")
+                .description("Proxied RPC requests by how they were answered")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
 }
@@ -0,0 +1,75 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.NumericalCellRepository;
+import de.fhdo.zarya.api.interfaces.services.IMatrixAggregationService;
+import de.fhdo.zarya.api.interfaces.services.IMatrixReadModelService;
+import de.fhdo.zarya.api.persistance.dto.MatrixSummary;
+import de.fhdo.zarya.api.persistance.models.NumericalCell;
+import de.fhdo.zarya.api.readmodel.MatrixSnapshot;
+import de.fhdo.zarya.api.statistics.MatrixAggregation;
+import de.fhdo.zarya.api.statistics.RunningStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+
+@Service
+public class ForkJoinMatrixAggregationService implements IMatrixAggregationService {
+    private final NumericalCellRepository numericalCellRepository;
+    private final IMatrixReadModelService matrixReadModelService;
+    private final MatrixAggregation aggregation;
+
+    public ForkJoinMatrixAggregationService(NumericalCellRepository numericalCellRepository,
+                                            IMatrixReadModelService matrixReadModelService,
+                                            @Value("${zarya.statistics.aggregation.cells-per-task:32}") int cellsPerTask) {
+        this.numericalCellRepository = numericalCellRepository;
+        this.matrixReadModelService = matrixReadModelService;
+        this.aggregation = new MatrixAggregation(ForkJoinPool.commonPool(), cellsPerTask);
+    }
+
+    @Override
+    public MatrixSummary summarizeNumerical() {
+        MatrixSnapshot snapshot = matrixReadModelService.current();
+        List<MatrixAggregation.CellSummary> cells;
+        Map<Long, String> organNames = new HashMap<>();
+        if (snapshot != null) {
+            // The snapshot carries the statistics of every cell, they are merged instead of reducing the samples
+            cells = snapshot.numericalSummaries();
+            snapshot.organs().forEach((id, organ) -> organNames.put(id, organ.getName()));
+        } else {
+            cells = new ArrayList<>();
+            for (NumericalCell cell : numericalCellRepository.findAll()) {
+                Long organId = cell.getOrgan() == null ? null : cell.getOrgan().getId();
+                if (organId != null) {
+                    organNames.put(organId, cell.getOrgan().getName());
+                }
+                cells.add(MatrixAggregation.CellSummary.of(cell.getXIndex(), cell.getYIndex(), organId,
+                        cell.getValue() == null ? new double[0] : cell.getValue()));
+            }
+        }
+
+        MatrixAggregation.Result result = aggregation.aggregate(cells);
+        return new MatrixSummary(
+                result.getOverall(),
+                groups(result.getByCell(), (key, statistics) -> new MatrixSummary.GroupSummary(
+                        (int) (key >> 32), (int) (long) key, null, null, statistics)),
+                groups(result.getByTheme(), (x, statistics) -> new MatrixSummary.GroupSummary(
+                        x, null, null, null, statistics)),
+                groups(result.getByStatement(), (y, statistics) -> new MatrixSummary.GroupSummary(
+                        null, y, null, null, statistics)),
+                groups(result.getByOrgan(), (organId, statistics) -> new MatrixSummary.GroupSummary(
+                        null, null, organId, organNames.get(organId), statistics))
+        );
+    }
+
+    private <K extends Comparable<K>> List<MatrixSummary.GroupSummary> groups(
+            Map<K, RunningStatistics> groups,
+            BiFunction<K, RunningStatistics, MatrixSummary.GroupSummary> summary) {
+        return groups.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> summary.apply(e.getKey(), e.getValue()))
+                .toList();
+    }
+}
@@ -0,0 +1,114 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.forecasting.CategoricalDrift;
+import de.fhdo.zarya.api.forecasting.HoltSmoothing;
+import de.fhdo.zarya.api.interfaces.repositories.CellForecastStateRepository;
+import de.fhdo.zarya.api.interfaces.services.IForecastService;
+import de.fhdo.zarya.api.persistance.dto.Forecast;
+import de.fhdo.zarya.api.persistance.models.CellForecastState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Forecasts from model state kept per cell: EWMA and Holt's linear trend for numerical cells, decayed
+ * frequencies and vote to vote transitions for categorical ones
+ */
+@Service
+public class IncrementalForecastService implements IForecastService {
+    private final CellForecastStateRepository cellForecastStateRepository;
+
+    @Value("${zarya.forecast.alpha:0.3}")
+    private double alpha;
+
+    @Value("${zarya.forecast.beta:0.1}")
+    private double beta;
+
+    @Value("${zarya.forecast.decay:0.05}")
+    private double decay;
+
+    public IncrementalForecastService(CellForecastStateRepository cellForecastStateRepository) {
+        this.cellForecastStateRepository = cellForecastStateRepository;
+    }
+
+    @Override
+    public void appendNumerical(int x, int y, double[] values, boolean restart) {
+        CellForecastState state = load(x, y, false, restart);
+        HoltSmoothing smoothing = toSmoothing(state);
+        smoothing.addAll(values);
+
+        state.setCount(smoothing.getCount());
+        state.setEwma(smoothing.getEwma());
+        state.setHoltLevel(smoothing.getLevel());
+        state.setHoltTrend(smoothing.getTrend());
+        cellForecastStateRepository.save(state);
+    }
+
+    @Override
+    public void appendCategorical(int x, int y, long[] categoryIds, boolean restart) {
+        CellForecastState state = load(x, y, true, restart);
+        CategoricalDrift drift = toDrift(state);
+        drift.addAll(categoryIds);
+
+        state.setCount(drift.getCount());
+        state.setCategoryId(drift.getCategoryIds());
+        state.setDecayedFrequency(drift.getFrequencies());
+        state.setTransition(drift.getTransitions());
+        state.setLastCategoryId(drift.getLastCategoryId());
+        cellForecastStateRepository.save(state);
+    }
+
+    @Override
+    public Forecast forecast(int x, int y, boolean isCategorical, int horizon) {
+        CellForecastState state = cellForecastStateRepository
+                .findById(new CellForecastState.CellForecastStateId(x, y, isCategorical))
+                .orElseThrow(() -> new RuntimeException("Forecast not found"));
+
+        Forecast forecast = new Forecast();
+        forecast.setXIndex(x);
+        forecast.setYIndex(y);
+        forecast.setCategorical(isCategorical);
+        forecast.setSamples(state.getCount());
+        forecast.setHorizon(horizon);
+        if (isCategorical) {
+            CategoricalDrift drift = toDrift(state);
+            forecast.setCategoryId(drift.getCategoryIds());
+            forecast.setRecentShare(drift.shares());
+            forecast.setNextProbability(drift.next());
+        } else {
+            HoltSmoothing smoothing = toSmoothing(state);
+            forecast.setEwma(smoothing.getEwma());
+            forecast.setTrend(smoothing.getTrend());
+            forecast.setPredicted(smoothing.forecast(horizon));
+        }
+        return forecast;
+    }
+
+    @Override
+    public void delete(int x, int y, boolean isCategorical) {
+        cellForecastStateRepository.deleteById(new CellForecastState.CellForecastStateId(x, y, isCategorical));
+    }
+
+    private CellForecastState load(int x, int y, boolean isCategorical, boolean restart) {
+        CellForecastState state = restart ? null : cellForecastStateRepository
+                .findById(new CellForecastState.CellForecastStateId(x, y, isCategorical)).orElse(null);
+        if (state == null) {
+            state = new CellForecastState();
+            state.setXIndex(x);
+            state.setYIndex(y);
+            state.setCategorical(isCategorical);
+        }
+        return state;
+    }
+
+    private HoltSmoothing toSmoothing(CellForecastState state) {
+        return new HoltSmoothing(alpha, beta, state.getCount(), state.getEwma(), state.getHoltLevel(), state.getHoltTrend());
+    }
+
+    private CategoricalDrift toDrift(CellForecastState state) {
+        if (state.getCategoryId() == null) {
+            return new CategoricalDrift(decay);
+        }
+        return new CategoricalDrift(decay, state.getCount(), state.getCategoryId(), state.getDecayedFrequency(),
+                state.getTransition(), state.getLastCategoryId());
+    }
+}
@@ -0,0 +1,277 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.*;
+import de.fhdo.zarya.api.interfaces.services.ICellStatisticsService;
+import de.fhdo.zarya.api.interfaces.services.IForecastService;
+import de.fhdo.zarya.api.interfaces.services.IMatrixReadModelService;
+import de.fhdo.zarya.api.interfaces.services.ISnapshotFileService;
+import de.fhdo.zarya.api.persistance.models.*;
+import de.fhdo.zarya.api.readmodel.MatrixSnapshot;
+import de.fhdo.zarya.api.readmodel.SnapshotFile;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Keeps the last synchronized matrices in a memory-mapped file, so a restart serves data right away.
+ * A second file adds the rows to seed a freshly created schema with, restored in one transaction, so only the
+ * blocks after it are synced. The sample history makes it grow with the chain, it is written at a bounded cadence
+ */
+@Slf4j
+@Service
+public class MappedSnapshotFileService implements ISnapshotFileService {
+    // Rows saved between flushes of the restore, the persistence context is cleared after each flush
+    private static final int RESTORE_BATCH_SIZE = 1000;
+
+    private final OrganRepository organRepository;
+    private final ThemeRepository themeRepository;
+    private final StatementRepository statementRepository;
+    private final NumericalCellRepository numericalCellRepository;
+    private final CategoricalCellRepository categoricalCellRepository;
+    private final CellCategoryRepository cellCategoryRepository;
+    private final PopulatedCellRepository populatedCellRepository;
+    private final SyncStateRepository syncStateRepository;
+    private final CellSampleRepository cellSampleRepository;
+    private final TrackedVotingRepository trackedVotingRepository;
+    private final ICellStatisticsService cellStatisticsService;
+    private final IForecastService forecastService;
+    private final IMatrixReadModelService matrixReadModelService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${zarya.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zarya.snapshot.path:zarya-snapshot.bin}")
+    private String path;
+
+    @Value("${zarya.snapshot.rows-path:zarya-snapshot-rows.bin}")
+    private String rowsPath;
+
+    @Value("${zarya.snapshot.rows-interval-ms:3600000}")
+    private long rowsIntervalMs;
+
+    // Mapped at startup and dropped once restored, the read model keeps its own reference to the matrices
+    private volatile SnapshotFile.Contents mapped;
+    private volatile long rowsWrittenAt;
+
+    public MappedSnapshotFileService(OrganRepository organRepository,
+                                     ThemeRepository themeRepository,
+                                     StatementRepository statementRepository,
+                                     NumericalCellRepository numericalCellRepository,
+                                     CategoricalCellRepository categoricalCellRepository,
+                                     CellCategoryRepository cellCategoryRepository,
+                                     PopulatedCellRepository populatedCellRepository,
+                                     SyncStateRepository syncStateRepository,
+                                     CellSampleRepository cellSampleRepository,
+                                     TrackedVotingRepository trackedVotingRepository,
+                                     ICellStatisticsService cellStatisticsService,
+                                     IForecastService forecastService,
+                                     IMatrixReadModelService matrixReadModelService,
+                                     TransactionTemplate transactionTemplate,
+                                     EntityManager entityManager) {
+        this.organRepository = organRepository;
+        this.themeRepository = themeRepository;
+        this.statementRepository = statementRepository;
+        this.numericalCellRepository = numericalCellRepository;
+        this.categoricalCellRepository = categoricalCellRepository;
+        this.cellCategoryRepository = cellCategoryRepository;
+        this.populatedCellRepository = populatedCellRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.cellSampleRepository = cellSampleRepository;
+        this.trackedVotingRepository = trackedVotingRepository;
+        this.cellStatisticsService = cellStatisticsService;
+        this.forecastService = forecastService;
+        this.matrixReadModelService = matrixReadModelService;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @PostConstruct
+    public void map() {
+        if (!enabled) return;
+        // An automatic arena unmaps a file once the read model moved on to a newer snapshot
+        SnapshotFile.Contents matrices = map(Path.of(path));
+        mapped = map(Path.of(rowsPath));
+        if (mapped != null && !mapped.hasRows()) {
+            mapped = null;
+        }
+        // The matrices file is written by every run, the rows file may be older
+        SnapshotFile.Contents newest = matrices == null || (mapped != null
+                && mapped.matrices().getBlock() > matrices.matrices().getBlock()) ? mapped : matrices;
+        if (newest != null) {
+            matrixReadModelService.install(newest.matrices());
+            log.info("Serving the matrices of the snapshot file at block {}", newest.matrices().getBlock());
+        }
+    }
+
+    private SnapshotFile.Contents map(Path file) {
+        if (!Files.exists(file)) return null;
+        try {
+            SnapshotFile.Contents contents = SnapshotFile.map(file, Arena.ofAuto());
+            log.info("Mapped snapshot file {} at block {}", file, contents.matrices().getBlock());
+            return contents;
+        } catch (IOException e) {
+            log.warn("Ignoring snapshot file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void save(MatrixSnapshot snapshot, boolean withRows) {
+        if (!enabled || snapshot == null) return;
+        long started = System.currentTimeMillis();
+        try {
+            SnapshotFile.write(Path.of(path), snapshot, List.of(), null);
+            log.info("Wrote snapshot file {} at block {} in {} ms", path, snapshot.getBlock(),
+                    System.currentTimeMillis() - started);
+        } catch (IOException e) {
+            log.warn("Could not write snapshot file {}", path, e);
+        }
+        if (!withRows && System.currentTimeMillis() - rowsWrittenAt < rowsIntervalMs) return;
+
+        started = System.currentTimeMillis();
+        try {
+            SnapshotFile.write(Path.of(rowsPath), snapshot, organRepository.findAllBy(), this::writeRows);
+            rowsWrittenAt = started;
+            log.info("Wrote snapshot file {} with its rows at block {} in {} ms", rowsPath, snapshot.getBlock(),
+                    System.currentTimeMillis() - started);
+        } catch (IOException e) {
+            log.warn("Could not write snapshot file {}", rowsPath, e);
+        }
+    }
+
+    // Samples are read one cell at a time, only one cell's history is ever held in memory
+    private void writeRows(SnapshotFile.RowWriter rows) throws IOException {
+        for (Theme theme : themeRepository.findAll()) {
+            rows.theme(theme);
+        }
+        for (Statement statement : statementRepository.findAll()) {
+            rows.statement(statement);
+        }
+        for (CellCategory category : cellCategoryRepository.findAll()) {
+            rows.category(category);
+        }
+        for (TrackedVoting voting : trackedVotingRepository.findAll()) {
+            rows.trackedVoting(voting);
+        }
+        for (PopulatedCell cell : populatedCellRepository.findAll()) {
+            for (CellSample sample : cellSampleRepository.findCell(cell.getXIndex(), cell.getYIndex(),
+                    cell.isCategorical())) {
+                rows.sample(sample);
+            }
+        }
+    }
+
+    @Override
+    public synchronized OptionalLong restore() {
+        SnapshotFile.Contents contents = mapped;
+        if (contents == null || syncStateRepository.existsById(SyncState.SINGLETON_ID)) {
+            return OptionalLong.empty();
+        }
+
+        long started = System.currentTimeMillis();
+        MatrixSnapshot matrices = contents.matrices();
+        long block = matrices.getBlock();
+        // All or nothing, a failed restore leaves the schema empty and the next run retries it from scratch
+        transactionTemplate.executeWithoutResult(status -> {
+            organRepository.saveAll(contents.organs());
+            try {
+                SnapshotFile.readRows(contents, new RestoredRows());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            int saved = 0;
+            for (NumericalCell cell : matrices.numericalCells(0, matrices.numericalCount())) {
+                numericalCellRepository.save(cell);
+                markPopulated(cell.getXIndex(), cell.getYIndex(), false, block);
+                cellStatisticsService.appendNumerical(cell.getXIndex(), cell.getYIndex(), cell.getValue(), true);
+                forecastService.appendNumerical(cell.getXIndex(), cell.getYIndex(), cell.getValue(), true);
+                if (++saved % RESTORE_BATCH_SIZE == 0) flush();
+            }
+            for (CategoricalCell cell : matrices.categoricalCells(0, matrices.categoricalCount())) {
+                categoricalCellRepository.save(cell);
+                markPopulated(cell.getXIndex(), cell.getYIndex(), true, block);
+                cellStatisticsService.appendCategorical(cell.getXIndex(), cell.getYIndex(), cell.getCategoryId(), true);
+                forecastService.appendCategorical(cell.getXIndex(), cell.getYIndex(), cell.getCategoryId(), true);
+                if (++saved % RESTORE_BATCH_SIZE == 0) flush();
+            }
+
+            SyncState state = new SyncState();
+            state.setLastProcessedBlock(block);
+            syncStateRepository.save(state);
+        });
+        mapped = null;
+        log.info("Restored {} numerical and {} categorical cells at block {} from the snapshot file in {} ms",
+                matrices.numericalCount(), matrices.categoricalCount(), block, System.currentTimeMillis() - started);
+        return OptionalLong.of(block);
+    }
+
+    /**
+     * Saves the decoded rows in batches inside the restore's transaction
+     */
+    private class RestoredRows implements SnapshotFile.RowVisitor {
+        private int saved;
+
+        @Override
+        public void theme(Theme theme) {
+            themeRepository.save(theme);
+            saved();
+        }
+
+        @Override
+        public void statement(Statement statement) {
+            statementRepository.save(statement);
+            saved();
+        }
+
+        @Override
+        public void category(CellCategory category) {
+            cellCategoryRepository.save(category);
+            saved();
+        }
+
+        @Override
+        public void sample(CellSample sample) {
+            cellSampleRepository.save(sample);
+            saved();
+        }
+
+        @Override
+        public void trackedVoting(TrackedVoting voting) {
+            trackedVotingRepository.save(voting);
+            saved();
+        }
+
+        private void saved() {
+            if (++saved % RESTORE_BATCH_SIZE == 0) flush();
+        }
+    }
+
+    // Sends the pending inserts and forgets them, a restore of the whole history never piles up in memory
+    private void flush() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void markPopulated(int x, int y, boolean isCategorical, long block) {
+        PopulatedCell cell = new PopulatedCell();
+        cell.setXIndex(x);
+        cell.setYIndex(y);
+        cell.setCategorical(isCategorical);
+        cell.setDiscoveredAtBlock(block);
+        populatedCellRepository.save(cell);
+    }
+}
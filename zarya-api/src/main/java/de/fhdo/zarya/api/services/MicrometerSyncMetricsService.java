@@ -0,0 +1,167 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.services.ISyncMetricsService;
+import de.fhdo.zarya.api.persistance.dto.SyncStatus;
+import de.fhdo.zarya.api.persistance.models.SyncRun;
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the synchronization and RPC metrics to Micrometer and keeps the latest values for the status page.
+ * Runs never overlap, the scheduler has a single thread, only RPC completions arrive from other threads
+ */
+@Service
+public class MicrometerSyncMetricsService implements ISyncMetricsService {
+    private static final String RPC_LATENCY = "zarya.rpc.latency";
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong lastSuccessfulBlock = new AtomicLong(-1);
+    private final AtomicLong lastSuccessfulEpochSeconds = new AtomicLong();
+    private final AtomicLong lagBlocks = new AtomicLong();
+    private final AtomicLong runEthCalls = new AtomicLong();
+    private final AtomicLong runCellsUpdated = new AtomicLong();
+    private final Counter ethCalls;
+
+    private final SyncStatus status = new SyncStatus();
+    private Map<String, Long> runStageDurations = new LinkedHashMap<>();
+    private long runStartedNanos;
+
+    public MicrometerSyncMetricsService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.ethCalls = Counter.builder("zarya.rpc.eth-calls")
+                .description("eth_call requests sent to the provider")
+                .register(meterRegistry);
+        Gauge.builder("zarya.sync.last.block", lastSuccessfulBlock, AtomicLong::get)
+                .description("Snapshot block of the last successful synchronization run")
+                .register(meterRegistry);
+        Gauge.builder("zarya.sync.last.success", lastSuccessfulEpochSeconds, AtomicLong::get)
+                .description("End of the last successful synchronization run")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("zarya.sync.lag", lagBlocks, AtomicLong::get)
+                .description("Blocks the latest run had to catch up")
+                .baseUnit("blocks")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void runStarted(SyncRun.Kind kind, long fromBlock, long snapshotBlock) {
+        runStartedNanos = System.nanoTime();
+        runEthCalls.set(0);
+        runCellsUpdated.set(0);
+        runStageDurations = new LinkedHashMap<>();
+        lagBlocks.set(Math.max(0, snapshotBlock - fromBlock + 1));
+        status.setRunningKind(kind.name());
+        status.setRunningSince(Instant.now());
+        status.setLagBlocks(lagBlocks.get());
+    }
+
+    @Override
+    public void stage(String name, Stage stage) throws Exception {
+        long started = System.nanoTime();
+        try {
+            stage.run();
+        } finally {
+            long nanos = System.nanoTime() - started;
+            Timer.builder("zarya.sync.stage")
+                    .description("Duration of one stage of a synchronization run")
+                    .tag("stage", name)
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            synchronized (this) {
+                runStageDurations.merge(name, TimeUnit.NANOSECONDS.toMillis(nanos), Long::sum);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void runFinished(SyncRun.Kind kind, long snapshotBlock, Exception error) {
+        long nanos = System.nanoTime() - runStartedNanos;
+        String outcome = error == null ? "success" : "failure";
+        Timer.builder("zarya.sync.run")
+                .description("Duration of a whole synchronization run")
+                .tags("kind", kind.name(), "outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("zarya.sync.run.eth-calls")
+                .description("eth_call requests sent during one synchronization run")
+                .tag("kind", kind.name())
+                .register(meterRegistry)
+                .record(runEthCalls.get());
+        DistributionSummary.builder("zarya.sync.run.cells-updated")
+                .description("Cells written during one synchronization run")
+                .tag("kind", kind.name())
+                .register(meterRegistry)
+                .record(runCellsUpdated.get());
+
+        status.setRunningKind(null);
+        status.setRunningSince(null);
+        status.setLastKind(kind.name());
+        status.setLastOutcome(outcome);
+        status.setLastDurationMs(TimeUnit.NANOSECONDS.toMillis(nanos));
+        status.setLastEthCalls(runEthCalls.get());
+        status.setLastCellsUpdated(runCellsUpdated.get());
+        status.setLastStageDurationsMs(runStageDurations);
+
+        if (error == null) {
+            Instant now = Instant.now();
+            lastSuccessfulBlock.set(snapshotBlock);
+            lastSuccessfulEpochSeconds.set(now.getEpochSecond());
+            status.setLastSuccessfulBlock(snapshotBlock);
+            status.setLastSuccessfulAt(now);
+        } else {
+            Counter.builder("zarya.sync.errors")
+                    .description("Failed synchronization runs")
+                    .tag("kind", kind.name())
+                    .register(meterRegistry)
+                    .increment();
+            status.setErrors(status.getErrors() + 1);
+            status.setLastError(error.getClass().getSimpleName() + ": " + error.getMessage());
+            status.setLastErrorAt(Instant.now());
+        }
+    }
+
+    @Override
+    public void cellUpdated(boolean isCategorical) {
+        runCellsUpdated.incrementAndGet();
+        Counter.builder("zarya.sync.cells.updated")
+                .description("Cells written by the synchronization")
+                .tag("type", isCategorical ? "categorical" : "numerical")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @Override
+    public void rpcCall(String function, long nanos) {
+        runEthCalls.incrementAndGet();
+        ethCalls.increment();
+        Timer.builder(RPC_LATENCY)
+                .description("Latency of eth_calls per contract function")
+                .tag("function", function)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized SyncStatus status() {
+        return status.toBuilder()
+                .rpcLatency(meterRegistry.find(RPC_LATENCY).timers().stream()
+                        .map(timer -> new SyncStatus.FunctionLatency(
+                                timer.getId().getTag("function"),
+                                timer.count(),
+                                timer.mean(TimeUnit.MILLISECONDS),
+                                timer.max(TimeUnit.MILLISECONDS)))
+                        .sorted(Comparator.comparing(SyncStatus.FunctionLatency::getFunction))
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.CategoricalCellRepository;
+import de.fhdo.zarya.api.interfaces.repositories.NumericalCellRepository;
+import de.fhdo.zarya.api.interfaces.services.IMatrixReadModelService;
+import de.fhdo.zarya.api.readmodel.MatrixSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.foreign.Arena;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+public class OffHeapMatrixReadModelService implements IMatrixReadModelService {
+    private final NumericalCellRepository numericalCellRepository;
+    private final CategoricalCellRepository categoricalCellRepository;
+    private final AtomicReference<MatrixSnapshot> snapshot = new AtomicReference<>();
+
+    public OffHeapMatrixReadModelService(NumericalCellRepository numericalCellRepository,
+                                         CategoricalCellRepository categoricalCellRepository) {
+        this.numericalCellRepository = numericalCellRepository;
+        this.categoricalCellRepository = categoricalCellRepository;
+    }
+
+    @Override
+    public MatrixSnapshot current() {
+        return snapshot.get();
+    }
+
+    @Override
+    public void install(MatrixSnapshot next) {
+        snapshot.set(next);
+    }
+
+    @Override
+    public synchronized void refresh(long block) {
+        long started = System.currentTimeMillis();
+        // An automatic arena frees the segments once the replaced snapshot is unreachable,
+        // so a request still reading it never finds them closed
+        MatrixSnapshot next = MatrixSnapshot.build(block,
+                numericalCellRepository.findAllWithOrgan(),
+                categoricalCellRepository.findAllWithOrgan(),
+                Arena.ofAuto());
+        snapshot.set(next);
+        log.info("Matrix snapshot at block {} with {} numerical and {} categorical cells built in {} ms",
+                block, next.numericalCount(), next.categoricalCount(), System.currentTimeMillis() - started);
+    }
+}
@@ -2,9 +2,16 @@ package de.fhdo.zarya.api.services;
 
 import de.fhdo.zarya.api.interfaces.repositories.CategoricalCellRepository;
 import de.fhdo.zarya.api.interfaces.repositories.NumericalCellRepository;
+import de.fhdo.zarya.api.interfaces.services.ICategoryDictionaryService;
+import de.fhdo.zarya.api.interfaces.services.ICellStatisticsService;
 import de.fhdo.zarya.api.interfaces.services.IGeneralReportService;
+import de.fhdo.zarya.api.interfaces.services.IMatrixAggregationService;
+import de.fhdo.zarya.api.persistance.dto.MatrixSummary;
 import de.fhdo.zarya.api.persistance.models.CategoricalCell;
+import de.fhdo.zarya.api.persistance.models.CellStatistics;
 import de.fhdo.zarya.api.persistance.models.NumericalCell;
+import de.fhdo.zarya.api.statistics.MatrixAggregation;
+import de.fhdo.zarya.api.statistics.RunningStatistics;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -31,6 +38,9 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
 
     private final CategoricalCellRepository categoricalCellRepository;
     private final NumericalCellRepository numericalCellRepository;
+    private final ICategoryDictionaryService categoryDictionaryService;
+    private final ICellStatisticsService cellStatisticsService;
+    private final IMatrixAggregationService matrixAggregationService;
 
     public void generateReportDirectlyToServletOutputStream(HttpServletResponse response) throws IOException {
         response.setContentType("application/pdf");
@@ -62,20 +72,23 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
             document.add(Chunk.NEWLINE);
             document.add(Chunk.NEWLINE);
             
+            // Everything is read once in bulk, both languages show the same data
+            ReportData data = loadReportData();
+            
             // Categorical Matrix Section - English
-            addCategoricalMatrixSection(document, false);
+            addCategoricalMatrixSection(document, data, false);
             document.newPage();
             
             // Categorical Matrix Section - Russian
-            addCategoricalMatrixSection(document, true);
+            addCategoricalMatrixSection(document, data, true);
             document.newPage();
             
             // Numerical Matrix Section - English
-            addNumericalMatrixSection(document, false);
+            addNumericalMatrixSection(document, data, false);
             document.newPage();
             
             // Numerical Matrix Section - Russian
-            addNumericalMatrixSection(document, true);
+            addNumericalMatrixSection(document, data, true);
             
             document.close();
         } catch (DocumentException e) {
@@ -87,15 +100,36 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
         }
     }
     
-    private void addCategoricalMatrixSection(Document document, boolean isRussian) throws DocumentException {
+    private ReportData loadReportData() {
+        List<CategoricalCell> categoricalCells = new ArrayList<>();
+        categoricalCellRepository.findAll().forEach(categoricalCells::add);
+        List<NumericalCell> numericalCells = new ArrayList<>();
+        numericalCellRepository.findAll().forEach(numericalCells::add);
+        return new ReportData(
+                categoricalCells,
+                numericalCells,
+                statisticsByCell(cellStatisticsService.findAll(true)),
+                statisticsByCell(cellStatisticsService.findAll(false)),
+                categoryDictionaryService.namesOfAll(),
+                matrixAggregationService.summarizeNumerical(),
+                // Merged t-digest sketches of all cells
+                cellStatisticsService.percentiles(null, new double[]{0.1, 0.5, 0.9}));
+    }
+    
+    private Map<Long, CellStatistics> statisticsByCell(List<CellStatistics> statistics) {
+        Map<Long, CellStatistics> byCell = new HashMap<>();
+        statistics.forEach(st -> byCell.put(MatrixAggregation.Result.cellKey(st.getXIndex(), st.getYIndex()), st));
+        return byCell;
+    }
+    
+    private void addCategoricalMatrixSection(Document document, ReportData data, boolean isRussian) throws DocumentException {
         Font sectionFont = new Font(Font.UNDEFINED, 14, Font.BOLD);
         String title = isRussian ? "Категориальная Матрица" : "Categorical Matrix";
         Paragraph sectionTitle = new Paragraph(title, sectionFont);
         document.add(sectionTitle);
         document.add(Chunk.NEWLINE);
         
-        List<CategoricalCell> cells = new ArrayList<>();
-        categoricalCellRepository.findAll().forEach(cells::add);
+        List<CategoricalCell> cells = data.categoricalCells();
         
         if (cells.isEmpty()) {
             String noData = isRussian ? "Нет категориальных данных." : "No categorical data available.";
@@ -115,37 +149,43 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
         addTableHeader(table, isRussian ? "Частотное Распределение" : "Frequency Distribution");
         
         // Data rows
+        Set<String> uniqueCategories = new TreeSet<>();
         for (CategoricalCell cell : cells) {
             table.addCell(String.valueOf(cell.getXIndex()));
             table.addCell(String.valueOf(cell.getYIndex()));
+            long cellKey = MatrixAggregation.Result.cellKey(cell.getXIndex(), cell.getYIndex());
+            Map<Long, String> names = data.categoryNames().getOrDefault(cellKey, Map.of());
             
             // Categories
-            String categories = cell.getCategory() != null 
-                ? String.join(", ", cell.getCategory()) 
+            String categories = cell.getCategoryId() != null 
+                ? Arrays.stream(cell.getCategoryId())
+                    .mapToObj(id -> names.getOrDefault(id, Long.toUnsignedString(id)))
+                    .collect(Collectors.joining(", "))
                 : "N/A";
             table.addCell(categories);
             
-            // Histogram statistics
-            String histogram = calculateCategoricalHistogram(cell);
-            table.addCell(histogram);
+            // Histogram statistics, counted during synchronization
+            Optional<CellStatistics> statistics = Optional.ofNullable(data.categoricalStatistics().get(cellKey));
+            table.addCell(statistics.map(st -> formatCategoricalHistogram(st, names)).orElse("No data"));
+            statistics.filter(st -> st.getCategoryId() != null).ifPresent(st -> Arrays.stream(st.getCategoryId())
+                .forEach(id -> uniqueCategories.add(names.getOrDefault(id, Long.toUnsignedString(id)))));
         }
         
         document.add(table);
         
         // Overall statistics
         document.add(Chunk.NEWLINE);
-        addCategoricalStatistics(document, cells, isRussian);
+        addCategoricalStatistics(document, cells, uniqueCategories, isRussian);
     }
     
-    private void addNumericalMatrixSection(Document document, boolean isRussian) throws DocumentException {
+    private void addNumericalMatrixSection(Document document, ReportData data, boolean isRussian) throws DocumentException {
         Font sectionFont = new Font(Font.UNDEFINED, 14, Font.BOLD);
         String title = isRussian ? "Числовая Матрица" : "Numerical Matrix";
         Paragraph sectionTitle = new Paragraph(title, sectionFont);
         document.add(sectionTitle);
         document.add(Chunk.NEWLINE);
         
-        List<NumericalCell> cells = new ArrayList<>();
-        numericalCellRepository.findAll().forEach(cells::add);
+        List<NumericalCell> cells = data.numericalCells();
         
         if (cells.isEmpty()) {
             String noData = isRussian ? "Нет числовых данных." : "No numerical data available.";
@@ -154,9 +194,9 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
         }
         
         // Create table
-        PdfPTable table = new PdfPTable(6);
+        PdfPTable table = new PdfPTable(7);
         table.setWidthPercentage(100);
-        table.setWidths(new float[]{1.5f, 1.5f, 2f, 2f, 2f, 2f});
+        table.setWidths(new float[]{1.5f, 1.5f, 2f, 2f, 2f, 2f, 2f});
         
         // Headers
         addTableHeader(table, isRussian ? "Индекс X" : "X Index");
@@ -164,6 +204,7 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
         addTableHeader(table, isRussian ? "Среднее" : "Average");
         addTableHeader(table, isRussian ? "Дисперсия" : "Variance");
         addTableHeader(table, isRussian ? "Станд. Откл." : "Std Dev");
+        addTableHeader(table, isRussian ? "Медиана" : "Median");
         addTableHeader(table, isRussian ? "Количество" : "Count");
         
         // Data rows
@@ -171,19 +212,20 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
             table.addCell(String.valueOf(cell.getXIndex()));
             table.addCell(String.valueOf(cell.getYIndex()));
             
-            if (cell.getValue() != null && !cell.getValue().isEmpty()) {
-                double avg = calculateAverage(cell.getValue());
-                double variance = calculateVariance(cell.getValue(), avg);
-                double stdDev = Math.sqrt(variance);
-                
-                table.addCell(String.format("%.2f", avg));
-                table.addCell(String.format("%.2f", variance));
-                table.addCell(String.format("%.2f", stdDev));
-                table.addCell(String.valueOf(cell.getValue().size()));
+            Optional<CellStatistics> statistics = Optional.ofNullable(data.numericalStatistics()
+                .get(MatrixAggregation.Result.cellKey(cell.getXIndex(), cell.getYIndex())));
+            if (statistics.isPresent() && statistics.get().getCount() > 0) {
+                CellStatistics st = statistics.get();
+                table.addCell(String.format("%.2f", st.getMean()));
+                table.addCell(String.format("%.2f", st.getVariance()));
+                table.addCell(String.format("%.2f", st.getStdDev()));
+                table.addCell(String.format("%.2f", cellStatisticsService.percentiles(st, new double[]{0.5})[0]));
+                table.addCell(String.valueOf(st.getCount()));
             } else {
                 table.addCell("N/A");
                 table.addCell("N/A");
                 table.addCell("N/A");
+                table.addCell("N/A");
                 table.addCell("0");
             }
         }
@@ -192,7 +234,7 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
         
         // Overall statistics
         document.add(Chunk.NEWLINE);
-        addNumericalStatistics(document, cells, isRussian);
+        addNumericalStatistics(document, data, isRussian);
     }
     
     private void addTableHeader(PdfPTable table, String headerText) {
@@ -205,35 +247,30 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
         table.addCell(header);
     }
     
-    private String calculateCategoricalHistogram(CategoricalCell cell) {
-        if (cell.getCategory() == null || cell.getCategory().isEmpty()) {
+    private String formatCategoricalHistogram(CellStatistics statistics, Map<Long, String> names) {
+        long[] categoryIds = statistics.getCategoryId();
+        if (categoryIds == null || categoryIds.length == 0) {
             return "No data";
         }
         
-        Map<String, Long> frequencyMap = cell.getCategory().stream()
-            .collect(Collectors.groupingBy(c -> c, Collectors.counting()));
-        
-        return frequencyMap.entrySet().stream()
-            .map(e -> e.getKey() + ": " + e.getValue())
-            .collect(Collectors.joining(", "));
+        StringJoiner histogram = new StringJoiner(", ");
+        for (int i = 0; i < categoryIds.length; i++) {
+            histogram.add(names.getOrDefault(categoryIds[i], Long.toUnsignedString(categoryIds[i])) + ": " + statistics.getCategoryCount()[i]);
+        }
+        return histogram.toString();
     }
     
-    private void addCategoricalStatistics(Document document, List<CategoricalCell> cells, boolean isRussian) throws DocumentException {
+    private void addCategoricalStatistics(Document document, List<CategoricalCell> cells, Set<String> uniqueCategories, boolean isRussian) throws DocumentException {
         Font statsFont = new Font(Font.UNDEFINED, 10, Font.BOLD);
         String statsTitle = isRussian ? "Общая Категориальная Статистика:" : "Overall Categorical Statistics:";
         document.add(new Paragraph(statsTitle, statsFont));
         
         int totalCells = cells.size();
         int totalCategories = cells.stream()
-            .filter(c -> c.getCategory() != null)
-            .mapToInt(c -> c.getCategory().size())
+            .filter(c -> c.getCategoryId() != null)
+            .mapToInt(c -> c.getCategoryId().length)
             .sum();
         
-        Set<String> uniqueCategories = cells.stream()
-            .filter(c -> c.getCategory() != null)
-            .flatMap(c -> c.getCategory().stream())
-            .collect(Collectors.toSet());
-        
         if (isRussian) {
             document.add(new Paragraph("Всего Ячеек: " + totalCells));
             document.add(new Paragraph("Всего Записей Категорий: " + totalCategories));
@@ -247,61 +284,60 @@ public class OpenPdfBasedGeneralReportService implements IGeneralReportService {
         }
     }
     
-    private void addNumericalStatistics(Document document, List<NumericalCell> cells, boolean isRussian) throws DocumentException {
+    private void addNumericalStatistics(Document document, ReportData data, boolean isRussian) throws DocumentException {
         Font statsFont = new Font(Font.UNDEFINED, 10, Font.BOLD);
         String statsTitle = isRussian ? "Общая Числовая Статистика:" : "Overall Numerical Statistics:";
         document.add(new Paragraph(statsTitle, statsFont));
         
-        int totalCells = cells.size();
-        List<Double> allValues = cells.stream()
-            .filter(c -> c.getValue() != null)
-            .flatMap(c -> c.getValue().stream())
-            .collect(Collectors.toList());
+        int totalCells = data.numericalCells().size();
+        MatrixSummary summary = data.summary();
+        RunningStatistics overall = summary.getOverall();
         
-        if (!allValues.isEmpty()) {
-            double overallAvg = calculateAverage(allValues);
-            double overallVariance = calculateVariance(allValues, overallAvg);
+        if (overall.getCount() > 0) {
+            double overallAvg = overall.getMean();
+            double overallVariance = overall.getVariance();
             double overallStdDev = Math.sqrt(overallVariance);
+            double[] percentiles = data.percentiles();
             
             if (isRussian) {
                 document.add(new Paragraph("Всего Ячеек: " + totalCells));
-                document.add(new Paragraph("Всего Значений: " + allValues.size()));
+                document.add(new Paragraph("Всего Значений: " + overall.getCount()));
                 document.add(new Paragraph(String.format("Общее Среднее: %.2f", overallAvg)));
                 document.add(new Paragraph(String.format("Общая Дисперсия: %.2f", overallVariance)));
                 document.add(new Paragraph(String.format("Общее Стандартное Отклонение: %.2f", overallStdDev)));
-                document.add(new Paragraph(String.format("Минимальное Значение: %.2f", Collections.min(allValues))));
-                document.add(new Paragraph(String.format("Максимальное Значение: %.2f", Collections.max(allValues))));
+                document.add(new Paragraph(String.format("Медиана: %.2f", percentiles[1])));
+                document.add(new Paragraph(String.format("10-й / 90-й Процентиль: %.2f / %.2f", percentiles[0], percentiles[2])));
+                document.add(new Paragraph(String.format("Минимальное Значение: %.2f", overall.getMin())));
+                document.add(new Paragraph(String.format("Максимальное Значение: %.2f", overall.getMax())));
             } else {
                 document.add(new Paragraph("Total Cells: " + totalCells));
-                document.add(new Paragraph("Total Values: " + allValues.size()));
+                document.add(new Paragraph("Total Values: " + overall.getCount()));
                 document.add(new Paragraph(String.format("Overall Average: %.2f", overallAvg)));
                 document.add(new Paragraph(String.format("Overall Variance: %.2f", overallVariance)));
                 document.add(new Paragraph(String.format("Overall Standard Deviation: %.2f", overallStdDev)));
-                document.add(new Paragraph(String.format("Min Value: %.2f", Collections.min(allValues))));
-                document.add(new Paragraph(String.format("Max Value: %.2f", Collections.max(allValues))));
+                document.add(new Paragraph(String.format("Median: %.2f", percentiles[1])));
+                document.add(new Paragraph(String.format("10th / 90th Percentile: %.2f / %.2f", percentiles[0], percentiles[2])));
+                document.add(new Paragraph(String.format("Min Value: %.2f", overall.getMin())));
+                document.add(new Paragraph(String.format("Max Value: %.2f", overall.getMax())));
+            }
+            
+            // Averages per organ from the same aggregation pass
+            for (MatrixSummary.GroupSummary organ : summary.getOrgans()) {
+                document.add(new Paragraph(String.format(isRussian ? "%s: Среднее %.2f (%d)" : "%s: Average %.2f (%d)",
+                    organ.getOrganName(), organ.getStatistics().getMean(), organ.getStatistics().getCount())));
             }
         } else {
             String noData = isRussian ? "Нет числовых данных." : "No numerical data available.";
             document.add(new Paragraph(noData));
         }
     }
-    
-    private double calculateAverage(List<Double> values) {
-        return values.stream()
-            .mapToDouble(Double::doubleValue)
-            .average()
-            .orElse(0.0);
-    }
-    
-    private double calculateVariance(List<Double> values, double mean) {
-        if (values.size() <= 1) {
-            return 0.0;
-        }
-        
-        double sumSquaredDiff = values.stream()
-            .mapToDouble(v -> Math.pow(v - mean, 2))
-            .sum();
-        
-        return sumSquaredDiff / values.size();
+
+    private record ReportData(List<CategoricalCell> categoricalCells,
+                              List<NumericalCell> numericalCells,
+                              Map<Long, CellStatistics> categoricalStatistics,
+                              Map<Long, CellStatistics> numericalStatistics,
+                              Map<Long, Map<Long, String>> categoryNames,
+                              MatrixSummary summary,
+                              double[] percentiles) {
     }
 }
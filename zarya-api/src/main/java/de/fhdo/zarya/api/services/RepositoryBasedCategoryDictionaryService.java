@@ -0,0 +1,73 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.CellCategoryRepository;
+import de.fhdo.zarya.api.interfaces.services.ICategoryDictionaryService;
+import de.fhdo.zarya.api.persistance.models.CellCategory;
+import de.fhdo.zarya.api.statistics.MatrixAggregation;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+@AllArgsConstructor
+public class RepositoryBasedCategoryDictionaryService implements ICategoryDictionaryService {
+    private final CellCategoryRepository cellCategoryRepository;
+
+    @Override
+    public Map<Long, String> namesOf(int x, int y) {
+        Map<Long, String> names = new HashMap<>();
+        cellCategoryRepository.findByXIndexAndYIndex(x, y).forEach(c -> names.put(c.getCategoryId(), c.getName()));
+        return names;
+    }
+
+    @Override
+    public Map<Long, Map<Long, String>> namesOfAll() {
+        Map<Long, Map<Long, String>> names = new HashMap<>();
+        for (CellCategory category : cellCategoryRepository.findAll()) {
+            names.computeIfAbsent(MatrixAggregation.Result.cellKey(category.getXIndex(), category.getYIndex()),
+                    key -> new HashMap<>()).put(category.getCategoryId(), category.getName());
+        }
+        return names;
+    }
+
+    @Override
+    public List<String> decode(int x, int y, long[] categoryIds) {
+        if (categoryIds == null || categoryIds.length == 0) {
+            return List.of();
+        }
+        Map<Long, String> names = namesOf(x, y);
+        List<String> decoded = new ArrayList<>(categoryIds.length);
+        for (long id : categoryIds) {
+            decoded.add(names.getOrDefault(id, Long.toUnsignedString(id)));
+        }
+        return decoded;
+    }
+
+    @Override
+    public long[] encode(int x, int y, List<String> names) {
+        Map<String, Long> ids = new HashMap<>();
+        long nextId = 0;
+        for (CellCategory category : cellCategoryRepository.findByXIndexAndYIndex(x, y)) {
+            ids.put(category.getName(), category.getCategoryId());
+            nextId = Math.max(nextId, category.getCategoryId() + 1);
+        }
+
+        long[] encoded = new long[names.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            Long id = ids.get(names.get(i));
+            if (id == null) {
+                id = nextId++;
+                CellCategory category = new CellCategory();
+                category.setXIndex(x);
+                category.setYIndex(y);
+                category.setCategoryId(id);
+                category.setName(names.get(i));
+                cellCategoryRepository.save(category);
+                ids.put(names.get(i), id);
+            }
+            encoded[i] = id;
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,211 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.CellStatisticsRepository;
+import de.fhdo.zarya.api.interfaces.repositories.NumericalCellRepository;
+import de.fhdo.zarya.api.interfaces.services.ICellStatisticsService;
+import de.fhdo.zarya.api.persistance.dto.OrganRollup;
+import de.fhdo.zarya.api.persistance.models.CellStatistics;
+import de.fhdo.zarya.api.persistance.models.NumericalCell;
+import com.tdunning.math.stats.TDigest;
+import de.fhdo.zarya.api.statistics.CategoryCounts;
+import de.fhdo.zarya.api.statistics.FixedBinHistogram;
+import de.fhdo.zarya.api.statistics.QuantileSketches;
+import de.fhdo.zarya.api.statistics.RunningStatistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Keeps cell_statistics up to date from the appended samples only, reads are O(1) per cell
+ */
+@Service
+public class RepositoryBasedCellStatisticsService implements ICellStatisticsService {
+    private final CellStatisticsRepository cellStatisticsRepository;
+    private final NumericalCellRepository numericalCellRepository;
+
+    @Value("${zarya.statistics.digest.compression:100}")
+    private double digestCompression;
+
+    @Value("${zarya.statistics.histogram.min:0}")
+    private double histogramMin;
+
+    @Value("${zarya.statistics.histogram.max:100}")
+    private double histogramMax;
+
+    @Value("${zarya.statistics.histogram.bins:20}")
+    private int histogramBins;
+
+    public RepositoryBasedCellStatisticsService(CellStatisticsRepository cellStatisticsRepository,
+                                                NumericalCellRepository numericalCellRepository) {
+        this.cellStatisticsRepository = cellStatisticsRepository;
+        this.numericalCellRepository = numericalCellRepository;
+    }
+
+    @Override
+    public void appendNumerical(int x, int y, double[] values, boolean restart) {
+        CellStatistics statistics = load(x, y, false, restart);
+        RunningStatistics running = toRunning(statistics);
+        running.addAll(values);
+
+        statistics.setCount(running.getCount());
+        statistics.setSum(running.getSum());
+        statistics.setSumOfSquares(running.getSumOfSquares());
+        statistics.setMean(running.getMean());
+        statistics.setM2(running.getM2());
+        statistics.setMin(running.getCount() == 0 ? null : running.getMin());
+        statistics.setMax(running.getCount() == 0 ? null : running.getMax());
+
+        TDigest digest = statistics.getDigest() == null
+                ? QuantileSketches.create(digestCompression)
+                : QuantileSketches.fromBytes(statistics.getDigest());
+        for (double value : values) {
+            digest.add(value);
+        }
+        statistics.setDigest(QuantileSketches.toBytes(digest));
+
+        FixedBinHistogram histogram = newHistogram();
+        FixedBinHistogram stored = toHistogram(statistics);
+        if (stored != null && stored.isCompatible(histogram)) {
+            histogram = stored;
+        } else if (stored != null) {
+            // Bounds configured differently since, the stored cell still holds every value before the appended ones
+            numericalCellRepository.findById(new NumericalCell.NumericalCellId(x, y))
+                    .map(NumericalCell::getValue)
+                    .ifPresent(histogram::addAll);
+        }
+        histogram.addAll(values);
+        statistics.setHistogramMin(histogram.getMin());
+        statistics.setHistogramMax(histogram.getMax());
+        statistics.setHistogram(histogram.getCounts());
+        cellStatisticsRepository.save(statistics);
+    }
+
+    @Override
+    public void appendCategorical(int x, int y, long[] categoryIds, boolean restart) {
+        CellStatistics statistics = load(x, y, true, restart);
+        CategoryCounts counts = statistics.getCategoryId() == null
+                ? new CategoryCounts()
+                : new CategoryCounts(statistics.getCategoryId(), statistics.getCategoryCount());
+        counts.addAll(categoryIds);
+
+        statistics.setCount(statistics.getCount() + categoryIds.length);
+        statistics.setCategoryId(counts.getCategoryIds());
+        statistics.setCategoryCount(counts.getCounts());
+        cellStatisticsRepository.save(statistics);
+    }
+
+    @Override
+    public Optional<CellStatistics> find(int x, int y, boolean isCategorical) {
+        return cellStatisticsRepository.findById(new CellStatistics.CellStatisticsId(x, y, isCategorical));
+    }
+
+    @Override
+    public List<CellStatistics> findAll(boolean isCategorical) {
+        return cellStatisticsRepository.findByIsCategorical(isCategorical);
+    }
+
+    @Override
+    public void delete(int x, int y, boolean isCategorical) {
+        cellStatisticsRepository.deleteById(new CellStatistics.CellStatisticsId(x, y, isCategorical));
+    }
+
+    @Override
+    public double[] percentiles(int x, int y, double[] q) {
+        return percentiles(find(x, y, false)
+                .orElseThrow(() -> new RuntimeException("CellStatistics not found")), q);
+    }
+
+    @Override
+    public double[] percentiles(CellStatistics statistics, double[] q) {
+        if (statistics.getDigest() == null) {
+            return QuantileSketches.quantiles(QuantileSketches.create(digestCompression), q);
+        }
+        return QuantileSketches.quantiles(QuantileSketches.fromBytes(statistics.getDigest()), q);
+    }
+
+    @Override
+    public double[] percentiles(Long organId, double[] q) {
+        List<byte[]> sketches = numericalOf(organId).stream()
+                .map(CellStatistics::getDigest)
+                .filter(Objects::nonNull)
+                .toList();
+        return QuantileSketches.quantiles(QuantileSketches.merge(sketches, digestCompression), q);
+    }
+
+    @Override
+    public Optional<FixedBinHistogram> histogram(int x, int y) {
+        return find(x, y, false).map(this::toHistogram);
+    }
+
+    @Override
+    public FixedBinHistogram histogram(Long organId) {
+        FixedBinHistogram merged = newHistogram();
+        for (CellStatistics statistics : numericalOf(organId)) {
+            FixedBinHistogram histogram = toHistogram(statistics);
+            if (histogram != null && histogram.isCompatible(merged)) {
+                merged.merge(histogram);
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public List<OrganRollup> rollUpByRegion() {
+        return cellStatisticsRepository.sumNumericalByRegion().stream()
+                .map(totals -> new OrganRollup(totals.getRegionCode(), null, totals.getCells(), toRunning(totals)))
+                .toList();
+    }
+
+    @Override
+    public List<OrganRollup> rollUpByOrganType() {
+        return cellStatisticsRepository.sumNumericalByOrganType().stream()
+                .map(totals -> new OrganRollup(null, totals.getType(), totals.getCells(), toRunning(totals)))
+                .toList();
+    }
+
+    private List<CellStatistics> numericalOf(Long organId) {
+        return organId == null ? findAll(false) : cellStatisticsRepository.findNumericalByOrganId(organId);
+    }
+
+    private FixedBinHistogram newHistogram() {
+        return new FixedBinHistogram(histogramMin, histogramMax, histogramBins);
+    }
+
+    private FixedBinHistogram toHistogram(CellStatistics statistics) {
+        if (statistics.getHistogram() == null) {
+            return null;
+        }
+        return new FixedBinHistogram(statistics.getHistogramMin(), statistics.getHistogramMax(), statistics.getHistogram());
+    }
+
+    private CellStatistics load(int x, int y, boolean isCategorical, boolean restart) {
+        CellStatistics statistics = restart ? null : find(x, y, isCategorical).orElse(null);
+        if (statistics == null) {
+            statistics = new CellStatistics();
+            statistics.setXIndex(x);
+            statistics.setYIndex(y);
+            statistics.setCategorical(isCategorical);
+        }
+        return statistics;
+    }
+
+    private RunningStatistics toRunning(CellStatistics statistics) {
+        if (statistics.getCount() == 0) {
+            return new RunningStatistics();
+        }
+        return new RunningStatistics(statistics.getCount(), statistics.getSum(), statistics.getSumOfSquares(),
+                statistics.getMean(), statistics.getM2(), statistics.getMin(), statistics.getMax());
+    }
+
+    // Chan's formula over all cells at once: the m2 of the cells plus the spread of their means around the group mean
+    private RunningStatistics toRunning(CellStatisticsRepository.NumericalTotals totals) {
+        long count = totals.getCount();
+        double sum = totals.getSum();
+        double mean = sum / count;
+        double m2 = Math.max(0, totals.getM2() + totals.getSumTimesMean() - sum * mean);
+        return new RunningStatistics(count, sum, totals.getSumOfSquares(), mean, m2, totals.getMin(), totals.getMax());
+    }
+}
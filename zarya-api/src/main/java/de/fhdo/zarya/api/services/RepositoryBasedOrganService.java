@@ -0,0 +1,65 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.OrganRepository;
+import de.fhdo.zarya.api.interfaces.services.IOrganService;
+import de.fhdo.zarya.api.interfaces.services.IPartyOrganDecoderService;
+import de.fhdo.zarya.api.organs.PartyOrganIdentity;
+import de.fhdo.zarya.api.persistance.models.Organ;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+@Service
+@AllArgsConstructor
+public class RepositoryBasedOrganService implements IOrganService {
+    private final OrganRepository organRepository;
+    private final IPartyOrganDecoderService partyOrganDecoderService;
+
+    @Override
+    public Organ getOrCreate(byte[] organHash) {
+        return organRepository.findByHash(organHash).orElseGet(() -> create(organHash, null));
+    }
+
+    @Override
+    public Organ getOrCreate(String identifier) {
+        byte[] organHash = Hash.sha3(identifier.getBytes(StandardCharsets.UTF_8));
+        return organRepository.findByHash(organHash).orElseGet(() -> create(organHash, identifier));
+    }
+
+    private Organ create(byte[] organHash, String identifier) {
+        long id = idOf(organHash);
+        // Saving under a taken id would merge into the other organ and overwrite its hash
+        organRepository.findById(id).ifPresent(existing -> {
+            throw new RuntimeException("Organ id " + id + " of " + Numeric.toHexString(organHash)
+                    + " is taken by " + Numeric.toHexString(existing.getHash()));
+        });
+        Optional<PartyOrganIdentity> identity = partyOrganDecoderService.decode(organHash);
+        Organ organ = new Organ();
+        organ.setId(id);
+        organ.setHash(organHash);
+        if (identity.isPresent()) {
+            organ.setName(identity.get().identifier());
+            organ.setType(identity.get().type());
+            organ.setRegionCode(identity.get().regionCode());
+            organ.setNumber(identity.get().number());
+            // Parents are always in the decoder's range, the recursion ends at the congress
+            organ.setParent(identity.get().parent().map(parent -> getOrCreate(parent.hash())).orElse(null));
+        } else {
+            organ.setName(identifier != null ? identifier : partyOrganDecoderService.decodeOrganHash(organHash));
+        }
+        return organRepository.save(organ);
+    }
+
+    // The primary key stays a Long for the existing references, create() refuses an id taken by another hash
+    private static long idOf(byte[] organHash) {
+        long id = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            id = (id << 8) | (organHash[i] & 0xFF);
+        }
+        return id;
+    }
+}
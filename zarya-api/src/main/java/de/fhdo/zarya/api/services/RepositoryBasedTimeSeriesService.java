@@ -0,0 +1,37 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.CellSampleRepository;
+import de.fhdo.zarya.api.interfaces.repositories.NumericalCellRepository;
+import de.fhdo.zarya.api.interfaces.services.ITimeSeriesService;
+import de.fhdo.zarya.api.persistance.dto.WindowAverage;
+import de.fhdo.zarya.api.persistance.models.NumericalCell;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Time window and author queries, aggregated by the database over the cell_sample table
+ */
+@Service
+@AllArgsConstructor
+public class RepositoryBasedTimeSeriesService implements ITimeSeriesService {
+    private final CellSampleRepository cellSampleRepository;
+    private final NumericalCellRepository numericalCellRepository;
+
+    @Override
+    public WindowAverage averageNumerical(int x, int y, Instant from, Instant to) {
+        NumericalCell cell = numericalCellRepository.findById(new NumericalCell.NumericalCellId(x, y))
+                .orElseThrow(() -> new RuntimeException("NumericalCell not found"));
+        CellSampleRepository.RawValueWindow window = cellSampleRepository.summarizeRawValues(x, y, false, from, to);
+
+        Double average = window.getAverage() == null ? null : window.getAverage() / Math.pow(10, cell.getDecimals());
+        return new WindowAverage(x, y, from, to, window.getSamples(), average);
+    }
+
+    @Override
+    public List<CellSampleRepository.AuthorSamples> authors(int x, int y, boolean isCategorical) {
+        return cellSampleRepository.summarizeAuthors(x, y, isCategorical);
+    }
+}
@@ -1,80 +1,418 @@
 package de.fhdo.zarya.api.services;
 
+import de.fhdo.zarya.api.contracts.ZaryaEvents;
+import de.fhdo.zarya.api.contracts.ZaryaFunctions;
 import de.fhdo.zarya.api.interfaces.repositories.*;
+import de.fhdo.zarya.api.interfaces.services.ICellStatisticsService;
 import de.fhdo.zarya.api.interfaces.services.IContractReadService;
-import de.fhdo.zarya.api.interfaces.services.IPartyOrganDecoderService;
+import de.fhdo.zarya.api.interfaces.services.IForecastService;
+import de.fhdo.zarya.api.interfaces.services.IMatrixReadModelService;
+import de.fhdo.zarya.api.interfaces.services.IOrganService;
+import de.fhdo.zarya.api.interfaces.services.ISnapshotFileService;
+import de.fhdo.zarya.api.interfaces.services.ISyncMetricsService;
 import de.fhdo.zarya.api.persistance.models.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.web3j.abi.TypeReference;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.abi.FunctionReturnDecoder;
 import org.web3j.abi.datatypes.generated.*;
 import org.web3j.abi.datatypes.*;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Numeric;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.function.BinaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.LongStream;
 
 @SuppressWarnings("rawtypes")
 @Slf4j
 @Service
 public class SynchronizationService {
-    private final OrganRepository organRepository;
     private final ThemeRepository themeRepository;
     private final StatementRepository statementRepository;
     private final NumericalCellRepository numericalCellRepository;
     private final CategoricalCellRepository categoricalCellRepository;
+    private final SyncStateRepository syncStateRepository;
+    private final TrackedVotingRepository trackedVotingRepository;
+    private final CellCategoryRepository cellCategoryRepository;
+    private final SyncRunRepository syncRunRepository;
+    private final PopulatedCellRepository populatedCellRepository;
+    private final CellSampleRepository cellSampleRepository;
+    private final ICellStatisticsService cellStatisticsService;
+    private final IForecastService forecastService;
+    private final IMatrixReadModelService matrixReadModelService;
+    private final ISnapshotFileService snapshotFileService;
+    private final ISyncMetricsService syncMetricsService;
     private final IContractReadService contractReadService;
-    private final IPartyOrganDecoderService partyOrganDecoderService;
+    private final IOrganService organService;
+    // One transaction per persisted cell, its statistics, forecast and samples never diverge from its sync cursor
+    private final TransactionTemplate cellTransaction;
 
-    @Value("${zarya.scan.cells.size}")
-    private int maxScanSize;
+    // Category names by (x, y, categoryId), kept across runs and only dropped by CategoryAdded events
+    private final Map<CategoryKey, String> categoryNames = new ConcurrentHashMap<>();
+    private volatile boolean categoryNamesLoaded;
+    private final Object categoryNamesLock = new Object();
 
-    public SynchronizationService(OrganRepository organRepository,
-                                  ThemeRepository themeRepository,
+    // Themes and statements are probed until this many consecutive slots past the known ones are empty
+    @Value("${zarya.scan.cells.empty-slots:5}")
+    private int emptySlots;
+
+    @Value("${zarya.sync.logs.range:2000}")
+    private long logsBlockRange;
+
+    @Value("${zarya.sync.confirmations:3}")
+    private long confirmations;
+
+    @Value("${zarya.sync.pipeline.chunk-size:50}")
+    private int pipelineChunkSize;
+
+    @Value("${zarya.sync.pipeline.max-in-flight:4}")
+    private int pipelineMaxInFlight;
+
+    // One history call reads at most this many samples, which bounds its gas inside an aggregate
+    @Value("${zarya.sync.history.page-size:500}")
+    private int historyPageSize;
+
+    // Probes every theme × statement pair on reconciliation instead of only the indexed populated cells
+    @Value("${zarya.sync.reconcile.probe-all-cells:false}")
+    private boolean probeAllCells;
+
+    // Nodes without archive state only answer calls for recent blocks
+    @Value("${zarya.sync.resume.max-age-blocks:128}")
+    private long resumeMaxAgeBlocks;
+
+    public SynchronizationService(ThemeRepository themeRepository,
                                   StatementRepository statementRepository,
                                   NumericalCellRepository numericalCellRepository,
                                   CategoricalCellRepository categoricalCellRepository,
+                                  SyncStateRepository syncStateRepository,
+                                  TrackedVotingRepository trackedVotingRepository,
+                                  CellCategoryRepository cellCategoryRepository,
+                                  SyncRunRepository syncRunRepository,
+                                  PopulatedCellRepository populatedCellRepository,
+                                  CellSampleRepository cellSampleRepository,
+                                  ICellStatisticsService cellStatisticsService,
+                                  IForecastService forecastService,
+                                  IMatrixReadModelService matrixReadModelService,
+                                  ISnapshotFileService snapshotFileService,
+                                  ISyncMetricsService syncMetricsService,
                                   IContractReadService contractReadService,
-                                  IPartyOrganDecoderService partyOrganDecoderService) {
-        this.organRepository = organRepository;
+                                  IOrganService organService,
+                                  PlatformTransactionManager transactionManager) {
         this.themeRepository = themeRepository;
         this.statementRepository = statementRepository;
         this.numericalCellRepository = numericalCellRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.trackedVotingRepository = trackedVotingRepository;
+        this.cellCategoryRepository = cellCategoryRepository;
+        this.syncRunRepository = syncRunRepository;
+        this.populatedCellRepository = populatedCellRepository;
+        this.cellSampleRepository = cellSampleRepository;
+        this.cellStatisticsService = cellStatisticsService;
+        this.forecastService = forecastService;
+        this.matrixReadModelService = matrixReadModelService;
+        this.snapshotFileService = snapshotFileService;
+        this.syncMetricsService = syncMetricsService;
         this.contractReadService = contractReadService;
-        this.partyOrganDecoderService = partyOrganDecoderService;
+        this.organService = organService;
+        this.cellTransaction = new TransactionTemplate(transactionManager);
         this.categoricalCellRepository = categoricalCellRepository;
     }
 
-    @Scheduled(fixedRate = 12 * 3600 * 1000)
-    public void sync() {
+    /**
+     * Pulls the contract events since the last processed block and refreshes only what they touched.
+     * Without a processed block yet, the snapshot file is restored or else a full reconciliation is done first
+     */
+    @Scheduled(fixedDelayString = "${zarya.sync.incremental.delay-ms:60000}")
+    public void syncIncrementally() {
+        try {
+            Optional<SyncState> state = syncStateRepository.findById(SyncState.SINGLETON_ID);
+            if (state.isEmpty()) {
+                // A snapshot file seeds the fresh schema, only the blocks after it are synced then
+                if (snapshotFileService.restore().isEmpty()) {
+                    reconcile();
+                    return;
+                }
+                state = syncStateRepository.findById(SyncState.SINGLETON_ID);
+            }
+
+            long from = state.get().getLastProcessedBlock() + 1;
+            long head = contractReadService.getBlockNumber().longValue() - confirmations;
+            if (from > head) return;
+
+            SyncRun run = startRun(SyncRun.Kind.INCREMENTAL, head, from);
+            long snapshot = run.getSnapshotBlock();
+            syncMetricsService.runStarted(SyncRun.Kind.INCREMENTAL, from, snapshot);
+            try {
+                Changes changes = new Changes();
+                syncMetricsService.stage("logs", () -> {
+                    for (long start = from; start <= snapshot; start += logsBlockRange) {
+                        collectChanges(start, Math.min(start + logsBlockRange - 1, snapshot), changes);
+                    }
+                });
+                syncMetricsService.stage("apply", () -> applyChanges(changes, snapshot));
+                saveLastProcessedBlock(snapshot);
+                finishRun(run, SyncRun.Status.COMPLETED);
+                if (!changes.isEmpty() || matrixReadModelService.current() == null) {
+                    syncMetricsService.stage("read-model", () -> matrixReadModelService.refresh(snapshot));
+                    syncMetricsService.stage("snapshot-file",
+                            () -> snapshotFileService.save(matrixReadModelService.current(), false));
+                }
+                syncMetricsService.runFinished(SyncRun.Kind.INCREMENTAL, snapshot, null);
+            } catch (Exception e) {
+                finishRun(run, SyncRun.Status.FAILED);
+                syncMetricsService.runFinished(SyncRun.Kind.INCREMENTAL, snapshot, e);
+                throw e;
+            }
+        } catch (Exception e) {
+            log.error("Error during incremental synchronization", e);
+        }
+    }
+
+    /**
+     * Re-reads the whole matrices, catches up with anything the incremental synchronization missed
+     */
+    @Scheduled(fixedRateString = "${zarya.sync.reconcile.rate-ms:604800000}",
+            initialDelayString = "${zarya.sync.reconcile.rate-ms:604800000}")
+    public void reconcile() {
         log.info("Synchronizing data from blockchain");
+        long started = System.currentTimeMillis();
+        SyncRun run = null;
         try {
-            syncThemesAndStatements(maxScanSize, maxScanSize);
-            syncAllCells();
-            log.info("Synchronization completed successfully");
+            // Everything after the snapshot block is replayed by the incremental synchronization,
+            // both only ever process confirmed blocks so none of them is reorged out afterwards
+            run = startRun(SyncRun.Kind.RECONCILE, contractReadService.getBlockNumber().longValue() - confirmations, 0);
+            long block = run.getSnapshotBlock();
+            syncMetricsService.runStarted(SyncRun.Kind.RECONCILE, syncStateRepository.findById(SyncState.SINGLETON_ID)
+                    .map(state -> state.getLastProcessedBlock() + 1)
+                    .orElse(0L), block);
+            syncMetricsService.stage("themes-statements", () -> syncThemesAndStatements(block));
+            syncMetricsService.stage("cells", () -> syncAllCells(block));
+            saveLastProcessedBlock(block);
+            finishRun(run, SyncRun.Status.COMPLETED);
+            syncMetricsService.stage("read-model", () -> matrixReadModelService.refresh(block));
+            syncMetricsService.stage("snapshot-file",
+                    () -> snapshotFileService.save(matrixReadModelService.current(), true));
+            syncMetricsService.runFinished(SyncRun.Kind.RECONCILE, block, null);
+            log.info("Synchronization completed successfully in {} ms", System.currentTimeMillis() - started);
         } catch (Exception e) {
+            if (run != null) {
+                finishRun(run, SyncRun.Status.FAILED);
+                syncMetricsService.runFinished(SyncRun.Kind.RECONCILE, run.getSnapshotBlock(), e);
+            }
             log.error("Error during synchronization", e);
         }
     }
 
-    private void syncThemesAndStatements(int maxX, int maxY) throws Exception {
+    /**
+     * Resumes the last unfinished run of the kind while its snapshot is still readable, otherwise pins a new one
+     */
+    private SyncRun startRun(SyncRun.Kind kind, long head, long minSnapshotBlock) {
+        Optional<SyncRun> last = syncRunRepository.findFirstByKindOrderByIdDesc(kind);
+        if (last.isPresent() && last.get().getStatus() != SyncRun.Status.COMPLETED) {
+            SyncRun run = last.get();
+            long snapshot = run.getSnapshotBlock();
+            if (snapshot >= minSnapshotBlock && head - snapshot <= resumeMaxAgeBlocks) {
+                log.info("Resuming {} run {} at block {}", kind, run.getId(), snapshot);
+                run.setStatus(SyncRun.Status.RUNNING);
+                run.setFinishedAt(null);
+                return syncRunRepository.save(run);
+            }
+        }
+
+        SyncRun run = new SyncRun();
+        run.setKind(kind);
+        run.setSnapshotBlock(head);
+        run.setStatus(SyncRun.Status.RUNNING);
+        run.setStartedAt(Instant.now());
+        log.info("Starting {} run at block {}", kind, head);
+        return syncRunRepository.save(run);
+    }
+
+    private void finishRun(SyncRun run, SyncRun.Status status) {
+        run.setStatus(status);
+        run.setFinishedAt(Instant.now());
+        syncRunRepository.save(run);
+    }
+
+    private void saveLastProcessedBlock(long block) {
+        SyncState state = syncStateRepository.findById(SyncState.SINGLETON_ID).orElse(new SyncState());
+        state.setLastProcessedBlock(block);
+        syncStateRepository.save(state);
+    }
+
+    private void collectChanges(long fromBlock, long toBlock, Changes changes) throws Exception {
+        List<Log> logs = contractReadService.getLogs(BigInteger.valueOf(fromBlock), BigInteger.valueOf(toBlock),
+                ZaryaEvents.SYNCHRONIZED);
+        if (logs.isEmpty()) return;
+        log.info("Processing {} events in blocks {}..{}", logs.size(), fromBlock, toBlock);
+
+        for (Log eventLog : logs) {
+            List<String> topics = eventLog.getTopics();
+            String topic = topics.getFirst();
+            if (topic.equals(ZaryaEvents.VALUE_ADDED_TOPIC)) {
+                // The event does not tell the matrix, the one without samples is skipped when refreshing
+                CellIndex cell = new CellIndex(topicToInt(topics.get(1)), topicToInt(topics.get(2)));
+                changes.numericalCells.add(cell);
+                changes.categoricalCells.add(cell);
+            } else if (topic.equals(ZaryaEvents.CATEGORY_ADDED_TOPIC)) {
+                CellIndex cell = new CellIndex(topicToInt(topics.get(1)), topicToInt(topics.get(2)));
+                invalidateCategoryNames(cell);
+                changes.categoricalCells.add(cell);
+            } else if (topic.equals(ZaryaEvents.VOTING_FINALIZED_TOPIC)) {
+                List<Type> data = FunctionReturnDecoder.decode(eventLog.getData(),
+                        ZaryaEvents.VOTING_FINALIZED.getNonIndexedParameters());
+                long votingId = Numeric.toBigInt(topics.get(1)).longValue();
+                boolean accepted = (Boolean) data.getFirst().getValue();
+                Optional<TrackedVoting> tracked = trackedVotingRepository.findById(votingId);
+                if (tracked.isEmpty()) {
+                    // Created before the reconciled or restored block, what it changed is not known
+                    if (accepted) {
+                        log.info("Untracked voting {} was accepted, re-reading the dimensions and decimals", votingId);
+                        changes.untrackedAccepted = true;
+                    }
+                    continue;
+                }
+                TrackedVoting voting = tracked.get();
+                if (accepted) {
+                    switch (voting.getKind()) {
+                        case THEME -> changes.themes.add(new MatrixIndex(voting.isCategorical(), voting.getXIndex()));
+                        case STATEMENT -> changes.statements.add(new MatrixIndex(voting.isCategorical(), voting.getYIndex()));
+                        case DECIMALS -> changes.numericalCells.add(
+                                new CellIndex(voting.getXIndex().intValue(), voting.getYIndex().intValue()));
+                    }
+                }
+                changes.finalizedVotings.add(voting);
+            } else {
+                trackVoting(eventLog);
+            }
+        }
+    }
+
+    private void applyChanges(Changes changes, long block) throws Exception {
+        if (changes.untrackedAccepted) {
+            // The whole axes are probed again and every numerical cell has its decimals compared,
+            // cells whose info did not change cost no history call
+            syncThemesAndStatements(block);
+            for (PopulatedCell cell : populatedCellRepository.findAll()) {
+                if (!cell.isCategorical()) {
+                    changes.numericalCells.add(new CellIndex(cell.getXIndex(), cell.getYIndex()));
+                }
+            }
+        }
+        refreshThemesAndStatements(changes.themes, changes.statements, block);
+        syncCells(new ArrayList<>(changes.numericalCells), new ArrayList<>(changes.categoricalCells), block);
+        // Only dropped once applied, a failed run finds them again when it is resumed or replayed
+        trackedVotingRepository.deleteAll(changes.finalizedVotings);
+    }
+
+    private void trackVoting(Log eventLog) {
+        String topic = eventLog.getTopics().getFirst();
+        TrackedVoting voting = new TrackedVoting();
+        voting.setVotingId(Numeric.toBigInt(eventLog.getTopics().get(1)).longValue());
+        if (topic.equals(ZaryaEvents.THEME_VOTING_CREATED_TOPIC)) {
+            List<Type> data = FunctionReturnDecoder.decode(eventLog.getData(),
+                    ZaryaEvents.THEME_VOTING_CREATED.getNonIndexedParameters());
+            voting.setKind(TrackedVoting.Kind.THEME);
+            voting.setCategorical((Boolean) data.get(0).getValue());
+            voting.setXIndex(((BigInteger) data.get(1).getValue()).longValue());
+        } else if (topic.equals(ZaryaEvents.STATEMENT_VOTING_CREATED_TOPIC)) {
+            List<Type> data = FunctionReturnDecoder.decode(eventLog.getData(),
+                    ZaryaEvents.STATEMENT_VOTING_CREATED.getNonIndexedParameters());
+            voting.setKind(TrackedVoting.Kind.STATEMENT);
+            voting.setCategorical((Boolean) data.get(0).getValue());
+            voting.setXIndex(((BigInteger) data.get(1).getValue()).longValue());
+            voting.setYIndex(((BigInteger) data.get(2).getValue()).longValue());
+        } else if (topic.equals(ZaryaEvents.DECIMALS_VOTING_CREATED_TOPIC)) {
+            List<Type> data = FunctionReturnDecoder.decode(eventLog.getData(),
+                    ZaryaEvents.DECIMALS_VOTING_CREATED.getNonIndexedParameters());
+            voting.setKind(TrackedVoting.Kind.DECIMALS);
+            voting.setCategorical(false);
+            voting.setXIndex(((BigInteger) data.get(1).getValue()).longValue());
+            voting.setYIndex(((BigInteger) data.get(2).getValue()).longValue());
+        } else {
+            return;
+        }
+        trackedVotingRepository.save(voting);
+    }
+
+    private int topicToInt(String topic) {
+        return Numeric.toBigInt(topic).intValue();
+    }
+
+    /**
+     * Discovers the matrix dimensions while syncing: each axis is read in windows until a run of empty slots
+     * follows both the last found and the last stored index. Growth between reconciliations comes from the
+     * finalized theme and statement votings
+     */
+    private void syncThemesAndStatements(long block) throws Exception {
         log.info("Syncing themes and statements");
         for (boolean isCategorical : new boolean[]{true, false}) {
-            for (int x = 0; x < maxX; x++) {
-                syncTheme(isCategorical, x);
-            }
-            for (int y = 0; y < maxY; y++) {
-                syncStatement(isCategorical, y);
+            long knownThemes = themeRepository.findFirstByIsCategoricalOrderByXIndexDesc(isCategorical)
+                    .map(t -> t.getXIndex() + 1).orElse(0L);
+            long themes = probe(x -> ZaryaFunctions.getTheme(isCategorical, x), knownThemes, block,
+                    (text, x) -> syncTheme(isCategorical, (int) x, text));
+
+            long knownStatements = statementRepository.findFirstByIsCategoricalOrderByYIndexDesc(isCategorical)
+                    .map(s -> s.getYIndex() + 1).orElse(0L);
+            long statements = probe(y -> ZaryaFunctions.getStatement(isCategorical, y), knownStatements, block,
+                    (text, y) -> syncStatement(isCategorical, (int) y, text));
+
+            log.info("{} matrix has {} themes and {} statements",
+                    isCategorical ? "Categorical" : "Numerical", themes, statements);
+        }
+    }
+
+    /**
+     * Reads the slots from 0 in windows of zarya.scan.cells.empty-slots and hands the non-empty ones over
+     *
+     * @return the axis length, one past the last non-empty slot
+     */
+    private long probe(LongFunction<Function> getter, long known, long block, ObjLongConsumer<String> sync)
+            throws Exception {
+        long next = 0;
+        long length = 0;
+        while (next < known || next - length < emptySlots) {
+            List<Function> window = LongStream.range(next, next + emptySlots).mapToObj(getter).toList();
+            List<List<Type>> results = contractReadService.callFunctions(window, at(block));
+            for (int i = 0; i < results.size(); i++) {
+                String text = stringResult(results.get(i));
+                if (text == null || text.isEmpty()) continue;
+                sync.accept(text, next + i);
+                length = next + i + 1;
             }
+            next += emptySlots;
+        }
+        return length;
+    }
+
+    private void refreshThemesAndStatements(Collection<MatrixIndex> themes, Collection<MatrixIndex> statements,
+                                            long block) throws Exception {
+        List<Function> functions = new ArrayList<>();
+        themes.forEach(t -> functions.add(ZaryaFunctions.getTheme(t.isCategorical(), t.index())));
+        statements.forEach(s -> functions.add(ZaryaFunctions.getStatement(s.isCategorical(), s.index())));
+
+        Iterator<List<Type>> results = contractReadService.callFunctions(functions, at(block)).iterator();
+        for (MatrixIndex theme : themes) {
+            syncTheme(theme.isCategorical(), (int) theme.index(), stringResult(results.next()));
+        }
+        for (MatrixIndex statement : statements) {
+            syncStatement(statement.isCategorical(), (int) statement.index(), stringResult(results.next()));
         }
     }
 
-    private void syncTheme(boolean isCategorical, int x) throws Exception {
-        String text = callStringFunction("getTheme", new Bool(isCategorical), new Uint256(x));
+    private void syncTheme(boolean isCategorical, int x, String text) {
         if (text == null || text.isEmpty()) return;
         Theme theme = themeRepository.findByXIndexAndIsCategorical((long) x, isCategorical).orElse(new Theme());
         theme.setText(text);
@@ -83,8 +421,7 @@ public class SynchronizationService {
         themeRepository.save(theme);
     }
 
-    private void syncStatement(boolean isCategorical, int y) throws Exception {
-        String text = callStringFunction("getStatement", new Bool(isCategorical), new Uint256(y));
+    private void syncStatement(boolean isCategorical, int y, String text) {
         if (text == null || text.isEmpty()) return;
         Statement statement = statementRepository.findByYIndexAndIsCategorical((long) y, isCategorical)
                 .orElse(new Statement());
@@ -94,116 +431,472 @@ public class SynchronizationService {
         statementRepository.save(statement);
     }
 
-    private String callStringFunction(String functionName, Type<?>... params) throws Exception {
-        List<Type> result = contractReadService.callFunction(functionName,
-                Arrays.asList(params), 
-                List.of(new TypeReference<Utf8String>() {}));
+    private String stringResult(List<Type> result) {
         return result.isEmpty() ? null : (String) result.getFirst().getValue();
     }
 
-    private void syncAllCells() throws Exception {
-        log.info("Syncing cells");
-        for (Theme theme : themeRepository.findAll()) {
-            for (Statement statement : statementRepository.findAll()) {
-                // Only sync cells where theme and statement have matching isCategorical values
-                if (theme.isCategorical() == statement.isCategorical()) {
-                    if (theme.isCategorical()) {
-                        syncCategoricalCell(theme.getXIndex().intValue(), statement.getYIndex().intValue());
-                    } else {
-                        syncNumericalCell(theme.getXIndex().intValue(), statement.getYIndex().intValue());
+    /**
+     * Syncs the indexed populated cells. Every sample arrives with a ValueAdded event, so cells only join the
+     * index through the incremental synchronization; the theme × statement pairs are only probed while the
+     * index is still empty or when zarya.sync.reconcile.probe-all-cells is set
+     */
+    private void syncAllCells(long block) throws Exception {
+        List<CellIndex> numericalCells = new ArrayList<>();
+        List<CellIndex> categoricalCells = new ArrayList<>();
+        if (!probeAllCells && populatedCellRepository.count() > 0) {
+            for (PopulatedCell cell : populatedCellRepository.findAll()) {
+                (cell.isCategorical() ? categoricalCells : numericalCells)
+                        .add(new CellIndex(cell.getXIndex(), cell.getYIndex()));
+            }
+            log.info("Syncing {} populated cells", numericalCells.size() + categoricalCells.size());
+        } else {
+            List<Statement> statements = new ArrayList<>();
+            statementRepository.findAll().forEach(statements::add);
+            for (Theme theme : themeRepository.findAll()) {
+                for (Statement statement : statements) {
+                    // Only sync cells where theme and statement have matching isCategorical values
+                    if (theme.isCategorical() == statement.isCategorical()) {
+                        CellIndex cell = new CellIndex(theme.getXIndex().intValue(), statement.getYIndex().intValue());
+                        (theme.isCategorical() ? categoricalCells : numericalCells).add(cell);
                     }
                 }
             }
+            log.info("Probing {} cells", numericalCells.size() + categoricalCells.size());
         }
-    }
 
-    private void syncNumericalCell(int x, int y) throws Exception {
-        List<Type> info = contractReadService.callFunction("getNumericalCellInfo", List.of(new Uint256(x), new Uint256(y)),
-                List.of(new TypeReference<Bytes32>() {},
-                        new TypeReference<Uint8>() {},
-                        new TypeReference<Uint256>() {}));
+        syncCells(numericalCells, categoricalCells, block);
+    }
 
-        BigInteger sampleLength = (BigInteger) info.get(2).getValue();
-        if (sampleLength.compareTo(BigInteger.ZERO) == 0) return;
+    /**
+     * Staged pipeline: chunks of cells have their info, history and category names fetched on virtual threads,
+     * the fetched chunks are persisted one after another by the calling thread. A fetch is only submitted while
+     * fewer than zarya.sync.pipeline.max-in-flight chunks are fetched but not yet persisted, which holds back
+     * the fetching stages when persisting falls behind; the RPC concurrency itself is bounded by the read service.
+     * All stages read at the given block, so info, history and category names agree with each other
+     */
+    private void syncCells(List<CellIndex> numericalCells, List<CellIndex> categoricalCells, long block)
+            throws Exception {
+        List<Callable<List<Runnable>>> fetches = new ArrayList<>();
+        for (List<CellIndex> chunk : chunk(numericalCells)) {
+            fetches.add(() -> fetchNumericalCells(chunk, block));
+        }
+        for (List<CellIndex> chunk : chunk(categoricalCells)) {
+            fetches.add(() -> fetchCategoricalCells(chunk, block));
+        }
+        if (fetches.isEmpty()) return;
 
-        List<Type> history = contractReadService.callFunction("getNumericalHistory",
-                List.of(new Uint256(x), new Uint256(y), new Uint256(0), new Uint256(sampleLength)),
-                List.of(new TypeReference<DynamicArray<Uint32>>() {},
-                        new TypeReference<DynamicArray<Address>>() {},
-                        new TypeReference<DynamicArray<Uint64>>() {}));
+        Iterator<Callable<List<Runnable>>> unsubmitted = fetches.iterator();
+        BlockingQueue<FetchedChunk> fetched = new LinkedBlockingQueue<>();
+        Exception failure = null;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            int submitted = 0;
+            while (submitted < Math.max(1, pipelineMaxInFlight) && unsubmitted.hasNext()) {
+                submitFetch(executor, unsubmitted.next(), fetched);
+                submitted++;
+            }
 
-        @SuppressWarnings("unchecked")
-        List<Double> doubleValues = ((List<Uint64>) history.get(2).getValue()).stream()
-                .map(v -> convertToDouble(v.getValue(), ((BigInteger) info.get(1).getValue()).intValue()))
-                .collect(Collectors.toList());
+            for (int taken = 0; taken < submitted; taken++) {
+                FetchedChunk chunk = fetched.take();
+                try {
+                    if (chunk.error() != null) {
+                        throw chunk.error();
+                    }
+                    chunk.persists().forEach(Runnable::run);
+                } catch (Exception e) {
+                    log.error("Error synchronizing cells", e);
+                    failure = e;
+                }
+                // A persisted chunk makes room for the next fetch, after a failure only the running ones are drained
+                if (failure == null && unsubmitted.hasNext()) {
+                    submitFetch(executor, unsubmitted.next(), fetched);
+                    submitted++;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 
-        NumericalCell cell = numericalCellRepository.findById(new NumericalCell.NumericalCellId(x, y)).orElse(new NumericalCell());
-        cell.setXIndex(x);
-        cell.setYIndex(y);
-        cell.setValue(doubleValues);
-        cell.setOrgan(getOrCreateOrgan((byte[]) info.getFirst().getValue()));
-        numericalCellRepository.save(cell);
+    private void submitFetch(ExecutorService executor, Callable<List<Runnable>> fetch,
+                             BlockingQueue<FetchedChunk> fetched) {
+        executor.submit(() -> {
+            try {
+                fetched.add(new FetchedChunk(fetch.call(), null));
+            } catch (Exception e) {
+                fetched.add(new FetchedChunk(List.of(), e));
+            }
+        });
     }
 
-    private void syncCategoricalCell(int x, int y) throws Exception {
-        List<Type> info = contractReadService.callFunction("getCategoricalCellInfo", List.of(new Uint256(x), new Uint256(y)),
-                List.of(new TypeReference<Bytes32>() {},
-                        new TypeReference<DynamicArray<Uint64>>() {},
-                        new TypeReference<Uint256>() {}));
+    private List<List<CellIndex>> chunk(List<CellIndex> cells) {
+        List<List<CellIndex>> chunks = new ArrayList<>();
+        for (int from = 0; from < cells.size(); from += pipelineChunkSize) {
+            chunks.add(cells.subList(from, Math.min(from + pipelineChunkSize, cells.size())));
+        }
+        return chunks;
+    }
 
-        BigInteger sampleLength = (BigInteger) info.get(2).getValue();
-        if (sampleLength.compareTo(BigInteger.ZERO) == 0) {
-            return;
+    private List<Runnable> fetchNumericalCells(List<CellIndex> chunk, long block) throws Exception {
+        // Cells already written at this snapshot or later, by an interrupted run of it, are left as they are
+        List<CellIndex> cells = new ArrayList<>();
+        List<NumericalCell> stored = new ArrayList<>();
+        for (CellIndex index : chunk) {
+            NumericalCell cell = numericalCellRepository.findById(new NumericalCell.NumericalCellId(index.x(), index.y()))
+                    .orElseGet(NumericalCell::new);
+            if (cell.getSyncedAtBlock() != null && cell.getSyncedAtBlock() >= block) continue;
+            cells.add(index);
+            stored.add(cell);
         }
 
-        // Get allowed categories from info (second element)
-        @SuppressWarnings("unchecked")
-        List<String> allowedCategoryNames = ((List<Uint64>) info.get(1).getValue()).stream()
-                .map(v -> getCategoryName(x, y, v.getValue()))
-                .collect(Collectors.toList());
+        List<List<Type>> infos = contractReadService.callFunctions(cells.stream()
+                .map(c -> ZaryaFunctions.getNumericalCellInfo(c.x(), c.y()))
+                .toList(), at(block));
+
+        List<PendingCell<NumericalCell>> pending = new ArrayList<>();
+        List<Function> historyCalls = new ArrayList<>();
+        List<Integer> pageCounts = new ArrayList<>();
+        for (int i = 0; i < cells.size(); i++) {
+            List<Type> info = infos.get(i);
+            if (info.isEmpty()) continue;
+            BigInteger sampleLength = (BigInteger) info.get(2).getValue();
+            if (sampleLength.signum() == 0) continue;
+
+            CellIndex index = cells.get(i);
+            NumericalCell cell = stored.get(i);
+            if (cell.getSyncedAtBlock() == null) {
+                markPopulated(index, false, block);
+            }
+            int decimals = ((BigInteger) info.get(1).getValue()).intValue();
 
-        // Get actual category history
-        List<Type> history = contractReadService.callFunction("getCategoricalHistory",
-                List.of(new Uint256(x), new Uint256(y), new Uint256(0), new Uint256(sampleLength)),
-                List.of(new TypeReference<DynamicArray<Uint32>>() {},
-                        new TypeReference<DynamicArray<Address>>() {},
-                        new TypeReference<DynamicArray<Uint64>>() {}));
+            // Values converted with other decimals and shrunk histories are downloaded again from the start
+            BigInteger offset = BigInteger.valueOf(cell.getSyncedSampleLength());
+            if (cell.getDecimals() != decimals || offset.compareTo(sampleLength) > 0) {
+                offset = BigInteger.ZERO;
+            }
+            if (offset.equals(sampleLength)) continue;
 
-        @SuppressWarnings("unchecked")
-        List<String> categoryNames = ((List<Uint64>) history.get(2).getValue()).stream()
-                .map(v -> getCategoryName(x, y, v.getValue()))
-                .collect(Collectors.toList());
-        log.info("Fetched categorical cell at x={}, y={} with categories: {}", x, y, categoryNames);
+            pending.add(new PendingCell<>(index, cell, info, offset));
+            pageCounts.add(addHistoryPages(historyCalls, offset, sampleLength,
+                    (from, length) -> ZaryaFunctions.getNumericalHistory(index.x(), index.y(), from, length)));
+        }
 
-        CategoricalCell cell = categoricalCellRepository.findById(new CategoricalCell.CategoricalCellId(x, y)).orElse(new CategoricalCell());
-        cell.setXIndex(x);
-        cell.setYIndex(y);
-        cell.setCategory(categoryNames);
-        cell.setAllowedCategory(allowedCategoryNames);
-        cell.setOrgan(getOrCreateOrgan((byte[]) info.getFirst().getValue()));
-        categoricalCellRepository.save(cell);
+        List<List<Type>> histories = joinHistoryPages(
+                contractReadService.callFunctions(historyCalls, at(block)), pageCounts);
+        List<Runnable> persists = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            PendingCell<NumericalCell> cell = pending.get(i);
+            List<Type> history = histories.get(i);
+            persists.add(() -> saveNumericalCell(cell, history, block));
+        }
+        return persists;
     }
 
-    private String getCategoryName(int x, int y, BigInteger categoryId) {
-        try {
-            return callStringFunction("getCategoryName", new Uint256(x), new Uint256(y),
-                    new Uint64(categoryId.longValue()));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get category name for x=" + x + ", y=" + y + ", categoryId=" + categoryId, e);
+    @SuppressWarnings("unchecked")
+    private void saveNumericalCell(PendingCell<NumericalCell> pending, List<Type> history, long block) {
+        if (history.isEmpty()) return;
+        List<Type> info = pending.info();
+        int decimals = ((BigInteger) info.get(1).getValue()).intValue();
+        double[] newValues = ((List<Uint64>) history.get(2).getValue()).stream()
+                .mapToDouble(v -> convertToDouble(v.getValue(), decimals))
+                .toArray();
+
+        NumericalCell cell = pending.cell();
+        double[] values = pending.offset().signum() == 0 || cell.getValue() == null ? new double[0] : cell.getValue();
+        double[] appended = Arrays.copyOf(values, values.length + newValues.length);
+        System.arraycopy(newValues, 0, appended, values.length, newValues.length);
+        cell.setValue(appended);
+        cell.setXIndex(pending.index().x());
+        cell.setYIndex(pending.index().y());
+        cell.setDecimals(decimals);
+        cell.setSyncedSampleLength(pending.offset().longValue() + newValues.length);
+        cell.setSyncedAtBlock(block);
+        // The cell row carries the sync cursor and is written last, a failure rolls back the appends with it
+        cellTransaction.executeWithoutResult(status -> {
+            cellStatisticsService.appendNumerical(pending.index().x(), pending.index().y(), newValues,
+                    pending.offset().signum() == 0);
+            forecastService.appendNumerical(pending.index().x(), pending.index().y(), newValues,
+                    pending.offset().signum() == 0);
+            saveSamples(pending.index(), false, pending.offset().longValue(), history);
+            cell.setOrgan(organService.getOrCreate((byte[]) info.getFirst().getValue()));
+            numericalCellRepository.save(cell);
+        });
+        syncMetricsService.cellUpdated(false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Runnable> fetchCategoricalCells(List<CellIndex> chunk, long block) throws Exception {
+        List<CellIndex> cells = new ArrayList<>();
+        List<CategoricalCell> stored = new ArrayList<>();
+        for (CellIndex index : chunk) {
+            CategoricalCell cell = categoricalCellRepository.findById(new CategoricalCell.CategoricalCellId(index.x(), index.y()))
+                    .orElseGet(CategoricalCell::new);
+            if (cell.getSyncedAtBlock() != null && cell.getSyncedAtBlock() >= block) continue;
+            cells.add(index);
+            stored.add(cell);
         }
+
+        List<List<Type>> infos = contractReadService.callFunctions(cells.stream()
+                .map(c -> ZaryaFunctions.getCategoricalCellInfo(c.x(), c.y()))
+                .toList(), at(block));
+
+        List<PendingCell<CategoricalCell>> pending = new ArrayList<>();
+        List<Function> historyCalls = new ArrayList<>();
+        List<Integer> pageCounts = new ArrayList<>();
+        for (int i = 0; i < cells.size(); i++) {
+            List<Type> info = infos.get(i);
+            if (info.isEmpty()) continue;
+            BigInteger sampleLength = (BigInteger) info.get(2).getValue();
+            if (sampleLength.signum() == 0) continue;
+
+            CellIndex index = cells.get(i);
+            CategoricalCell cell = stored.get(i);
+            if (cell.getSyncedAtBlock() == null) {
+                markPopulated(index, true, block);
+            }
+
+            // A shrunk history is downloaded again from the start
+            BigInteger offset = BigInteger.valueOf(cell.getSyncedSampleLength());
+            if (offset.compareTo(sampleLength) > 0) {
+                offset = BigInteger.ZERO;
+            }
+            // Allowed categories may have changed even without new samples
+            boolean allowedChanged = !Arrays.equals(cell.getAllowedCategoryId(), categoryIds((List<Uint64>) info.get(1).getValue()));
+            if (offset.equals(sampleLength) && !allowedChanged) continue;
+
+            pending.add(new PendingCell<>(index, cell, info, offset));
+            pageCounts.add(addHistoryPages(historyCalls, offset, sampleLength,
+                    (from, length) -> ZaryaFunctions.getCategoricalHistory(index.x(), index.y(), from, length)));
+        }
+
+        List<List<Type>> histories = joinHistoryPages(
+                contractReadService.callFunctions(historyCalls, at(block)), pageCounts);
+
+        // Names come from the allowed categories, every vote is one of them
+        Set<CategoryKey> categoryKeys = new LinkedHashSet<>();
+        for (int i = 0; i < pending.size(); i++) {
+            CellIndex index = pending.get(i).index();
+            ((List<Uint64>) pending.get(i).info().get(1).getValue())
+                    .forEach(v -> categoryKeys.add(new CategoryKey(index.x(), index.y(), v.getValue().longValue())));
+        }
+        resolveCategoryNames(categoryKeys, block);
+
+        List<Runnable> persists = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            PendingCell<CategoricalCell> cell = pending.get(i);
+            List<Type> history = histories.get(i);
+            persists.add(() -> saveCategoricalCell(cell, history, block));
+        }
+        return persists;
     }
 
-    private Organ getOrCreateOrgan(byte[] organBytes) {
-        long organId = Arrays.hashCode(organBytes);
-        return organRepository.findById(organId).orElseGet(() -> {
-            Organ organ = new Organ();
-            organ.setId(organId);
-            organ.setName(partyOrganDecoderService.decodeOrganHash(organBytes));
-            return organRepository.save(organ);
+    @SuppressWarnings("unchecked")
+    private void saveCategoricalCell(PendingCell<CategoricalCell> pending, List<Type> history, long block) {
+        CellIndex index = pending.index();
+        List<Type> info = pending.info();
+
+        // Only the ids are stored, their names were put into the cell's dictionary while fetching
+        long[] newCategoryIds = history.isEmpty() ? new long[0] : categoryIds((List<Uint64>) history.get(2).getValue());
+        log.info("Fetched {} new samples of categorical cell at x={}, y={}", newCategoryIds.length, index.x(), index.y());
+
+        CategoricalCell cell = pending.cell();
+        long[] categoryIds = pending.offset().signum() == 0 || cell.getCategoryId() == null
+                ? new long[0] : cell.getCategoryId();
+        long[] appended = Arrays.copyOf(categoryIds, categoryIds.length + newCategoryIds.length);
+        System.arraycopy(newCategoryIds, 0, appended, categoryIds.length, newCategoryIds.length);
+        cell.setCategoryId(appended);
+        cell.setXIndex(index.x());
+        cell.setYIndex(index.y());
+        cell.setSyncedSampleLength(pending.offset().longValue() + newCategoryIds.length);
+        cell.setSyncedAtBlock(block);
+        cell.setAllowedCategoryId(categoryIds((List<Uint64>) info.get(1).getValue()));
+        cellTransaction.executeWithoutResult(status -> {
+            cellStatisticsService.appendCategorical(index.x(), index.y(), newCategoryIds, pending.offset().signum() == 0);
+            forecastService.appendCategorical(index.x(), index.y(), newCategoryIds, pending.offset().signum() == 0);
+            if (!history.isEmpty()) {
+                saveSamples(index, true, pending.offset().longValue(), history);
+            }
+            cell.setOrgan(organService.getOrCreate((byte[]) info.getFirst().getValue()));
+            categoricalCellRepository.save(cell);
         });
+        syncMetricsService.cellUpdated(true);
+    }
+
+    /**
+     * Adds the calls reading samples offset..sampleLength in pages of zarya.sync.history.page-size, returns their number
+     */
+    private int addHistoryPages(List<Function> calls, BigInteger offset, BigInteger sampleLength,
+                                BinaryOperator<BigInteger> page) {
+        BigInteger pageSize = BigInteger.valueOf(historyPageSize);
+        int pages = 0;
+        for (BigInteger from = offset; from.compareTo(sampleLength) < 0; from = from.add(pageSize)) {
+            calls.add(page.apply(from, sampleLength.subtract(from).min(pageSize)));
+            pages++;
+        }
+        return pages;
+    }
+
+    /**
+     * Concatenates the pages of each history column by column, a history with a reverted page counts as missing
+     */
+    @SuppressWarnings("unchecked")
+    private List<List<Type>> joinHistoryPages(List<List<Type>> pages, List<Integer> pageCounts) {
+        List<List<Type>> histories = new ArrayList<>(pageCounts.size());
+        int next = 0;
+        for (int pageCount : pageCounts) {
+            List<List<Type>> cellPages = pages.subList(next, next + pageCount);
+            next += pageCount;
+            if (cellPages.stream().anyMatch(List::isEmpty)) {
+                histories.add(List.of());
+                continue;
+            }
+            if (pageCount == 1) {
+                histories.add(cellPages.getFirst());
+                continue;
+            }
+            List<Type> history = new ArrayList<>();
+            for (int column = 0; column < cellPages.getFirst().size(); column++) {
+                DynamicArray<Type> first = (DynamicArray<Type>) cellPages.getFirst().get(column);
+                List<Type> values = new ArrayList<>();
+                for (List<Type> cellPage : cellPages) {
+                    values.addAll(((DynamicArray<Type>) cellPage.get(column)).getValue());
+                }
+                history.add(new DynamicArray<>(first.getComponentType(), values));
+            }
+            histories.add(history);
+        }
+        return histories;
+    }
+
+    private long[] categoryIds(List<Uint64> ids) {
+        return ids.stream().mapToLong(v -> v.getValue().longValue()).toArray();
+    }
+
+    /**
+     * Appends the fetched history to the time series of the cell, a history read from the start replaces it
+     */
+    @SuppressWarnings("unchecked")
+    private void saveSamples(CellIndex index, boolean isCategorical, long offset, List<Type> history) {
+        if (offset == 0) {
+            cellSampleRepository.deleteCell(index.x(), index.y(), isCategorical);
+        }
+
+        List<Uint32> timestamps = (List<Uint32>) history.get(0).getValue();
+        List<Address> authors = (List<Address>) history.get(1).getValue();
+        List<Uint64> values = (List<Uint64>) history.get(2).getValue();
+        List<CellSample> samples = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            CellSample sample = new CellSample();
+            sample.setXIndex(index.x());
+            sample.setYIndex(index.y());
+            sample.setCategorical(isCategorical);
+            sample.setSampleIndex(offset + i);
+            sample.setTimestamp(Instant.ofEpochSecond(timestamps.get(i).getValue().longValue()));
+            sample.setAuthor(authors.get(i).getValue());
+            sample.setRawValue(values.get(i).getValue().longValue());
+            samples.add(sample);
+        }
+        cellSampleRepository.saveAll(samples);
+    }
+
+    /**
+     * Makes sure the names of the categories are cached, only unknown ones are read from the contract.
+     * The read runs unlocked, concurrent chunks asking for the same name at worst store it twice
+     */
+    private void resolveCategoryNames(Collection<CategoryKey> keys, long block) throws Exception {
+        if (!categoryNamesLoaded) {
+            synchronized (categoryNamesLock) {
+                if (!categoryNamesLoaded) {
+                    cellCategoryRepository.findAll().forEach(c -> categoryNames.put(
+                            new CategoryKey(c.getXIndex(), c.getYIndex(), c.getCategoryId()), c.getName()));
+                    categoryNamesLoaded = true;
+                }
+            }
+        }
+
+        List<CategoryKey> missing = keys.stream()
+                .filter(k -> !categoryNames.containsKey(k))
+                .toList();
+        if (missing.isEmpty()) return;
+
+        List<List<Type>> results = contractReadService.callFunctions(missing.stream()
+                .map(k -> ZaryaFunctions.getCategoryName(k.x(), k.y(), k.categoryId()))
+                .toList(), at(block));
+        for (int i = 0; i < missing.size(); i++) {
+            String name = stringResult(results.get(i));
+            if (name == null) continue;
+            CategoryKey key = missing.get(i);
+
+            CellCategory category = new CellCategory();
+            category.setXIndex(key.x());
+            category.setYIndex(key.y());
+            category.setCategoryId(key.categoryId());
+            category.setName(name);
+            cellCategoryRepository.save(category);
+            categoryNames.put(key, name);
+        }
+        log.debug("Resolved {} category names", missing.size());
+    }
+
+    /**
+     * Drops the names of the cell from the cache and the table, both are read again when the cell is synchronized
+     */
+    private void invalidateCategoryNames(CellIndex cell) {
+        synchronized (categoryNamesLock) {
+            categoryNames.keySet().removeIf(k -> k.x() == cell.x() && k.y() == cell.y());
+            cellCategoryRepository.deleteCell(cell.x(), cell.y());
+        }
+    }
+
+    private void markPopulated(CellIndex index, boolean isCategorical, long block) {
+        PopulatedCell.PopulatedCellId id = new PopulatedCell.PopulatedCellId(index.x(), index.y(), isCategorical);
+        if (populatedCellRepository.existsById(id)) return;
+        PopulatedCell cell = new PopulatedCell();
+        cell.setXIndex(index.x());
+        cell.setYIndex(index.y());
+        cell.setCategorical(isCategorical);
+        cell.setDiscoveredAtBlock(block);
+        populatedCellRepository.save(cell);
+    }
+
+    private DefaultBlockParameter at(long block) {
+        return DefaultBlockParameter.valueOf(BigInteger.valueOf(block));
     }
 
     private double convertToDouble(BigInteger value, int decimals) {
         return new BigDecimal(value).divide(BigDecimal.TEN.pow(decimals), decimals, RoundingMode.HALF_DOWN).doubleValue();
     }
+
+    private record CellIndex(int x, int y) {
+    }
+
+    private record MatrixIndex(boolean isCategorical, long index) {
+    }
+
+    private record CategoryKey(int x, int y, long categoryId) {
+    }
+
+    private record FetchedChunk(List<Runnable> persists, Exception error) {
+    }
+
+    private record PendingCell<C>(CellIndex index, C cell, List<Type> info, BigInteger offset) {
+    }
+
+    /**
+     * What the events of one incremental run touched, refreshed together at the run's snapshot block
+     */
+    private static final class Changes {
+        private final Set<MatrixIndex> themes = new LinkedHashSet<>();
+        private final Set<MatrixIndex> statements = new LinkedHashSet<>();
+        private final Set<CellIndex> numericalCells = new LinkedHashSet<>();
+        private final Set<CellIndex> categoricalCells = new LinkedHashSet<>();
+        private final List<TrackedVoting> finalizedVotings = new ArrayList<>();
+        // An accepted voting that was created before the tracking started
+        private boolean untrackedAccepted;
+
+        private boolean isEmpty() {
+            return themes.isEmpty() && statements.isEmpty() && numericalCells.isEmpty()
+                    && categoricalCells.isEmpty() && finalizedVotings.isEmpty() && !untrackedAccepted;
+        }
+    }
 }
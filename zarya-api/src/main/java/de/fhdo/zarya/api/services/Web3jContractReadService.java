@@ -1,35 +1,82 @@
 package de.fhdo.zarya.api.services;
 
+import de.fhdo.zarya.api.contracts.Multicall3;
 import de.fhdo.zarya.api.interfaces.services.IContractReadService;
+import de.fhdo.zarya.api.interfaces.services.ISyncMetricsService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.web3j.abi.EventEncoder;
 import org.web3j.abi.FunctionEncoder;
 import org.web3j.abi.FunctionReturnDecoder;
 import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.Event;
 import org.web3j.abi.datatypes.Function;
 import org.web3j.abi.datatypes.Type;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.DefaultBlockParameter;
 import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.EthFilter;
 import org.web3j.protocol.core.methods.request.Transaction;
 import org.web3j.protocol.core.methods.response.EthCall;
-import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Numeric;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 
 @SuppressWarnings("rawtypes")
 @Slf4j
 @Service
 public class Web3jContractReadService implements IContractReadService {
 
-    @Value("${ethereum.rpc.url:http://localhost:8545}")
-    private String rpcUrl;
+    private final Web3j web3j;
+    private final ISyncMetricsService syncMetricsService;
 
     @Value("${zarya.address}")
     private String zaryaContractAddress;
 
+    @Value("${ethereum.rpc.batch.size:50}")
+    private int rpcBatchSize;
+
+    @Value("${zarya.multicall.address:" + Multicall3.DEFAULT_ADDRESS + "}")
+    private String multicallAddress;
+
+    @Value("${zarya.multicall.batch.size:100}")
+    private int multicallBatchSize;
+
+    // Upper bound of zarya.multicall.batch.size, larger aggregates risk the gas limit of eth_call
+    private static final int MAX_MULTICALL_BATCH_SIZE = 200;
+
+    // Resolved lazily, a fresh local node usually has no Multicall3 deployed
+    private volatile Boolean multicallAvailable;
+
+    // Bounds the requests in flight to the provider, however many threads read
+    private final Semaphore rpcPermits;
+
+    public Web3jContractReadService(Web3j web3j,
+                                    ISyncMetricsService syncMetricsService,
+                                    @Value("${ethereum.rpc.max-concurrency:8}") int maxConcurrency) {
+        this.web3j = web3j;
+        this.syncMetricsService = syncMetricsService;
+        this.rpcPermits = new Semaphore(maxConcurrency, true);
+    }
+
     /**
      * Call a read-only contract function
      */
@@ -39,42 +86,283 @@ public class Web3jContractReadService implements IContractReadService {
             List<Type> inputParameters,
             List<TypeReference<?>> outputParameters) throws Exception {
 
-        Function function;
-        EthCall ethCall;
-        try (Web3j web3j = Web3j.build(new HttpService(rpcUrl))) {
+        // Create function
+        Function function = new Function(
+                functionName,
+                inputParameters,
+                outputParameters
+        );
 
-            // Create function
-            function = new Function(
-                    functionName,
-                    inputParameters,
-                    outputParameters
-            );
+        return call(function);
+    }
 
-            // Encode function call
-            String encodedFunction = FunctionEncoder.encode(function);
+    /**
+     * Call several read-only contract functions through Multicall3 aggregate3, one eth_call per batch
+     */
+    @Override
+    public List<List<Type>> callFunctions(List<Function> functions) throws Exception {
+        return callFunctions(functions, DefaultBlockParameterName.LATEST);
+    }
+
+    @Override
+    public List<List<Type>> callFunctions(List<Function> functions, DefaultBlockParameter block) throws Exception {
+        if (functions.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-            // Create transaction
-            Transaction transaction = Transaction.createEthCallTransaction(
-                    null,
-                    zaryaContractAddress,
-                    encodedFunction
-            );
+        if (!isMulticallAvailable()) {
+            // Without Multicall3 the calls still share HTTP requests as JSON-RPC batches
+            return join(functions, submitFunctions(functions, block));
+        }
 
-            // Execute call
-            ethCall = web3j.ethCall(transaction, DefaultBlockParameterName.LATEST).send();
+        // Every subcall of an aggregate shares the gas limit of one eth_call, so the batch stays bounded
+        int batchSize = Math.min(multicallBatchSize, MAX_MULTICALL_BATCH_SIZE);
+        List<List<Type>> results = new ArrayList<>(functions.size());
+        for (int from = 0; from < functions.size(); from += batchSize) {
+            List<Function> batch = functions.subList(from, Math.min(from + batchSize, functions.size()));
+            results.addAll(aggregate(batch, block));
         }
+        return results;
+    }
 
-        if (ethCall.hasError()) {
-            throw new RuntimeException("Error calling contract function: " + ethCall.getError().getMessage());
+    /**
+     * Wait for submitted calls, only a revert means the slot is empty
+     */
+    private List<List<Type>> join(List<Function> functions, List<CompletableFuture<List<Type>>> futures)
+            throws Exception {
+        List<List<Type>> results = new ArrayList<>(functions.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).join());
+            } catch (CompletionException e) {
+                // Provider errors must fail the run so it is retried
+                if (!(e.getCause() instanceof CallRevertedException)) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+                log.debug("Call {} reverted: {}", functions.get(i).getName(), e.getCause().getMessage());
+                results.add(Collections.emptyList());
+            }
         }
+        return results;
+    }
 
-        String value = ethCall.getValue();
+    /**
+     * Send eth_calls as JSON-RPC 2.0 batches of ethereum.rpc.batch.size, responses are matched back by id
+     */
+    @Override
+    public List<CompletableFuture<List<Type>>> submitFunctions(List<Function> functions) {
+        return submitFunctions(functions, DefaultBlockParameterName.LATEST);
+    }
+
+    @Override
+    public List<CompletableFuture<List<Type>>> submitFunctions(List<Function> functions, DefaultBlockParameter block) {
+        List<CompletableFuture<List<Type>>> futures = new ArrayList<>(functions.size());
+        for (int from = 0; from < functions.size(); from += rpcBatchSize) {
+            futures.addAll(submitBatch(functions.subList(from, Math.min(from + rpcBatchSize, functions.size())), block));
+        }
+        return futures;
+    }
+
+    private List<CompletableFuture<List<Type>>> submitBatch(List<Function> batch, DefaultBlockParameter block) {
+        BatchRequest batchRequest = web3j.newBatch();
+        Map<Long, CompletableFuture<List<Type>>> futuresById = new HashMap<>();
+        Map<Long, Function> functionsById = new HashMap<>();
+        List<CompletableFuture<List<Type>>> futures = new ArrayList<>(batch.size());
+
+        for (Function function : batch) {
+            Request<?, EthCall> request = web3j.ethCall(
+                    Transaction.createEthCallTransaction(null, zaryaContractAddress, FunctionEncoder.encode(function)),
+                    block);
+            batchRequest.add(request);
+
+            CompletableFuture<List<Type>> future = new CompletableFuture<>();
+            futuresById.put(request.getId(), future);
+            functionsById.put(request.getId(), function);
+            futures.add(future);
+        }
+
+        acquirePermit();
+        long started = System.nanoTime();
+        batchRequest.sendAsync().whenComplete((batchResponse, error) -> {
+            rpcPermits.release();
+            try {
+                long nanos = System.nanoTime() - started;
+                functionsById.values().forEach(function -> syncMetricsService.rpcCall(function.getName(), nanos));
+                if (error != null) {
+                    futuresById.values().forEach(f -> f.completeExceptionally(error));
+                    return;
+                }
+                for (Response<?> response : batchResponse.getResponses()) {
+                    CompletableFuture<List<Type>> future = futuresById.get(response.getId());
+                    if (future == null) {
+                        continue;
+                    }
+                    try {
+                        if (response.hasError()) {
+                            future.completeExceptionally(callError(response.getError()));
+                        } else {
+                            String value = ((EthCall) response).getValue();
+                            future.complete(FunctionReturnDecoder.decode(
+                                    value, functionsById.get(response.getId()).getOutputParameters()));
+                        }
+                    } catch (RuntimeException e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            } catch (RuntimeException e) {
+                futuresById.values().forEach(f -> f.completeExceptionally(e));
+            } finally {
+                // Whatever is still open got no response, its caller must not wait forever
+                futuresById.values().forEach(f -> f.completeExceptionally(
+                        new RuntimeException("No response in JSON-RPC batch")));
+            }
+        });
+        log.debug("Submitted {} eth_calls as one JSON-RPC batch", batch.size());
+        return futures;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Type>> aggregate(List<Function> batch, DefaultBlockParameter block) throws Exception {
+        List<Multicall3.Call3> calls = new ArrayList<>(batch.size());
+        for (Function function : batch) {
+            calls.add(new Multicall3.Call3(
+                    new Address(zaryaContractAddress),
+                    new Bool(true),
+                    new DynamicBytes(Numeric.hexStringToByteArray(FunctionEncoder.encode(function)))
+            ));
+        }
+
+        Function aggregate3 = Multicall3.aggregate3(calls);
+        String value = ethCall(multicallAddress, aggregate3, block);
+        List<Type> decoded = FunctionReturnDecoder.decode(value, aggregate3.getOutputParameters());
+        if (decoded.isEmpty()) {
+            throw new RuntimeException("Empty response from Multicall3 at " + multicallAddress);
+        }
+
+        List<Multicall3.Result> returned = (List<Multicall3.Result>) decoded.getFirst().getValue();
+        List<List<Type>> results = new ArrayList<>(batch.size());
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Multicall3.Result result = returned.get(i);
+            if (!result.success) {
+                failed.add(i);
+                results.add(Collections.emptyList());
+                continue;
+            }
+            results.add(FunctionReturnDecoder.decode(
+                    Numeric.toHexString(result.returnData),
+                    batch.get(i).getOutputParameters()));
+        }
+        log.debug("Aggregated {} calls into one eth_call", batch.size());
+
+        // A failed subcall may have run out of the shared gas rather than reverted, it is retried on its own
+        if (!failed.isEmpty()) {
+            log.debug("Retrying {} failed aggregated calls singly", failed.size());
+            List<Function> retried = failed.stream().map(batch::get).toList();
+            List<List<Type>> retriedResults = join(retried, submitFunctions(retried, block));
+            for (int i = 0; i < failed.size(); i++) {
+                results.set(failed.get(i), retriedResults.get(i));
+            }
+        }
+        return results;
+    }
+
+    private List<Type> call(Function function) throws Exception {
+        String value = ethCall(zaryaContractAddress, function, DefaultBlockParameterName.LATEST);
         log.debug("Contract call result: {}", value);
 
         // Decode response
         return FunctionReturnDecoder.decode(value, function.getOutputParameters());
     }
 
+    private boolean isMulticallAvailable() throws Exception {
+        if (multicallAvailable == null) {
+            String code = send(web3j.ethGetCode(multicallAddress, DefaultBlockParameterName.LATEST)).getCode();
+            multicallAvailable = code != null && !Numeric.cleanHexPrefix(code).isEmpty();
+            if (!multicallAvailable) {
+                log.warn("No Multicall3 contract at {}, batched reads fall back to single calls", multicallAddress);
+            }
+        }
+        return multicallAvailable;
+    }
+
+    private String ethCall(String to, Function function, DefaultBlockParameter block) throws Exception {
+        // Create transaction
+        Transaction transaction = Transaction.createEthCallTransaction(
+                null,
+                to,
+                FunctionEncoder.encode(function)
+        );
+
+        // Execute call over the shared, pooled client
+        long started = System.nanoTime();
+        EthCall ethCall = send(web3j.ethCall(transaction, block));
+        long nanos = System.nanoTime() - started;
+        syncMetricsService.rpcCall(function.getName(), nanos);
+        log.debug("eth_call {} to {} took {} ms", function.getName(), to, nanos / 1_000_000);
+
+        if (ethCall.hasError()) {
+            throw callError(ethCall.getError());
+        }
+
+        return ethCall.getValue();
+    }
+
+    /**
+     * Reverts are told apart from provider errors by the error code 3 of geth and the message of other clients
+     */
+    private static RuntimeException callError(Response.Error error) {
+        String message = error.getMessage() == null ? "" : error.getMessage();
+        if (error.getCode() == 3 || message.toLowerCase().contains("execution reverted")) {
+            return new CallRevertedException(message);
+        }
+        return new RuntimeException("Error calling contract function: " + message);
+    }
+
+    private <T extends Response<?>> T send(Request<?, T> request) throws IOException {
+        acquirePermit();
+        try {
+            return request.send();
+        } finally {
+            rpcPermits.release();
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            rpcPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an RPC permit", e);
+        }
+    }
+
+    @Override
+    public BigInteger getBlockNumber() throws Exception {
+        return send(web3j.ethBlockNumber()).getBlockNumber();
+    }
+
+    @Override
+    public List<Log> getLogs(BigInteger fromBlock, BigInteger toBlock, List<Event> events) throws Exception {
+        EthFilter filter = new EthFilter(
+                DefaultBlockParameter.valueOf(fromBlock),
+                DefaultBlockParameter.valueOf(toBlock),
+                zaryaContractAddress
+        );
+        // A list in the first topic position matches any of the event signatures
+        filter.addOptionalTopics(events.stream().map(EventEncoder::encode).toArray(String[]::new));
+
+        EthLog ethLog = send(web3j.ethGetLogs(filter));
+        if (ethLog.hasError()) {
+            throw new RuntimeException("Error getting logs: " + ethLog.getError().getMessage());
+        }
+
+        log.debug("Fetched {} logs in blocks {}..{}", ethLog.getLogs().size(), fromBlock, toBlock);
+        return ethLog.getLogs().stream()
+                .map(result -> (Log) result.get())
+                .toList();
+    }
+
     @Override
     public String callStringGetter(String functionName) throws Exception {
         List<Type> result = callFunction(
@@ -104,4 +392,10 @@ public class Web3jContractReadService implements IContractReadService {
 
         return (BigInteger) result.getFirst().getValue();
     }
+
+    private static final class CallRevertedException extends RuntimeException {
+        CallRevertedException(String message) {
+            super("Call reverted: " + message);
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package de.fhdo.zarya.api.statistics;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Votes per category id as two parallel arrays, a cell only has a handful of categories so lookups stay linear
+ */
+@Getter
+public final class CategoryCounts {
+    private long[] categoryIds;
+    private long[] counts;
+
+    public CategoryCounts() {
+        this(new long[0], new long[0]);
+    }
+
+    public CategoryCounts(long[] categoryIds, long[] counts) {
+        this.categoryIds = categoryIds;
+        this.counts = counts;
+    }
+
+    public void add(long categoryId) {
+        for (int i = 0; i < categoryIds.length; i++) {
+            if (categoryIds[i] == categoryId) {
+                counts[i]++;
+                return;
+            }
+        }
+        categoryIds = Arrays.copyOf(categoryIds, categoryIds.length + 1);
+        counts = Arrays.copyOf(counts, counts.length + 1);
+        categoryIds[categoryIds.length - 1] = categoryId;
+        counts[counts.length - 1] = 1;
+    }
+
+    public void addAll(long[] categoryIds) {
+        for (long categoryId : categoryIds) {
+            add(categoryId);
+        }
+    }
+
+    public void merge(CategoryCounts other) {
+        for (int i = 0; i < other.categoryIds.length; i++) {
+            long categoryId = other.categoryIds[i];
+            int position = indexOf(categoryId);
+            if (position < 0) {
+                add(categoryId);
+                position = categoryIds.length - 1;
+                counts[position] = 0;
+            }
+            counts[position] += other.counts[i];
+        }
+    }
+
+    public long countOf(long categoryId) {
+        int position = indexOf(categoryId);
+        return position < 0 ? 0 : counts[position];
+    }
+
+    private int indexOf(long categoryId) {
+        for (int i = 0; i < categoryIds.length; i++) {
+            if (categoryIds[i] == categoryId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
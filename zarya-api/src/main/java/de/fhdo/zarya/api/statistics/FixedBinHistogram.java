@@ -0,0 +1,65 @@
+package de.fhdo.zarya.api.statistics;
+
+import lombok.Getter;
+
+/**
+ * Equal-width bins over [min, max) with one underflow and one overflow bin in front and at the end.
+ * Histograms over the same bounds and bin count merge by adding their counts
+ */
+@Getter
+public final class FixedBinHistogram {
+    private final double min;
+    private final double max;
+    private final long[] counts;
+
+    public FixedBinHistogram(double min, double max, int bins) {
+        this(min, max, new long[bins + 2]);
+    }
+
+    public FixedBinHistogram(double min, double max, long[] counts) {
+        if (!(max > min) || counts.length < 3) {
+            throw new IllegalArgumentException("Histogram needs max > min and at least one bin");
+        }
+        this.min = min;
+        this.max = max;
+        this.counts = counts;
+    }
+
+    public void add(double value) {
+        int bins = counts.length - 2;
+        if (value < min) {
+            counts[0]++;
+        } else if (value >= max) {
+            counts[counts.length - 1]++;
+        } else {
+            counts[1 + Math.min(bins - 1, (int) ((value - min) / (max - min) * bins))]++;
+        }
+    }
+
+    public void addAll(double[] values) {
+        for (double value : values) {
+            add(value);
+        }
+    }
+
+    public boolean isCompatible(FixedBinHistogram other) {
+        return min == other.min && max == other.max && counts.length == other.counts.length;
+    }
+
+    public void merge(FixedBinHistogram other) {
+        if (!isCompatible(other)) {
+            throw new IllegalArgumentException("Histograms with different bins can not be merged");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    /**
+     * Lower bound of the bin, the underflow bin starts at negative infinity
+     */
+    public double lowerBound(int bin) {
+        if (bin == 0) return Double.NEGATIVE_INFINITY;
+        return min + (max - min) * (bin - 1) / (counts.length - 2);
+    }
+}
@@ -0,0 +1,114 @@
+package de.fhdo.zarya.api.statistics;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Merges the statistics of many cells per cell, theme (x), statement (y), organ and overall with Chan's formula,
+ * the samples themselves are never read again. Ranges of cells are split fork-join style and the partial
+ * aggregates merged on the way back
+ */
+public final class MatrixAggregation {
+    private final ForkJoinPool pool;
+    private final int cellsPerTask;
+
+    public MatrixAggregation(ForkJoinPool pool, int cellsPerTask) {
+        this.pool = pool;
+        this.cellsPerTask = Math.max(1, cellsPerTask);
+    }
+
+    public Result aggregate(List<CellSummary> cells) {
+        return pool.invoke(new AggregateTask(cells, 0, cells.size()));
+    }
+
+    /**
+     * Statistics of one cell, organId may be null
+     */
+    public record CellSummary(int x, int y, Long organId, RunningStatistics statistics) {
+
+        /**
+         * Summary of cells without precomputed statistics
+         */
+        public static CellSummary of(int x, int y, Long organId, double[] values) {
+            RunningStatistics statistics = new RunningStatistics();
+            statistics.addAll(values);
+            return new CellSummary(x, y, organId, statistics);
+        }
+    }
+
+    @Getter
+    public static final class Result {
+        private final RunningStatistics overall = new RunningStatistics();
+        private final Map<Long, RunningStatistics> byCell = new HashMap<>();
+        private final Map<Integer, RunningStatistics> byTheme = new HashMap<>();
+        private final Map<Integer, RunningStatistics> byStatement = new HashMap<>();
+        private final Map<Long, RunningStatistics> byOrgan = new HashMap<>();
+
+        /**
+         * Key of a cell in byCell
+         */
+        public static long cellKey(int x, int y) {
+            return ((long) x << 32) | (y & 0xffffffffL);
+        }
+
+        private void add(CellSummary cell) {
+            RunningStatistics statistics = cell.statistics();
+            if (statistics.getCount() == 0) return;
+
+            merge(byCell, cellKey(cell.x(), cell.y()), statistics);
+            merge(byTheme, cell.x(), statistics);
+            merge(byStatement, cell.y(), statistics);
+            if (cell.organId() != null) {
+                merge(byOrgan, cell.organId(), statistics);
+            }
+            overall.merge(statistics);
+        }
+
+        private void merge(Result other) {
+            other.byCell.forEach((key, statistics) -> merge(byCell, key, statistics));
+            other.byTheme.forEach((key, statistics) -> merge(byTheme, key, statistics));
+            other.byStatement.forEach((key, statistics) -> merge(byStatement, key, statistics));
+            other.byOrgan.forEach((key, statistics) -> merge(byOrgan, key, statistics));
+            overall.merge(other.overall);
+        }
+
+        private static <K> void merge(Map<K, RunningStatistics> groups, K key, RunningStatistics statistics) {
+            groups.computeIfAbsent(key, k -> new RunningStatistics()).merge(statistics);
+        }
+    }
+
+    private final class AggregateTask extends RecursiveTask<Result> {
+        private final List<CellSummary> cells;
+        private final int from;
+        private final int to;
+
+        private AggregateTask(List<CellSummary> cells, int from, int to) {
+            this.cells = cells;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= cellsPerTask) {
+                Result result = new Result();
+                for (int i = from; i < to; i++) {
+                    result.add(cells.get(i));
+                }
+                return result;
+            }
+
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(cells, from, middle);
+            left.fork();
+            Result result = new AggregateTask(cells, middle, to).compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.fhdo.zarya.api.statistics;
+
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * t-digest quantile sketches, a few KB per cell whatever the length of its history, kept in their small byte form
+ */
+public final class QuantileSketches {
+
+    private QuantileSketches() {
+    }
+
+    public static TDigest create(double compression) {
+        return new MergingDigest(compression);
+    }
+
+    public static TDigest fromBytes(byte[] bytes) {
+        return MergingDigest.fromBytes(ByteBuffer.wrap(bytes));
+    }
+
+    public static byte[] toBytes(TDigest digest) {
+        ByteBuffer buffer = ByteBuffer.allocate(digest.smallByteSize());
+        digest.asSmallBytes(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * One sketch over all the given ones, as for matrix or organ wide percentiles
+     */
+    public static TDigest merge(Collection<byte[]> sketches, double compression) {
+        TDigest merged = create(compression);
+        for (byte[] sketch : sketches) {
+            merged.add(fromBytes(sketch));
+        }
+        return merged;
+    }
+
+    /**
+     * Quantiles at q in [0, 1], NaN for an empty sketch
+     */
+    public static double[] quantiles(TDigest digest, double[] q) {
+        double[] quantiles = new double[q.length];
+        for (int i = 0; i < q.length; i++) {
+            quantiles[i] = digest.size() == 0 ? Double.NaN : digest.quantile(q[i]);
+        }
+        return quantiles;
+    }
+}
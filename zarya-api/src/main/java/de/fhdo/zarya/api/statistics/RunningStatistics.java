@@ -0,0 +1,83 @@
+package de.fhdo.zarya.api.statistics;
+
+import lombok.Getter;
+
+/**
+ * Mergeable summary of a stream of values: Welford's update per value and Chan's formula to merge two summaries,
+ * so appending samples or combining cells never needs the values again
+ */
+@Getter
+public final class RunningStatistics {
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+    private double mean;
+    // Sum of squared differences from the mean
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public RunningStatistics() {
+    }
+
+    public RunningStatistics(long count, double sum, double sumOfSquares, double mean, double m2, double min, double max) {
+        this.count = count;
+        this.sum = sum;
+        this.sumOfSquares = sumOfSquares;
+        this.mean = mean;
+        this.m2 = m2;
+        this.min = min;
+        this.max = max;
+    }
+
+    public void add(double value) {
+        count++;
+        sum += value;
+        sumOfSquares += value * value;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void addAll(double[] values) {
+        for (double value : values) {
+            add(value);
+        }
+    }
+
+    public void merge(RunningStatistics other) {
+        if (other.count == 0) return;
+        if (count == 0) {
+            count = other.count;
+            sum = other.sum;
+            sumOfSquares = other.sumOfSquares;
+            mean = other.mean;
+            m2 = other.m2;
+            min = other.min;
+            max = other.max;
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        count = total;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Population variance, as the report always showed it
+     */
+    public double getVariance() {
+        return count == 0 ? 0.0 : m2 / count;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+}
@@ -0,0 +1,47 @@
+package de.fhdo.zarya.api.contracts;
+
+import org.junit.jupiter.api.Test;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Multicall3Test {
+
+    @Test
+    void aggregate3UsesTheDeployedSelector() {
+        Function aggregate3 = Multicall3.aggregate3(List.of(new Multicall3.Call3(
+                new Address(Multicall3.DEFAULT_ADDRESS), new Bool(true), new DynamicBytes(new byte[]{1, 2, 3, 4}))));
+
+        assertTrue(FunctionEncoder.encode(aggregate3).startsWith("0x82ad56cb"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resultsDecodeWithTheirSuccessFlags() {
+        String returned = "0x" + FunctionEncoder.encodeConstructor(List.of(new DynamicArray<>(Multicall3.Result.class,
+                new Multicall3.Result(new Bool(true), new DynamicBytes(new byte[]{42})),
+                new Multicall3.Result(new Bool(false), new DynamicBytes(new byte[0])))));
+        Function aggregate3 = Multicall3.aggregate3(List.of());
+
+        List<Type> decoded = FunctionReturnDecoder.decode(returned, aggregate3.getOutputParameters());
+        List<Multicall3.Result> results = (List<Multicall3.Result>) decoded.getFirst().getValue();
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).success);
+        assertArrayEquals(new byte[]{42}, results.get(0).returnData);
+        assertFalse(results.get(1).success);
+        assertEquals(0, results.get(1).returnData.length);
+    }
+}
@@ -0,0 +1,78 @@
+package de.fhdo.zarya.api.contracts;
+
+import org.junit.jupiter.api.Test;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.abi.datatypes.generated.Uint8;
+import org.web3j.crypto.Hash;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ZaryaEventsTest {
+
+    @Test
+    void topicsAreTheHashesOfTheSolidityEventSignatures() {
+        assertEquals(Hash.sha3String("ValueAdded(uint256,uint256,uint64,address)"), ZaryaEvents.VALUE_ADDED_TOPIC);
+        assertEquals(Hash.sha3String("CategoryAdded(uint256,uint256,uint64)"), ZaryaEvents.CATEGORY_ADDED_TOPIC);
+        assertEquals(Hash.sha3String("ThemeVotingCreated(uint256,bool,uint256,string)"),
+                ZaryaEvents.THEME_VOTING_CREATED_TOPIC);
+        assertEquals(Hash.sha3String("StatementVotingCreated(uint256,bool,uint256,uint256,string)"),
+                ZaryaEvents.STATEMENT_VOTING_CREATED_TOPIC);
+        assertEquals(Hash.sha3String("DecimalsVotingCreated(uint256,bytes32,uint256,uint256,uint8)"),
+                ZaryaEvents.DECIMALS_VOTING_CREATED_TOPIC);
+        assertEquals(Hash.sha3String("VotingFinalized(uint256,bool,uint256,uint256)"),
+                ZaryaEvents.VOTING_FINALIZED_TOPIC);
+    }
+
+    @Test
+    void statementVotingDataDecodesWithoutTheIndexedVotingId() {
+        String data = "0x" + FunctionEncoder.encodeConstructor(List.of(
+                new Bool(true), new Uint256(3), new Uint256(5), new Utf8String("Годовой план")));
+
+        List<Type> decoded = FunctionReturnDecoder.decode(data,
+                ZaryaEvents.STATEMENT_VOTING_CREATED.getNonIndexedParameters());
+
+        assertEquals(4, decoded.size());
+        assertEquals(true, decoded.get(0).getValue());
+        assertEquals(BigInteger.valueOf(3), decoded.get(1).getValue());
+        assertEquals(BigInteger.valueOf(5), decoded.get(2).getValue());
+        assertEquals("Годовой план", decoded.get(3).getValue());
+    }
+
+    @Test
+    void decimalsVotingDataCarriesTheOrganHash() {
+        byte[] organ = Hash.sha3("ПРЛ".getBytes(StandardCharsets.UTF_8));
+        String data = "0x" + FunctionEncoder.encodeConstructor(List.of(
+                new Bytes32(organ), new Uint256(2), new Uint256(7), new Uint8(4)));
+
+        List<Type> decoded = FunctionReturnDecoder.decode(data,
+                ZaryaEvents.DECIMALS_VOTING_CREATED.getNonIndexedParameters());
+
+        assertArrayEquals(organ, (byte[]) decoded.get(0).getValue());
+        assertEquals(BigInteger.valueOf(2), decoded.get(1).getValue());
+        assertEquals(BigInteger.valueOf(7), decoded.get(2).getValue());
+        assertEquals(BigInteger.valueOf(4), decoded.get(3).getValue());
+    }
+
+    @Test
+    void votingFinalizedDataStartsWithTheOutcome() {
+        String data = "0x" + FunctionEncoder.encodeConstructor(List.of(
+                new Bool(false), new Uint256(1), new Uint256(9)));
+
+        List<Type> decoded = FunctionReturnDecoder.decode(data,
+                ZaryaEvents.VOTING_FINALIZED.getNonIndexedParameters());
+
+        assertEquals(false, decoded.getFirst().getValue());
+        assertEquals(BigInteger.valueOf(9), decoded.get(2).getValue());
+    }
+}
@@ -0,0 +1,44 @@
+package de.fhdo.zarya.api.forecasting;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class CategoricalDriftTest {
+
+    @Test
+    void sharesDecayOlderVotes() {
+        CategoricalDrift drift = new CategoricalDrift(0.5);
+        drift.addAll(new long[]{1, 2, 1});
+
+        assertArrayEquals(new long[]{1, 2}, drift.getCategoryIds());
+        assertArrayEquals(new double[]{0.625, 0.25}, drift.getFrequencies(), 1e-12);
+        assertArrayEquals(new double[]{0.625 / 0.875, 0.25 / 0.875}, drift.shares(), 1e-12);
+    }
+
+    @Test
+    void nextFollowsTheTransitionsOutOfTheLastVote() {
+        CategoricalDrift drift = new CategoricalDrift(0.5);
+        drift.addAll(new long[]{1, 2, 1});
+
+        assertArrayEquals(new double[]{0, 1}, drift.next(), 1e-12);
+    }
+
+    @Test
+    void newCategoriesKeepEarlierTransitions() {
+        CategoricalDrift drift = new CategoricalDrift(0.5);
+        drift.addAll(new long[]{1, 2, 1, 3});
+
+        assertArrayEquals(new double[]{
+                0, 1, 1,
+                1, 0, 0,
+                0, 0, 0}, drift.getTransitions(), 1e-12);
+        // Nothing followed the new category yet, the shares stand in
+        assertArrayEquals(drift.shares(), drift.next(), 1e-12);
+    }
+
+    @Test
+    void nothingIsPredictedBeforeTheFirstVote() {
+        assertArrayEquals(new double[0], new CategoricalDrift(0.5).next());
+    }
+}
@@ -0,0 +1,42 @@
+package de.fhdo.zarya.api.forecasting;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HoltSmoothingTest {
+
+    @Test
+    void linearSamplesAreForecastExactly() {
+        HoltSmoothing smoothing = new HoltSmoothing(0.3, 0.2);
+        smoothing.addAll(new double[]{1, 2, 3, 4});
+
+        assertEquals(4, smoothing.getLevel(), 1e-12);
+        assertEquals(1, smoothing.getTrend(), 1e-12);
+        assertEquals(6, smoothing.forecast(2), 1e-12);
+    }
+
+    @Test
+    void ewmaWeighsTheLatestSampleByAlpha() {
+        HoltSmoothing smoothing = new HoltSmoothing(0.5, 0.5);
+        smoothing.addAll(new double[]{2, 4, 8});
+
+        assertEquals(5.5, smoothing.getEwma(), 1e-12);
+        assertEquals(3, smoothing.getCount());
+    }
+
+    @Test
+    void appendingResumesFromTheStoredState() {
+        HoltSmoothing all = new HoltSmoothing(0.4, 0.3);
+        all.addAll(new double[]{5, 3, 8, 7, 12});
+
+        HoltSmoothing first = new HoltSmoothing(0.4, 0.3);
+        first.addAll(new double[]{5, 3, 8});
+        HoltSmoothing resumed = new HoltSmoothing(0.4, 0.3, first.getCount(), first.getEwma(), first.getLevel(),
+                first.getTrend());
+        resumed.addAll(new double[]{7, 12});
+
+        assertEquals(all.getEwma(), resumed.getEwma(), 1e-12);
+        assertEquals(all.forecast(1), resumed.forecast(1), 1e-12);
+    }
+}
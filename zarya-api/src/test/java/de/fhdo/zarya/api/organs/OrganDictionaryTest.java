@@ -0,0 +1,69 @@
+package de.fhdo.zarya.api.organs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrganDictionaryTest {
+
+    @Test
+    void findsEveryKeyInUnsignedOrder() {
+        // Keys differing only in the sign bit of a byte, in the first and in the last word
+        byte[][] keys = {key(0x80, 0), key(0x7F, 0), key(0x00, 0xFF), key(0x00, 0x01), key(0xFF, 0xFF)};
+        int[] organs = {10, 11, 12, 13, 14};
+        String[] identifiers = {"ПРЛ", "СОВ", "77.1", "77.2", "СЗД"};
+
+        try (Arena arena = Arena.ofConfined()) {
+            OrganDictionary dictionary = OrganDictionary.of(OrganDictionary.build(1, keys, organs, identifiers, arena));
+
+            assertEquals(keys.length, dictionary.size());
+            for (int i = 0; i < keys.length; i++) {
+                int position = dictionary.find(keys[i]);
+                assertTrue(position >= 0);
+                assertEquals(organs[i], dictionary.organ(position));
+                assertEquals(identifiers[i], dictionary.identifier(position));
+            }
+            assertEquals(OrganDictionary.NOT_FOUND, dictionary.find(key(0x80, 1)));
+            assertEquals(OrganDictionary.NOT_FOUND, dictionary.find(new byte[]{1, 2, 3}));
+        }
+    }
+
+    @Test
+    void emptyDictionaryFindsNothing() {
+        try (Arena arena = Arena.ofConfined()) {
+            OrganDictionary dictionary = OrganDictionary.of(
+                    OrganDictionary.build(1, new byte[0][], new int[0], new String[0], arena));
+
+            assertEquals(OrganDictionary.NOT_FOUND, dictionary.find(key(0, 0)));
+        }
+    }
+
+    @Test
+    void mapsOnlyAFileBuiltForTheFingerprint(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("organs.bin");
+        try (Arena arena = Arena.ofConfined()) {
+            OrganDictionary.write(file, OrganDictionary.build(42,
+                    new byte[][]{key(1, 2)}, new int[]{7}, new String[]{"01.3"}, arena));
+
+            Optional<OrganDictionary> mapped = OrganDictionary.map(file, 42, arena);
+            assertTrue(mapped.isPresent());
+            assertEquals("01.3", mapped.get().identifier(mapped.get().find(key(1, 2))));
+            assertTrue(OrganDictionary.map(file, 43, arena).isEmpty());
+            assertTrue(OrganDictionary.map(directory.resolve("missing.bin"), 42, arena).isEmpty());
+        }
+    }
+
+    private static byte[] key(int first, int last) {
+        byte[] key = new byte[OrganDictionary.KEY_SIZE];
+        key[0] = (byte) first;
+        key[OrganDictionary.KEY_SIZE - 1] = (byte) last;
+        return key;
+    }
+}
@@ -0,0 +1,131 @@
+package de.fhdo.zarya.api.readmodel;
+
+import de.fhdo.zarya.api.persistance.models.CategoricalCell;
+import de.fhdo.zarya.api.persistance.models.NumericalCell;
+import de.fhdo.zarya.api.persistance.models.Organ;
+import de.fhdo.zarya.api.statistics.MatrixAggregation;
+import de.fhdo.zarya.api.statistics.RunningStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixSnapshotTest {
+
+    @Test
+    void cellsAreFoundWhateverOrderTheyWereGivenIn() {
+        List<NumericalCell> cells = new ArrayList<>();
+        // Negative indexes sort before the positive ones in the signed key
+        for (int x = 3; x >= -1; x--) {
+            for (int y = 4; y >= 0; y--) {
+                cells.add(numerical(x, y, null, x * 10.0 + y));
+            }
+        }
+
+        try (Arena arena = Arena.ofConfined()) {
+            MatrixSnapshot snapshot = MatrixSnapshot.build(42, cells, List.of(), arena);
+
+            assertEquals(42, snapshot.getBlock());
+            assertEquals(25, snapshot.numericalCount());
+            for (NumericalCell cell : cells) {
+                NumericalCell found = snapshot.numericalCell(cell.getXIndex(), cell.getYIndex()).orElseThrow();
+                assertArrayEquals(cell.getValue(), found.getValue());
+            }
+            assertTrue(snapshot.numericalCell(4, 0).isEmpty());
+            assertTrue(snapshot.numericalCell(0, 5).isEmpty());
+            assertTrue(snapshot.categoricalCell(0, 0).isEmpty());
+        }
+    }
+
+    @Test
+    void pagesFollowTheCellOrder() {
+        List<NumericalCell> cells = List.of(numerical(2, 0, null, 1), numerical(0, 1, null, 2),
+                numerical(0, 0, null, 3), numerical(1, 5, null, 4));
+
+        try (Arena arena = Arena.ofConfined()) {
+            MatrixSnapshot snapshot = MatrixSnapshot.build(1, cells, List.of(), arena);
+
+            assertEquals(List.of(List.of(0, 1), List.of(1, 5)), snapshot.numericalCells(1, 2).stream()
+                    .map(cell -> List.of(cell.getXIndex(), cell.getYIndex()))
+                    .toList());
+            assertEquals(1, snapshot.numericalCells(3, 10).size());
+            assertTrue(snapshot.numericalCells(4, 10).isEmpty());
+        }
+    }
+
+    @Test
+    void statisticsArePrecomputedPerCell() {
+        Organ organ = new Organ();
+        organ.setId(0L);
+        organ.setName("СЗД");
+        List<NumericalCell> cells = List.of(numerical(0, 0, organ, 1, 2, 6), numerical(0, 1, null),
+                numerical(1, 0, null, -4));
+
+        try (Arena arena = Arena.ofConfined()) {
+            MatrixSnapshot snapshot = MatrixSnapshot.build(1, cells, List.of(), arena);
+
+            RunningStatistics statistics = snapshot.numericalStatistics(0, 0).orElseThrow();
+            assertEquals(3, statistics.getCount());
+            assertEquals(3, statistics.getMean(), 1e-12);
+            assertEquals(14.0 / 3, statistics.getVariance(), 1e-12);
+            assertEquals(1, statistics.getMin());
+            assertEquals(6, statistics.getMax());
+            assertEquals(0, snapshot.numericalStatistics(0, 1).orElseThrow().getCount());
+            assertTrue(snapshot.numericalStatistics(5, 5).isEmpty());
+
+            List<MatrixAggregation.CellSummary> summaries = snapshot.numericalSummaries();
+            assertEquals(3, summaries.size());
+            // An organ with id 0 is still an organ, a cell without one has none
+            assertEquals(Long.valueOf(0), summaries.getFirst().organId());
+            assertNull(summaries.get(1).organId());
+            assertEquals(-4, summaries.get(2).statistics().getMean());
+            assertEquals("СЗД", snapshot.numericalCell(0, 0).orElseThrow().getOrgan().getName());
+        }
+    }
+
+    @Test
+    void categoricalCellsKeepVotesAndAllowedCategoriesApart() {
+        CategoricalCell cell = new CategoricalCell();
+        cell.setXIndex(1);
+        cell.setYIndex(1);
+        cell.setCategoryId(new long[]{3, -1, 3});
+        cell.setAllowedCategoryId(new long[]{-1, 3});
+        CategoricalCell empty = new CategoricalCell();
+        empty.setXIndex(1);
+        empty.setYIndex(2);
+
+        try (Arena arena = Arena.ofConfined()) {
+            MatrixSnapshot snapshot = MatrixSnapshot.build(1, List.of(), List.of(empty, cell), arena);
+
+            assertEquals(2, snapshot.categoricalCount());
+            CategoricalCell found = snapshot.categoricalCell(1, 1).orElseThrow();
+            assertArrayEquals(new long[]{3, -1, 3}, found.getCategoryId());
+            assertArrayEquals(new long[]{-1, 3}, found.getAllowedCategoryId());
+            assertArrayEquals(new long[0], snapshot.categoricalCell(1, 2).orElseThrow().getCategoryId());
+        }
+    }
+
+    @Test
+    void anEmptySnapshotAnswersEveryRead() {
+        try (Arena arena = Arena.ofConfined()) {
+            MatrixSnapshot snapshot = MatrixSnapshot.build(0, List.of(), List.of(), arena);
+
+            assertEquals(0, snapshot.numericalCount());
+            assertTrue(snapshot.numericalCell(0, 0).isEmpty());
+            assertTrue(snapshot.numericalCells(0, 10).isEmpty());
+            assertTrue(snapshot.numericalSummaries().isEmpty());
+        }
+    }
+
+    private static NumericalCell numerical(int x, int y, Organ organ, double... values) {
+        NumericalCell cell = new NumericalCell();
+        cell.setXIndex(x);
+        cell.setYIndex(y);
+        cell.setOrgan(organ);
+        cell.setValue(values);
+        return cell;
+    }
+}
@@ -0,0 +1,220 @@
+package de.fhdo.zarya.api.readmodel;
+
+import de.fhdo.zarya.api.organs.PartyOrganType;
+import de.fhdo.zarya.api.persistance.models.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @Test
+    void roundTripKeepsMatricesOrgansAndRows(@TempDir Path directory) throws IOException {
+        Organ congress = organ(Long.MIN_VALUE + 5, (byte) 1, "СЗД", PartyOrganType.CONGRESS, null, null, null);
+        // Organ ids are signed, -1 is as good an id as any
+        Organ regional = organ(-1, (byte) 2, "77.СОВ", PartyOrganType.REGIONAL_SOVIET, "77", null, congress);
+
+        NumericalCell numerical = new NumericalCell();
+        numerical.setXIndex(1);
+        numerical.setYIndex(2);
+        numerical.setDecimals(2);
+        numerical.setValue(new double[]{1.5, 2.5, 4});
+        numerical.setOrgan(regional);
+        numerical.setSyncedSampleLength(3);
+        numerical.setSyncedAtBlock(95L);
+        NumericalCell withoutOrgan = new NumericalCell();
+        withoutOrgan.setXIndex(0);
+        withoutOrgan.setYIndex(7);
+        withoutOrgan.setValue(new double[]{3});
+
+        CategoricalCell categorical = new CategoricalCell();
+        categorical.setXIndex(3);
+        categorical.setYIndex(4);
+        categorical.setCategoryId(new long[]{9, 9, 8});
+        categorical.setAllowedCategoryId(new long[]{8, 9});
+        categorical.setOrgan(congress);
+        categorical.setSyncedSampleLength(2);
+        categorical.setSyncedAtBlock(90L);
+
+        Theme theme = new Theme();
+        theme.setXIndex(1L);
+        theme.setText("Экономика");
+        Statement statement = new Statement();
+        statement.setYIndex(2L);
+        statement.setCategorical(true);
+        statement.setText("План");
+        CellCategory category = new CellCategory();
+        category.setXIndex(3);
+        category.setYIndex(4);
+        category.setCategoryId(9);
+        category.setName("да");
+        CellSample sample = new CellSample();
+        sample.setXIndex(1);
+        sample.setYIndex(2);
+        sample.setSampleIndex(0);
+        sample.setTimestamp(Instant.ofEpochSecond(1_700_000_000L));
+        sample.setAuthor("0x0000000000000000000000000000000000000001");
+        sample.setRawValue(150);
+        TrackedVoting voting = new TrackedVoting();
+        voting.setVotingId(12L);
+        voting.setKind(TrackedVoting.Kind.THEME);
+        voting.setCategorical(true);
+        voting.setXIndex(5L);
+
+        Path file = directory.resolve("snapshot.bin");
+        try (Arena arena = Arena.ofConfined()) {
+            MatrixSnapshot snapshot = MatrixSnapshot.build(100, List.of(numerical, withoutOrgan), List.of(categorical),
+                    arena);
+            // Children first, the file still has to list the parents before them
+            SnapshotFile.write(file, snapshot, List.of(regional, congress), rows -> {
+                rows.theme(theme);
+                rows.statement(statement);
+                rows.category(category);
+                rows.trackedVoting(voting);
+                rows.sample(sample);
+            });
+
+            SnapshotFile.Contents contents = SnapshotFile.map(file, arena);
+            MatrixSnapshot matrices = contents.matrices();
+            assertEquals(100, matrices.getBlock());
+            assertEquals(2, matrices.numericalCount());
+
+            NumericalCell restored = matrices.numericalCell(1, 2).orElseThrow();
+            assertArrayEquals(numerical.getValue(), restored.getValue());
+            assertEquals(2, restored.getDecimals());
+            assertEquals(-1L, restored.getOrgan().getId());
+            assertEquals(congress.getId(), restored.getOrgan().getParent().getId());
+            assertEquals(3, restored.getSyncedSampleLength());
+            assertEquals(95L, (long) restored.getSyncedAtBlock());
+            // Edited by hand, the cell has no cursor to keep
+            NumericalCell unsynced = matrices.numericalCell(0, 7).orElseThrow();
+            assertNull(unsynced.getOrgan());
+            assertNull(unsynced.getSyncedAtBlock());
+            assertEquals(0, unsynced.getSyncedSampleLength());
+            assertEquals(8.0 / 3, matrices.numericalStatistics(1, 2).orElseThrow().getMean(), 1e-12);
+
+            CategoricalCell restoredCategorical = matrices.categoricalCell(3, 4).orElseThrow();
+            assertArrayEquals(new long[]{9, 9, 8}, restoredCategorical.getCategoryId());
+            assertArrayEquals(new long[]{8, 9}, restoredCategorical.getAllowedCategoryId());
+            assertEquals(congress.getId(), restoredCategorical.getOrgan().getId());
+            assertEquals(2, restoredCategorical.getSyncedSampleLength());
+            assertEquals(90L, (long) restoredCategorical.getSyncedAtBlock());
+
+            assertEquals(List.of(congress.getId(), -1L), contents.organs().stream().map(Organ::getId).toList());
+            Organ restoredRegional = contents.organs().get(1);
+            assertArrayEquals(regional.getHash(), restoredRegional.getHash());
+            assertEquals(PartyOrganType.REGIONAL_SOVIET, restoredRegional.getType());
+            assertEquals("77", restoredRegional.getRegionCode());
+            assertNull(restoredRegional.getNumber());
+            assertSame(contents.organs().getFirst(), restoredRegional.getParent());
+
+            assertTrue(contents.hasRows());
+            Rows rows = new Rows();
+            SnapshotFile.readRows(contents, rows);
+            assertEquals("Экономика", rows.themes.getFirst().getText());
+            assertTrue(rows.statements.getFirst().isCategorical());
+            assertEquals("да", rows.categories.getFirst().getName());
+
+            CellSample restoredSample = rows.samples.getFirst();
+            assertEquals(Instant.ofEpochSecond(1_700_000_000L), restoredSample.getTimestamp());
+            assertEquals(sample.getAuthor(), restoredSample.getAuthor());
+            assertEquals(150, restoredSample.getRawValue());
+
+            TrackedVoting restoredVoting = rows.trackedVotings.getFirst();
+            assertEquals(TrackedVoting.Kind.THEME, restoredVoting.getKind());
+            assertEquals(5L, restoredVoting.getXIndex());
+            assertNull(restoredVoting.getYIndex());
+        }
+    }
+
+    @Test
+    void matricesOnlyFileKeepsTheOrgansOfItsCells(@TempDir Path directory) throws IOException {
+        Organ congress = organ(7, (byte) 1, "СЗД", PartyOrganType.CONGRESS, null, null, null);
+        Organ regional = organ(8, (byte) 2, "77.СОВ", PartyOrganType.REGIONAL_SOVIET, "77", null, congress);
+        NumericalCell cell = new NumericalCell();
+        cell.setXIndex(1);
+        cell.setYIndex(1);
+        cell.setValue(new double[]{1});
+        cell.setOrgan(regional);
+
+        Path file = directory.resolve("snapshot.bin");
+        try (Arena arena = Arena.ofConfined()) {
+            SnapshotFile.write(file, MatrixSnapshot.build(5, List.of(cell), List.of(), arena), List.of(), null);
+
+            SnapshotFile.Contents contents = SnapshotFile.map(file, arena);
+            assertFalse(contents.hasRows());
+            assertThrows(IOException.class, () -> SnapshotFile.readRows(contents, new Rows()));
+            // The parent is written before the organ of the cell
+            assertEquals(List.of(7L, 8L), contents.organs().stream().map(Organ::getId).toList());
+            assertEquals(7L, contents.matrices().numericalCell(1, 1).orElseThrow().getOrgan().getParent().getId());
+        }
+    }
+
+    @Test
+    void rejectsFilesOfOtherFormats(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("snapshot.bin");
+        Files.write(file, new byte[128]);
+
+        try (Arena arena = Arena.ofConfined()) {
+            assertThrows(IOException.class, () -> SnapshotFile.map(file, arena));
+        }
+    }
+
+    private static final class Rows implements SnapshotFile.RowVisitor {
+        private final List<Theme> themes = new ArrayList<>();
+        private final List<Statement> statements = new ArrayList<>();
+        private final List<CellCategory> categories = new ArrayList<>();
+        private final List<CellSample> samples = new ArrayList<>();
+        private final List<TrackedVoting> trackedVotings = new ArrayList<>();
+
+        @Override
+        public void theme(Theme theme) {
+            themes.add(theme);
+        }
+
+        @Override
+        public void statement(Statement statement) {
+            statements.add(statement);
+        }
+
+        @Override
+        public void category(CellCategory category) {
+            categories.add(category);
+        }
+
+        @Override
+        public void sample(CellSample sample) {
+            samples.add(sample);
+        }
+
+        @Override
+        public void trackedVoting(TrackedVoting voting) {
+            trackedVotings.add(voting);
+        }
+    }
+
+    private static Organ organ(long id, byte hashByte, String name, PartyOrganType type, String regionCode,
+                               Integer number, Organ parent) {
+        Organ organ = new Organ();
+        organ.setId(id);
+        byte[] hash = new byte[32];
+        Arrays.fill(hash, hashByte);
+        organ.setHash(hash);
+        organ.setName(name);
+        organ.setType(type);
+        organ.setRegionCode(regionCode);
+        organ.setNumber(number);
+        organ.setParent(parent);
+        return organ;
+    }
+}
@@ -0,0 +1,76 @@
+package de.fhdo.zarya.api.rpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static de.fhdo.zarya.api.rpc.RpcCachePolicy.Scope.BLOCK;
+import static de.fhdo.zarya.api.rpc.RpcCachePolicy.Scope.IMMUTABLE;
+import static de.fhdo.zarya.api.rpc.RpcCachePolicy.Scope.NONE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RpcCachePolicyTest {
+    private static final long FINALIZED = 0x100;
+
+    @Test
+    void writesAndUnknownMethodsAreNotCacheable() {
+        assertFalse(RpcCachePolicy.isCacheable("eth_sendRawTransaction"));
+        assertFalse(RpcCachePolicy.isCacheable(null));
+        assertEquals(NONE, RpcCachePolicy.scopeOf("eth_sendRawTransaction", List.of("0x00"), FINALIZED));
+        assertTrue(RpcCachePolicy.isCacheable("eth_getLogs"));
+    }
+
+    @Test
+    void callsAreScopedByTheirBlockTag() {
+        Map<String, String> call = Map.of("to", "0x01", "data", "0x");
+        assertEquals(IMMUTABLE, RpcCachePolicy.scopeOf("eth_call", List.of(call, "0x100"), FINALIZED));
+        assertEquals(BLOCK, RpcCachePolicy.scopeOf("eth_call", List.of(call, "0x101"), FINALIZED));
+        assertEquals(BLOCK, RpcCachePolicy.scopeOf("eth_call", List.of(call, "latest"), FINALIZED));
+        assertEquals(BLOCK, RpcCachePolicy.scopeOf("eth_call", List.of(call), FINALIZED));
+        assertEquals(NONE, RpcCachePolicy.scopeOf("eth_call", List.of(call, "pending"), FINALIZED));
+        assertEquals(NONE, RpcCachePolicy.scopeOf("eth_call", List.of(call, "0xnope"), FINALIZED));
+        // EIP-1898 block objects
+        assertEquals(BLOCK, RpcCachePolicy.scopeOf("eth_call", List.of(call, Map.of("blockHash", "0xab")), FINALIZED));
+    }
+
+    @Test
+    void logsAreImmutableOnlyUpToAFinalizedBlock() {
+        assertEquals(IMMUTABLE, RpcCachePolicy.scopeOf("eth_getLogs",
+                List.of(Map.of("fromBlock", "0x1", "toBlock", "0xff")), FINALIZED));
+        assertEquals(BLOCK, RpcCachePolicy.scopeOf("eth_getLogs",
+                List.of(Map.of("fromBlock", "0x1")), FINALIZED));
+        assertEquals(BLOCK, RpcCachePolicy.scopeOf("eth_getLogs",
+                List.of(Map.of("blockHash", "0xab")), FINALIZED));
+        assertEquals(NONE, RpcCachePolicy.scopeOf("eth_getLogs", List.of(), FINALIZED));
+    }
+
+    @Test
+    void lookupsByHashAreImmutableOnceTheirBlockIsFinalized() {
+        assertEquals(BLOCK, RpcCachePolicy.scopeOf("eth_getTransactionReceipt", List.of("0xab"), FINALIZED));
+        assertEquals(IMMUTABLE, RpcCachePolicy.scopeOfResult("eth_getTransactionReceipt", BLOCK,
+                Map.of("blockNumber", "0x10"), FINALIZED));
+        assertEquals(BLOCK, RpcCachePolicy.scopeOfResult("eth_getTransactionReceipt", BLOCK,
+                Map.of("blockNumber", "0x200"), FINALIZED));
+        // Not mined yet
+        assertEquals(BLOCK, RpcCachePolicy.scopeOfResult("eth_getTransactionReceipt", BLOCK, null, FINALIZED));
+    }
+
+    @Test
+    void constantsAndHeadValues() {
+        assertEquals(IMMUTABLE, RpcCachePolicy.scopeOf("eth_chainId", List.of(), FINALIZED));
+        assertEquals(BLOCK, RpcCachePolicy.scopeOf("eth_gasPrice", List.of(), FINALIZED));
+        assertEquals(IMMUTABLE, RpcCachePolicy.scopeOf("eth_getBlockByNumber", List.of("earliest", false), FINALIZED));
+        assertEquals(NONE, RpcCachePolicy.scopeOf("eth_getBlockByNumber", List.of(), FINALIZED));
+    }
+
+    @Test
+    void parsesHexQuantities() {
+        assertEquals(0x1f, RpcCachePolicy.parseQuantity("0x1f"));
+        assertEquals(-1, RpcCachePolicy.parseQuantity("31"));
+        assertEquals(-1, RpcCachePolicy.parseQuantity("0x"));
+        assertEquals(-1, RpcCachePolicy.parseQuantity("0x" + "f".repeat(17)));
+    }
+}
@@ -0,0 +1,106 @@
+package de.fhdo.zarya.api.rpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RpcResponseCacheTest {
+
+    @Test
+    void identicalRequestsInFlightShareOneLoad() throws Exception {
+        RpcResponseCache<String> cache = new RpcResponseCache<>(1024, 256, String::length);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<RpcResponseCache.Lookup<String>> first = new AtomicReference<>();
+        AtomicReference<RpcResponseCache.Lookup<String>> second = new AtomicReference<>();
+
+        Thread loader = Thread.ofPlatform().start(() -> first.set(cache.get("eth_call[]", () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "0x01";
+        })));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread waiter = Thread.ofPlatform().start(() -> second.set(cache.get("eth_call[]", () -> {
+            loads.incrementAndGet();
+            return "0x02";
+        })));
+        // Parked on the running load, the only place the second caller waits
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        loader.join();
+        waiter.join();
+
+        assertEquals(1, loads.get());
+        assertEquals(new RpcResponseCache.Lookup<>("0x01", RpcResponseCache.Outcome.MISS), first.get());
+        assertEquals(new RpcResponseCache.Lookup<>("0x01", RpcResponseCache.Outcome.COALESCED), second.get());
+    }
+
+    @Test
+    void failedLoadsReachEveryWaiterAndAreNotKept() {
+        RpcResponseCache<String> cache = new RpcResponseCache<>(1024, 256, String::length);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("k", () -> {
+            throw new IllegalStateException("rate limited");
+        }));
+        assertEquals(RpcResponseCache.Outcome.MISS, cache.get("k", () -> "0x01").outcome());
+    }
+
+    @Test
+    void blockScopedResultsAreDroppedWhenTheHeadMoves() {
+        RpcResponseCache<String> cache = new RpcResponseCache<>(1024, 256, String::length);
+        cache.advanceTo(10);
+        cache.put("head", "0x0a", RpcCachePolicy.Scope.BLOCK, 10);
+        // Read at an older head, already stale
+        cache.put("old", "0x09", RpcCachePolicy.Scope.BLOCK, 9);
+
+        assertEquals(RpcResponseCache.Outcome.HIT, cache.get("head", () -> "miss").outcome());
+        assertEquals("miss", cache.get("old", () -> "miss").value());
+
+        cache.advanceTo(11);
+        assertEquals("miss", cache.get("head", () -> "miss").value());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void immutableResultsAreEvictedLeastRecentlyUsedByBytes() {
+        // Keys of one char weigh 2 bytes, each entry 10 + 2
+        RpcResponseCache<String> cache = new RpcResponseCache<>(36, 20, String::length);
+        cache.put("a", "0123456789", RpcCachePolicy.Scope.IMMUTABLE, 0);
+        cache.put("b", "0123456789", RpcCachePolicy.Scope.IMMUTABLE, 0);
+        cache.put("c", "0123456789", RpcCachePolicy.Scope.IMMUTABLE, 0);
+        assertEquals(RpcResponseCache.Outcome.HIT, cache.get("a", () -> "miss").outcome());
+
+        cache.put("d", "0123456789", RpcCachePolicy.Scope.IMMUTABLE, 0);
+
+        assertEquals(36, cache.bytes());
+        assertEquals("miss", cache.get("b", () -> "miss").value());
+        assertEquals(RpcResponseCache.Outcome.HIT, cache.get("a", () -> "miss").outcome());
+    }
+
+    @Test
+    void resultsAboveTheEntryLimitAreNeverStored() {
+        RpcResponseCache<String> cache = new RpcResponseCache<>(1024, 4, String::length);
+        cache.put("logs", "0x0123", RpcCachePolicy.Scope.IMMUTABLE, 0);
+
+        assertFalse(cache.fits(6));
+        assertEquals(0, cache.bytes());
+        assertEquals(RpcResponseCache.Outcome.MISS, cache.get("logs", () -> "0x").outcome());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
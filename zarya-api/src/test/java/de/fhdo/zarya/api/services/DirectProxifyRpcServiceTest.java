@@ -0,0 +1,249 @@
+package de.fhdo.zarya.api.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.*;
+import okio.Buffer;
+import okio.BufferedSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DirectProxifyRpcServiceTest {
+    private static final String HEAD = "{\"jsonrpc\":\"2.0\",\"id\":0,\"result\":\"0x64\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Fake provider, the reply to each method and the methods it was sent in order, batches as "batch"
+    private final Map<String, Reply> replies = new ConcurrentHashMap<>();
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, CountDownLatch> held = new ConcurrentHashMap<>();
+    private OkHttpClient rpcHttpClient;
+
+    private record Reply(int code, String body, boolean chunked) {
+        static Reply of(String body) {
+            return new Reply(200, body, false);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        rpcHttpClient = mock(OkHttpClient.class);
+        when(rpcHttpClient.newCall(any())).thenAnswer(invocation -> {
+            Request request = invocation.getArgument(0);
+            Call call = mock(Call.class);
+            when(call.execute()).thenAnswer(execute -> respond(request));
+            return call;
+        });
+        replies.put("eth_blockNumber", Reply.of(HEAD));
+    }
+
+    @Test
+    void constantsAreAnsweredFromTheCacheWithTheCallersId() throws Exception {
+        replies.put("eth_chainId", Reply.of("{\"jsonrpc\":\"2.0\",\"id\":7,\"result\":\"0x539\"}"));
+        DirectProxifyRpcService service = service(1 << 20);
+
+        MockHttpServletResponse first = proxy(service, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_chainId\"}");
+        MockHttpServletResponse second = proxy(service, "{\"jsonrpc\":\"2.0\",\"id\":\"b\",\"method\":\"eth_chainId\"}");
+
+        assertEquals(200, first.getStatus());
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x539\"}", first.getContentAsString());
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":\"b\",\"result\":\"0x539\"}", second.getContentAsString());
+        // The head is polled once within its TTL, the constant is fetched once
+        assertEquals(List.of("eth_blockNumber", "eth_chainId"), sent);
+        assertEquals(1, count("miss"));
+        assertEquals(1, count("hit"));
+    }
+
+    @Test
+    void theBlockNumberIsTheHeadThatWasPolled() throws Exception {
+        DirectProxifyRpcService service = service(1 << 20);
+
+        for (int id = 1; id <= 3; id++) {
+            MockHttpServletResponse response =
+                    proxy(service, "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"eth_blockNumber\",\"params\":[]}");
+            assertEquals("{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":\"0x64\"}", response.getContentAsString());
+        }
+
+        assertEquals(List.of("eth_blockNumber"), sent);
+    }
+
+    @Test
+    void identicalCallsInFlightShareOneUpstreamCall() throws Exception {
+        replies.put("eth_call", Reply.of("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x2a\"}"));
+        DirectProxifyRpcService service = service(1 << 20);
+        // Polls the head first, the callers below only wait on the call itself
+        proxy(service, "{\"jsonrpc\":\"2.0\",\"id\":0,\"method\":\"eth_blockNumber\"}");
+        CountDownLatch release = new CountDownLatch(1);
+        held.put("eth_call", release);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        Thread loader = Thread.ofPlatform().start(() -> proxyQuietly(service,
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_call\",\"params\":[{\"to\":\"0x01\",\"data\":\"0x\"},\"latest\"]}",
+                first));
+        while (!sent.contains("eth_call")) {
+            Thread.onSpinWait();
+        }
+        // The same filter with its keys in another order is the same request
+        Thread waiter = Thread.ofPlatform().start(() -> proxyQuietly(service,
+                "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"eth_call\",\"params\":[{\"data\":\"0x\",\"to\":\"0x01\"},\"latest\"]}",
+                second));
+        // Parked on the running load, unless it sent a call of its own
+        while (waiter.getState() != Thread.State.WAITING && sent.size() < 3) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        loader.join();
+        waiter.join();
+
+        assertEquals(1, sent.stream().filter("eth_call"::equals).count());
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x2a\"}", first.getContentAsString());
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":\"0x2a\"}", second.getContentAsString());
+        assertEquals(1, count("coalesced"));
+    }
+
+    @Test
+    void writesAndBatchesAreStreamedAsTheyCame() throws Exception {
+        String rateLimited = "{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":-32005,\"message\":\"limit\"}}";
+        replies.put("eth_sendRawTransaction", new Reply(429, rateLimited, false));
+        String batch = "[{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x1\"},{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":\"0x2\"}]";
+        replies.put("batch", new Reply(200, batch, true));
+        DirectProxifyRpcService service = service(1 << 20);
+
+        MockHttpServletResponse write = proxy(service,
+                "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_sendRawTransaction\",\"params\":[\"0x00\"]}");
+        MockHttpServletResponse batched = proxy(service,
+                "[{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_chainId\"},{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"net_version\"}]");
+
+        assertEquals(429, write.getStatus());
+        assertEquals(rateLimited, write.getContentAsString());
+        assertEquals(200, batched.getStatus());
+        assertEquals(batch, batched.getContentAsString());
+        // Neither needs the head
+        assertEquals(List.of("eth_sendRawTransaction", "batch"), sent);
+        assertEquals(2, count("bypass"));
+    }
+
+    @Test
+    void oversizedResultsGoToTheirCallerAndAreNotKept() throws Exception {
+        String large = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x" + "ab".repeat(256) + "\"}";
+        // Chunked, the size is only found out while reading
+        replies.put("eth_getLogs", new Reply(200, large, true));
+        DirectProxifyRpcService service = service(64);
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_getLogs\",\"params\":[{\"toBlock\":\"0x1\"}]}";
+
+        MockHttpServletResponse first = proxy(service, request);
+        MockHttpServletResponse second = proxy(service, request);
+
+        assertEquals(large, first.getContentAsString());
+        assertEquals(large, second.getContentAsString());
+        assertEquals(2, sent.stream().filter("eth_getLogs"::equals).count());
+        assertEquals(2, count("oversized"));
+    }
+
+    @Test
+    void providerErrorsArePassedOnButNotStored() throws Exception {
+        replies.put("eth_getBalance",
+                Reply.of("{\"jsonrpc\":\"2.0\",\"id\":9,\"error\":{\"code\":-32000,\"message\":\"busy\"}}"));
+        DirectProxifyRpcService service = service(1 << 20);
+        String request = "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"eth_getBalance\",\"params\":[\"0x01\",\"0x1\"]}";
+
+        MockHttpServletResponse first = proxy(service, request);
+        proxy(service, request);
+
+        assertEquals("{\"jsonrpc\":\"2.0\",\"id\":3,\"error\":{\"code\":-32000,\"message\":\"busy\"}}",
+                first.getContentAsString());
+        assertEquals(2, sent.stream().filter("eth_getBalance"::equals).count());
+    }
+
+    @Test
+    void aFailedUpstreamIsABadGateway() throws Exception {
+        replies.put("eth_chainId", new Reply(500, "oops", false));
+        DirectProxifyRpcService service = service(1 << 20);
+
+        MockHttpServletResponse response = proxy(service, "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_chainId\"}");
+
+        assertEquals(502, response.getStatus());
+        JsonNode error = objectMapper.readTree(response.getContentAsByteArray()).get("error");
+        assertEquals(-32603, error.get("code").asInt());
+        assertTrue(error.get("message").asText().contains("HTTP 500"));
+    }
+
+    private DirectProxifyRpcService service(long maxEntryBytes) {
+        return new DirectProxifyRpcService("http://localhost:8545", 1 << 20, maxEntryBytes, 60_000, 64,
+                rpcHttpClient, objectMapper, meterRegistry);
+    }
+
+    private static MockHttpServletResponse proxy(DirectProxifyRpcService service, String request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.proxyRpcCall(request.getBytes(StandardCharsets.UTF_8), response);
+        return response;
+    }
+
+    private static void proxyQuietly(DirectProxifyRpcService service, String request,
+                                     MockHttpServletResponse response) {
+        try {
+            service.proxyRpcCall(request.getBytes(StandardCharsets.UTF_8), response);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Response respond(Request request) throws Exception {
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        JsonNode body = objectMapper.readTree(buffer.readUtf8());
+        String method = body.isArray() ? "batch" : body.get("method").asText();
+        sent.add(method);
+        CountDownLatch latch = held.get(method);
+        if (latch != null) {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        Reply reply = replies.get(method);
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(reply.code())
+                .message("")
+                .body(reply.chunked() ? chunked(reply.body()) : ResponseBody.create(reply.body(), MediaType.get("application/json")))
+                .build();
+    }
+
+    private static ResponseBody chunked(String body) {
+        return new ResponseBody() {
+            private final Buffer source = new Buffer().writeUtf8(body);
+
+            @Override
+            public MediaType contentType() {
+                return MediaType.get("application/json");
+            }
+
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public BufferedSource source() {
+                return source;
+            }
+        };
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.counter("zarya.rpc.proxy.requests", "outcome", outcome).count();
+    }
+}
@@ -0,0 +1,94 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.NumericalCellRepository;
+import de.fhdo.zarya.api.interfaces.services.IMatrixReadModelService;
+import de.fhdo.zarya.api.persistance.dto.MatrixSummary;
+import de.fhdo.zarya.api.persistance.models.NumericalCell;
+import de.fhdo.zarya.api.persistance.models.Organ;
+import de.fhdo.zarya.api.readmodel.MatrixSnapshot;
+import de.fhdo.zarya.api.statistics.RunningStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ForkJoinMatrixAggregationServiceTest {
+    private final NumericalCellRepository numericalCellRepository = mock(NumericalCellRepository.class);
+    private final IMatrixReadModelService matrixReadModelService = mock(IMatrixReadModelService.class);
+    private final ForkJoinMatrixAggregationService service =
+            new ForkJoinMatrixAggregationService(numericalCellRepository, matrixReadModelService, 1);
+
+    private final Organ organ = organ(9, "77.СОВ");
+    private final List<NumericalCell> cells = List.of(
+            cell(0, 0, organ, 1, 2, 3),
+            cell(0, 1, null, 10),
+            cell(1, 0, organ, 4, 8),
+            cell(1, 1, null));
+
+    @Test
+    void theSnapshotStatisticsAreMergedWithoutTheRepository() {
+        when(matrixReadModelService.current()).thenReturn(MatrixSnapshot.build(1, cells, List.of(), Arena.ofAuto()));
+
+        MatrixSummary summary = service.summarizeNumerical();
+
+        assertSummary(summary);
+        verifyNoInteractions(numericalCellRepository);
+    }
+
+    @Test
+    void withoutASnapshotTheStoredValuesAreSummarized() {
+        when(numericalCellRepository.findAll()).thenReturn(cells);
+
+        assertSummary(service.summarizeNumerical());
+    }
+
+    @Test
+    void anEmptyMatrixHasAnEmptySummary() {
+        when(matrixReadModelService.current()).thenReturn(MatrixSnapshot.build(1, List.of(), List.of(), Arena.ofAuto()));
+
+        MatrixSummary summary = service.summarizeNumerical();
+
+        assertEquals(0, summary.getOverall().getCount());
+        assertTrue(summary.getCells().isEmpty());
+        assertTrue(summary.getOrgans().isEmpty());
+    }
+
+    private void assertSummary(MatrixSummary summary) {
+        RunningStatistics overall = summary.getOverall();
+        assertEquals(6, overall.getCount());
+        assertEquals(28, overall.getSum(), 1e-12);
+        assertEquals(28.0 / 6, overall.getMean(), 1e-12);
+        assertEquals(1, overall.getMin());
+        assertEquals(10, overall.getMax());
+
+        // The empty cell is left out of every group
+        assertEquals(3, summary.getCells().size());
+        assertEquals(List.of(0, 1), summary.getThemes().stream().map(MatrixSummary.GroupSummary::getXIndex).toList());
+        assertEquals(10, summary.getStatements().get(1).getStatistics().getSum(), 1e-12);
+
+        MatrixSummary.GroupSummary byOrgan = summary.getOrgans().getFirst();
+        assertEquals(Long.valueOf(9), byOrgan.getOrganId());
+        assertEquals("77.СОВ", byOrgan.getOrganName());
+        assertEquals(5, byOrgan.getStatistics().getCount());
+        assertEquals(3.6, byOrgan.getStatistics().getMean(), 1e-12);
+    }
+
+    private static Organ organ(long id, String name) {
+        Organ organ = new Organ();
+        organ.setId(id);
+        organ.setName(name);
+        return organ;
+    }
+
+    private static NumericalCell cell(int x, int y, Organ organ, double... values) {
+        NumericalCell cell = new NumericalCell();
+        cell.setXIndex(x);
+        cell.setYIndex(y);
+        cell.setOrgan(organ);
+        cell.setValue(values);
+        return cell;
+    }
+}
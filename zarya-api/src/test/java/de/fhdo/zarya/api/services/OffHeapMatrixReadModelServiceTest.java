@@ -0,0 +1,74 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.interfaces.repositories.CategoricalCellRepository;
+import de.fhdo.zarya.api.interfaces.repositories.NumericalCellRepository;
+import de.fhdo.zarya.api.persistance.models.NumericalCell;
+import de.fhdo.zarya.api.readmodel.MatrixSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OffHeapMatrixReadModelServiceTest {
+    private final NumericalCellRepository numericalCellRepository = mock(NumericalCellRepository.class);
+    private final CategoricalCellRepository categoricalCellRepository = mock(CategoricalCellRepository.class);
+    private final OffHeapMatrixReadModelService service =
+            new OffHeapMatrixReadModelService(numericalCellRepository, categoricalCellRepository);
+
+    @Test
+    void thereIsNoSnapshotBeforeTheFirstRefresh() {
+        assertNull(service.current());
+        verifyNoInteractions(numericalCellRepository, categoricalCellRepository);
+    }
+
+    @Test
+    void refreshCopiesTheStoredCellsAtTheBlock() {
+        when(numericalCellRepository.findAllWithOrgan()).thenReturn(List.of(cell(1, 2, 5, 7)));
+
+        service.refresh(40);
+
+        MatrixSnapshot snapshot = service.current();
+        assertEquals(40, snapshot.getBlock());
+        assertArrayEquals(new double[]{5, 7}, snapshot.numericalCell(1, 2).orElseThrow().getValue());
+        assertEquals(0, snapshot.categoricalCount());
+    }
+
+    @Test
+    void aSnapshotHeldByAReaderOutlivesItsReplacement() {
+        when(numericalCellRepository.findAllWithOrgan()).thenReturn(List.of(cell(1, 2, 5)));
+        service.refresh(40);
+        MatrixSnapshot held = service.current();
+
+        when(numericalCellRepository.findAllWithOrgan()).thenReturn(List.of(cell(1, 2, 5, 6), cell(3, 3, 1)));
+        service.refresh();
+        System.gc();
+
+        MatrixSnapshot current = service.current();
+        assertNotSame(held, current);
+        // Refreshed after an edit, the block stays the one of the replaced snapshot
+        assertEquals(40, current.getBlock());
+        assertEquals(2, current.numericalCount());
+        assertArrayEquals(new double[]{5}, held.numericalCell(1, 2).orElseThrow().getValue());
+    }
+
+    @Test
+    void anInstalledSnapshotIsServedAsIs() {
+        MatrixSnapshot snapshot = MatrixSnapshot.build(7, List.of(cell(0, 0, 1)), List.of(), Arena.ofAuto());
+
+        service.install(snapshot);
+
+        assertSame(snapshot, service.current());
+        verifyNoInteractions(numericalCellRepository, categoricalCellRepository);
+    }
+
+    private static NumericalCell cell(int x, int y, double... values) {
+        NumericalCell cell = new NumericalCell();
+        cell.setXIndex(x);
+        cell.setYIndex(y);
+        cell.setValue(values);
+        return cell;
+    }
+}
@@ -0,0 +1,395 @@
+package de.fhdo.zarya.api.services;
+
+import de.fhdo.zarya.api.contracts.ZaryaEvents;
+import de.fhdo.zarya.api.interfaces.repositories.*;
+import de.fhdo.zarya.api.interfaces.services.*;
+import de.fhdo.zarya.api.persistance.models.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.abi.datatypes.generated.Uint32;
+import org.web3j.abi.datatypes.generated.Uint64;
+import org.web3j.abi.datatypes.generated.Uint8;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SynchronizationServiceTest {
+    private static final long LAST_PROCESSED = 100;
+    private static final long HEAD = 113;
+    private static final long CONFIRMATIONS = 3;
+    private static final long SNAPSHOT = HEAD - CONFIRMATIONS;
+
+    private final NumericalCellRepository numericalCellRepository = mock(NumericalCellRepository.class);
+    private final CategoricalCellRepository categoricalCellRepository = mock(CategoricalCellRepository.class);
+    private final SyncStateRepository syncStateRepository = mock(SyncStateRepository.class);
+    private final SyncRunRepository syncRunRepository = mock(SyncRunRepository.class);
+    private final ICellStatisticsService cellStatisticsService = mock(ICellStatisticsService.class);
+    private final IForecastService forecastService = mock(IForecastService.class);
+    private final ISyncMetricsService syncMetricsService = mock(ISyncMetricsService.class);
+    private final IContractReadService contractReadService = mock(IContractReadService.class);
+
+    // Stored rows and the contract state the stubs answer from
+    private final Map<List<Integer>, NumericalCell> storedCells = new ConcurrentHashMap<>();
+    private final Map<List<Integer>, long[]> chainValues = new ConcurrentHashMap<>();
+    private final Map<List<Integer>, Integer> chainDecimals = new ConcurrentHashMap<>();
+    private final List<Log> logs = new ArrayList<>();
+    private final List<Call> calls = new CopyOnWriteArrayList<>();
+    // Runs on the fetching thread before a numerical cell info is answered
+    private volatile Consumer<List<Integer>> onCellInfo = cell -> {
+    };
+
+    private SynchronizationService service;
+
+    private record Call(String name, List<BigInteger> inputs, long block) {
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new SynchronizationService(mock(ThemeRepository.class), mock(StatementRepository.class),
+                numericalCellRepository, categoricalCellRepository, syncStateRepository,
+                mock(TrackedVotingRepository.class), mock(CellCategoryRepository.class), syncRunRepository,
+                mock(PopulatedCellRepository.class), mock(CellSampleRepository.class), cellStatisticsService,
+                forecastService, mock(IMatrixReadModelService.class), mock(ISnapshotFileService.class),
+                syncMetricsService, contractReadService, mock(IOrganService.class),
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "emptySlots", 5);
+        ReflectionTestUtils.setField(service, "logsBlockRange", 2000L);
+        ReflectionTestUtils.setField(service, "confirmations", CONFIRMATIONS);
+        ReflectionTestUtils.setField(service, "pipelineChunkSize", 50);
+        ReflectionTestUtils.setField(service, "pipelineMaxInFlight", 4);
+        ReflectionTestUtils.setField(service, "historyPageSize", 500);
+        ReflectionTestUtils.setField(service, "resumeMaxAgeBlocks", 128L);
+
+        SyncState state = new SyncState();
+        state.setLastProcessedBlock(LAST_PROCESSED);
+        when(syncStateRepository.findById(SyncState.SINGLETON_ID)).thenReturn(Optional.of(state));
+        when(syncRunRepository.findFirstByKindOrderByIdDesc(any())).thenReturn(Optional.empty());
+        when(syncRunRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            invocation.<ISyncMetricsService.Stage>getArgument(1).run();
+            return null;
+        }).when(syncMetricsService).stage(anyString(), any());
+
+        when(contractReadService.getBlockNumber()).thenReturn(BigInteger.valueOf(HEAD));
+        when(contractReadService.getLogs(any(), any(), any())).thenAnswer(invocation -> List.copyOf(logs));
+        when(contractReadService.callFunctions(anyList(), any(DefaultBlockParameter.class)))
+                .thenAnswer(invocation -> answer(invocation.getArgument(0), invocation.getArgument(1)));
+
+        when(numericalCellRepository.findById(any())).thenAnswer(invocation -> {
+            NumericalCell.NumericalCellId id = invocation.getArgument(0);
+            return Optional.ofNullable(storedCells.get(List.of(id.getXIndex(), id.getYIndex())));
+        });
+        when(numericalCellRepository.save(any())).thenAnswer(invocation -> {
+            NumericalCell cell = invocation.getArgument(0);
+            storedCells.put(List.of(cell.getXIndex(), cell.getYIndex()), cell);
+            return cell;
+        });
+        when(categoricalCellRepository.findById(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void onlyTheSamplesAfterTheCursorAreRead() {
+        onChain(1, 2, 2, 100, 200, 350, 425);
+        stored(1, 2, 2, 1.0, 2.0);
+        valueAdded(1, 2);
+
+        service.syncIncrementally();
+
+        assertEquals(List.of(List.of(1L, 2L, 2L, 2L)), inputsOf("getNumericalHistory"));
+        NumericalCell cell = storedCells.get(List.of(1, 2));
+        assertArrayEquals(new double[]{1.0, 2.0, 3.5, 4.25}, cell.getValue());
+        assertEquals(4, cell.getSyncedSampleLength());
+        assertEquals(SNAPSHOT, (long) cell.getSyncedAtBlock());
+        verify(cellStatisticsService).appendNumerical(1, 2, new double[]{3.5, 4.25}, false);
+        verify(forecastService).appendNumerical(1, 2, new double[]{3.5, 4.25}, false);
+        assertEquals(SNAPSHOT, lastProcessedBlock());
+    }
+
+    @Test
+    void aCellWithoutNewSamplesCostsNoHistoryCall() {
+        onChain(1, 2, 2, 100, 200);
+        stored(1, 2, 2, 1.0, 2.0);
+        valueAdded(1, 2);
+
+        service.syncIncrementally();
+
+        assertTrue(inputsOf("getNumericalHistory").isEmpty());
+        verify(numericalCellRepository, never()).save(any());
+    }
+
+    @Test
+    void changedDecimalsReadTheHistoryFromTheStart() {
+        onChain(1, 2, 1, 10, 20, 35);
+        stored(1, 2, 2, 0.1, 0.2);
+        valueAdded(1, 2);
+
+        service.syncIncrementally();
+
+        assertEquals(List.of(List.of(1L, 2L, 0L, 3L)), inputsOf("getNumericalHistory"));
+        NumericalCell cell = storedCells.get(List.of(1, 2));
+        assertArrayEquals(new double[]{1.0, 2.0, 3.5}, cell.getValue());
+        assertEquals(1, cell.getDecimals());
+        assertEquals(3, cell.getSyncedSampleLength());
+        verify(cellStatisticsService).appendNumerical(1, 2, new double[]{1.0, 2.0, 3.5}, true);
+    }
+
+    @Test
+    void aShrunkHistoryIsReadFromTheStart() {
+        onChain(1, 2, 0, 7, 8);
+        stored(1, 2, 0, 1, 2, 3);
+        valueAdded(1, 2);
+
+        service.syncIncrementally();
+
+        assertEquals(List.of(List.of(1L, 2L, 0L, 2L)), inputsOf("getNumericalHistory"));
+        assertArrayEquals(new double[]{7, 8}, storedCells.get(List.of(1, 2)).getValue());
+        verify(cellStatisticsService).appendNumerical(1, 2, new double[]{7, 8}, true);
+    }
+
+    @Test
+    void longHistoriesAreReadInPagesAndJoined() {
+        ReflectionTestUtils.setField(service, "historyPageSize", 3);
+        onChain(0, 5, 0, LongStream.rangeClosed(1, 7).toArray());
+        valueAdded(0, 5);
+
+        service.syncIncrementally();
+
+        assertEquals(List.of(List.of(0L, 5L, 0L, 3L), List.of(0L, 5L, 3L, 3L), List.of(0L, 5L, 6L, 1L)),
+                inputsOf("getNumericalHistory"));
+        NumericalCell cell = storedCells.get(List.of(0, 5));
+        assertArrayEquals(new double[]{1, 2, 3, 4, 5, 6, 7}, cell.getValue());
+        assertEquals(7, cell.getSyncedSampleLength());
+    }
+
+    @Test
+    void everyReadOfARunIsPinnedToItsSnapshotBlock() throws Exception {
+        onChain(1, 2, 0, 1, 2);
+        onChain(3, 4, 0, 5);
+        valueAdded(1, 2);
+        valueAdded(3, 4);
+
+        service.syncIncrementally();
+
+        verify(contractReadService).getLogs(BigInteger.valueOf(LAST_PROCESSED + 1), BigInteger.valueOf(SNAPSHOT),
+                ZaryaEvents.SYNCHRONIZED);
+        assertFalse(calls.isEmpty());
+        assertTrue(calls.stream().allMatch(call -> call.block() == SNAPSHOT));
+        assertEquals(SNAPSHOT, lastProcessedBlock());
+    }
+
+    @Test
+    void anUnfinishedRunIsResumedAtItsSnapshotBlock() {
+        SyncRun failed = run(SNAPSHOT - 4, SyncRun.Status.FAILED);
+        onChain(1, 2, 0, 1, 2);
+        valueAdded(1, 2);
+
+        service.syncIncrementally();
+
+        assertTrue(calls.stream().allMatch(call -> call.block() == SNAPSHOT - 4));
+        assertEquals(SyncRun.Status.COMPLETED, failed.getStatus());
+        assertEquals(SNAPSHOT - 4, lastProcessedBlock());
+    }
+
+    @Test
+    void cellsWrittenByTheInterruptedRunAreLeftAsTheyAre() {
+        run(SNAPSHOT - 4, SyncRun.Status.FAILED);
+        onChain(1, 2, 0, 1, 2);
+        stored(1, 2, 0, 1);
+        storedCells.get(List.of(1, 2)).setSyncedAtBlock(SNAPSHOT - 4);
+        valueAdded(1, 2);
+
+        service.syncIncrementally();
+
+        assertTrue(inputsOf("getNumericalCellInfo").isEmpty());
+        verify(numericalCellRepository, never()).save(any());
+    }
+
+    @Test
+    void aRunTooOldToReadIsNotResumed() {
+        ReflectionTestUtils.setField(service, "resumeMaxAgeBlocks", 2L);
+        SyncRun failed = run(SNAPSHOT - 4, SyncRun.Status.FAILED);
+        onChain(1, 2, 0, 1, 2);
+        valueAdded(1, 2);
+
+        service.syncIncrementally();
+
+        assertTrue(calls.stream().allMatch(call -> call.block() == SNAPSHOT));
+        assertEquals(SyncRun.Status.FAILED, failed.getStatus());
+        assertEquals(SNAPSHOT, lastProcessedBlock());
+    }
+
+    @Test
+    void aFailedRunKeepsTheLastProcessedBlock() throws Exception {
+        onChain(1, 2, 0, 1, 2);
+        valueAdded(1, 2);
+        when(contractReadService.getLogs(any(), any(), any())).thenThrow(new RuntimeException("Provider unavailable"));
+
+        service.syncIncrementally();
+
+        assertEquals(LAST_PROCESSED, lastProcessedBlock());
+        verify(syncStateRepository, never()).save(any());
+        verify(syncRunRepository, atLeastOnce()).save(argThat(run -> run.getStatus() == SyncRun.Status.FAILED));
+    }
+
+    @Test
+    void chunksFetchedAheadOfPersistingStayBounded() {
+        ReflectionTestUtils.setField(service, "pipelineChunkSize", 1);
+        ReflectionTestUtils.setField(service, "pipelineMaxInFlight", 2);
+        for (int y = 0; y < 12; y++) {
+            onChain(1, y, 0, y, y + 1);
+            valueAdded(1, y);
+        }
+        AtomicInteger unpersisted = new AtomicInteger();
+        AtomicInteger maxUnpersisted = new AtomicInteger();
+        onCellInfo = cell -> {
+            maxUnpersisted.accumulateAndGet(unpersisted.incrementAndGet(), Math::max);
+            sleep(5);
+        };
+        when(numericalCellRepository.save(any())).thenAnswer(invocation -> {
+            NumericalCell cell = invocation.getArgument(0);
+            storedCells.put(List.of(cell.getXIndex(), cell.getYIndex()), cell);
+            unpersisted.decrementAndGet();
+            return cell;
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), service::syncIncrementally);
+
+        assertEquals(12, storedCells.size());
+        assertTrue(maxUnpersisted.get() <= 2, "At most 2 chunks ahead, got " + maxUnpersisted.get());
+        assertEquals(SNAPSHOT, lastProcessedBlock());
+    }
+
+    @Test
+    void aFailedFetchFailsTheRunWithoutStallingThePipeline() {
+        ReflectionTestUtils.setField(service, "pipelineChunkSize", 1);
+        ReflectionTestUtils.setField(service, "pipelineMaxInFlight", 2);
+        for (int y = 0; y < 8; y++) {
+            onChain(1, y, 0, y);
+            valueAdded(1, y);
+        }
+        onCellInfo = cell -> {
+            if (cell.equals(List.of(1, 3))) {
+                throw new RuntimeException("Provider unavailable");
+            }
+        };
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), service::syncIncrementally);
+
+        assertFalse(storedCells.containsKey(List.of(1, 3)));
+        assertEquals(LAST_PROCESSED, lastProcessedBlock());
+        verify(syncRunRepository, atLeastOnce()).save(argThat(run -> run.getStatus() == SyncRun.Status.FAILED));
+    }
+
+    private void onChain(int x, int y, int decimals, long... rawValues) {
+        chainDecimals.put(List.of(x, y), decimals);
+        chainValues.put(List.of(x, y), rawValues);
+    }
+
+    private void stored(int x, int y, int decimals, double... values) {
+        NumericalCell cell = new NumericalCell();
+        cell.setXIndex(x);
+        cell.setYIndex(y);
+        cell.setDecimals(decimals);
+        cell.setValue(values);
+        cell.setSyncedSampleLength(values.length);
+        cell.setSyncedAtBlock(LAST_PROCESSED - 10);
+        storedCells.put(List.of(x, y), cell);
+    }
+
+    private SyncRun run(long snapshotBlock, SyncRun.Status status) {
+        SyncRun run = new SyncRun();
+        run.setId(1L);
+        run.setKind(SyncRun.Kind.INCREMENTAL);
+        run.setSnapshotBlock(snapshotBlock);
+        run.setStatus(status);
+        when(syncRunRepository.findFirstByKindOrderByIdDesc(SyncRun.Kind.INCREMENTAL)).thenReturn(Optional.of(run));
+        return run;
+    }
+
+    private void valueAdded(int x, int y) {
+        Log log = new Log();
+        log.setTopics(List.of(ZaryaEvents.VALUE_ADDED_TOPIC,
+                Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(x), 64),
+                Numeric.toHexStringWithPrefixZeroPadded(BigInteger.valueOf(y), 64)));
+        logs.add(log);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long lastProcessedBlock() {
+        return syncStateRepository.findById(SyncState.SINGLETON_ID).orElseThrow().getLastProcessedBlock();
+    }
+
+    private List<List<Long>> inputsOf(String function) {
+        return calls.stream()
+                .filter(call -> call.name().equals(function))
+                .map(call -> call.inputs().stream().map(BigInteger::longValue).toList())
+                .toList();
+    }
+
+    /**
+     * Answers the contract reads from the chain maps, a categorical cell info reverts as if it did not exist
+     */
+    private List<List<Type>> answer(List<Function> functions, DefaultBlockParameter block) {
+        List<List<Type>> results = new ArrayList<>();
+        for (Function function : functions) {
+            List<BigInteger> inputs = function.getInputParameters().stream()
+                    .map(input -> (BigInteger) input.getValue())
+                    .toList();
+            calls.add(new Call(function.getName(), inputs, ((DefaultBlockParameterNumber) block).getBlockNumber().longValue()));
+            List<Integer> cell = List.of(inputs.get(0).intValue(), inputs.get(1).intValue());
+            if (function.getName().equals("getNumericalCellInfo")) {
+                onCellInfo.accept(cell);
+            }
+            long[] values = chainValues.get(cell);
+            results.add(switch (function.getName()) {
+                case "getNumericalCellInfo" -> values == null ? List.of() : List.of(
+                        new Bytes32(new byte[32]), new Uint8(chainDecimals.get(cell)), new Uint256(values.length));
+                case "getNumericalHistory" -> history(values, inputs.get(2).intValue(), inputs.get(3).intValue());
+                default -> List.of();
+            });
+        }
+        return results;
+    }
+
+    private static List<Type> history(long[] values, int offset, int length) {
+        List<Uint32> timestamps = new ArrayList<>();
+        List<Address> authors = new ArrayList<>();
+        List<Uint64> samples = new ArrayList<>();
+        for (int i = offset; i < offset + length; i++) {
+            timestamps.add(new Uint32(1_700_000_000L + i));
+            authors.add(new Address(BigInteger.valueOf(i + 1)));
+            samples.add(new Uint64(values[i]));
+        }
+        return List.of(new DynamicArray<>(Uint32.class, timestamps), new DynamicArray<>(Address.class, authors),
+                new DynamicArray<>(Uint64.class, samples));
+    }
+}
@@ -0,0 +1,30 @@
+package de.fhdo.zarya.api.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CategoryCountsTest {
+
+    @Test
+    void addCountsInOrderOfFirstVote() {
+        CategoryCounts counts = new CategoryCounts();
+        counts.addAll(new long[]{7, 3, 7, 7, 3, 11});
+
+        assertArrayEquals(new long[]{7, 3, 11}, counts.getCategoryIds());
+        assertArrayEquals(new long[]{3, 2, 1}, counts.getCounts());
+        assertEquals(0, counts.countOf(42));
+    }
+
+    @Test
+    void mergeAddsCountsAndNewCategories() {
+        CategoryCounts counts = new CategoryCounts(new long[]{1, 2}, new long[]{4, 1});
+        counts.merge(new CategoryCounts(new long[]{2, 5}, new long[]{3, 6}));
+
+        assertEquals(4, counts.countOf(1));
+        assertEquals(4, counts.countOf(2));
+        assertEquals(6, counts.countOf(5));
+        assertArrayEquals(new long[]{1, 2, 5}, counts.getCategoryIds());
+    }
+}
@@ -0,0 +1,50 @@
+package de.fhdo.zarya.api.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedBinHistogramTest {
+
+    @Test
+    void valuesOutsideTheBoundsGoToUnderAndOverflow() {
+        FixedBinHistogram histogram = new FixedBinHistogram(0, 100, 4);
+        histogram.addAll(new double[]{-1, 0, 24.9, 25, 99.9, 100, 250});
+
+        assertArrayEquals(new long[]{1, 2, 1, 0, 1, 2}, histogram.getCounts());
+    }
+
+    @Test
+    void lowerBoundsSplitTheRangeEvenly() {
+        FixedBinHistogram histogram = new FixedBinHistogram(10, 20, 5);
+
+        assertEquals(Double.NEGATIVE_INFINITY, histogram.lowerBound(0));
+        assertEquals(10, histogram.lowerBound(1));
+        assertEquals(14, histogram.lowerBound(3));
+        assertEquals(20, histogram.lowerBound(6));
+    }
+
+    @Test
+    void mergeAddsCountsOfCompatibleHistograms() {
+        FixedBinHistogram left = new FixedBinHistogram(0, 10, 2);
+        left.addAll(new double[]{1, 6});
+        FixedBinHistogram right = new FixedBinHistogram(0, 10, 2);
+        right.addAll(new double[]{2, 11});
+
+        left.merge(right);
+
+        assertArrayEquals(new long[]{0, 2, 1, 1}, left.getCounts());
+    }
+
+    @Test
+    void mergeRejectsOtherBounds() {
+        FixedBinHistogram histogram = new FixedBinHistogram(0, 10, 2);
+        FixedBinHistogram other = new FixedBinHistogram(0, 20, 2);
+
+        assertFalse(histogram.isCompatible(other));
+        assertThrows(IllegalArgumentException.class, () -> histogram.merge(other));
+    }
+}
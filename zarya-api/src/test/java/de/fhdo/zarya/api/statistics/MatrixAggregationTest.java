@@ -0,0 +1,74 @@
+package de.fhdo.zarya.api.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class MatrixAggregationTest {
+
+    @Test
+    void mergedCellStatisticsEqualReducingAllValues() {
+        List<MatrixAggregation.CellSummary> cells = new ArrayList<>();
+        RunningStatistics all = new RunningStatistics();
+        RunningStatistics theme1 = new RunningStatistics();
+        RunningStatistics organ7 = new RunningStatistics();
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                double[] values = {x * 10 + y, x - y, 1e6 + x * y};
+                Long organId = y % 2 == 0 ? 7L : null;
+                cells.add(MatrixAggregation.CellSummary.of(x, y, organId, values));
+                all.addAll(values);
+                if (x == 1) theme1.addAll(values);
+                if (organId != null) organ7.addAll(values);
+            }
+        }
+
+        // One cell per task forces every partial result through a merge
+        MatrixAggregation.Result result = new MatrixAggregation(new ForkJoinPool(4), 1).aggregate(cells);
+
+        assertStatistics(all, result.getOverall());
+        assertStatistics(theme1, result.getByTheme().get(1));
+        assertStatistics(organ7, result.getByOrgan().get(7L));
+        assertEquals(100, result.getByCell().size());
+        assertEquals(10, result.getByStatement().size());
+    }
+
+    @Test
+    void emptyCellsAreLeftOutOfEveryGroup() {
+        MatrixAggregation.Result result = new MatrixAggregation(ForkJoinPool.commonPool(), 32).aggregate(List.of(
+                MatrixAggregation.CellSummary.of(1, 2, 3L, new double[0]),
+                MatrixAggregation.CellSummary.of(1, 3, null, new double[]{5})));
+
+        assertEquals(1, result.getOverall().getCount());
+        assertFalse(result.getByCell().containsKey(MatrixAggregation.Result.cellKey(1, 2)));
+        assertFalse(result.getByOrgan().containsKey(3L));
+        assertEquals(1, result.getByTheme().get(1).getCount());
+    }
+
+    @Test
+    void summariesAreNotModifiedByMerging() {
+        RunningStatistics cell = new RunningStatistics();
+        cell.addAll(new double[]{1, 2});
+
+        new MatrixAggregation(ForkJoinPool.commonPool(), 32).aggregate(List.of(
+                new MatrixAggregation.CellSummary(0, 0, null, cell),
+                new MatrixAggregation.CellSummary(0, 1, null, cell)));
+
+        assertEquals(2, cell.getCount());
+        assertEquals(1.5, cell.getMean(), 1e-12);
+    }
+
+    private static void assertStatistics(RunningStatistics expected, RunningStatistics actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getSum(), actual.getSum(), Math.abs(expected.getSum()) * 1e-12);
+        assertEquals(expected.getMean(), actual.getMean(), Math.abs(expected.getMean()) * 1e-12);
+        assertEquals(expected.getM2(), actual.getM2(), Math.abs(expected.getM2()) * 1e-9);
+        assertEquals(expected.getMin(), actual.getMin());
+        assertEquals(expected.getMax(), actual.getMax());
+    }
+}
@@ -0,0 +1,67 @@
+package de.fhdo.zarya.api.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RunningStatisticsTest {
+
+    @Test
+    void addMatchesTwoPassStatistics() {
+        double[] values = {4, 7, 13, 16, 2.5, -3};
+        RunningStatistics statistics = new RunningStatistics();
+        statistics.addAll(values);
+
+        double mean = 0;
+        for (double value : values) mean += value / values.length;
+        double m2 = 0;
+        for (double value : values) m2 += (value - mean) * (value - mean);
+
+        assertEquals(values.length, statistics.getCount());
+        assertEquals(39.5, statistics.getSum(), 1e-12);
+        assertEquals(mean, statistics.getMean(), 1e-12);
+        assertEquals(m2, statistics.getM2(), 1e-9);
+        assertEquals(m2 / values.length, statistics.getVariance(), 1e-9);
+        assertEquals(-3, statistics.getMin());
+        assertEquals(16, statistics.getMax());
+    }
+
+    @Test
+    void mergeEqualsAddingAllValues() {
+        RunningStatistics left = new RunningStatistics();
+        left.addAll(new double[]{1e9 + 4, 1e9 + 7, 1e9 + 13});
+        RunningStatistics right = new RunningStatistics();
+        right.addAll(new double[]{1e9 + 16, 1e9 - 2});
+        RunningStatistics all = new RunningStatistics();
+        all.addAll(new double[]{1e9 + 4, 1e9 + 7, 1e9 + 13, 1e9 + 16, 1e9 - 2});
+
+        left.merge(right);
+
+        assertEquals(all.getCount(), left.getCount());
+        assertEquals(all.getMean(), left.getMean(), 1e-6);
+        assertEquals(all.getM2(), left.getM2(), 1e-6);
+        assertEquals(all.getMin(), left.getMin());
+        assertEquals(all.getMax(), left.getMax());
+    }
+
+    @Test
+    void mergeWithEmptyKeepsEitherSide() {
+        RunningStatistics values = new RunningStatistics();
+        values.addAll(new double[]{3, 5});
+
+        RunningStatistics empty = new RunningStatistics();
+        empty.merge(values);
+        values.merge(new RunningStatistics());
+
+        assertEquals(2, empty.getCount());
+        assertEquals(4, empty.getMean());
+        assertEquals(2, empty.getM2());
+        assertEquals(2, values.getCount());
+        assertEquals(2, values.getM2());
+    }
+
+    @Test
+    void emptyHasNoVariance() {
+        assertEquals(0.0, new RunningStatistics().getVariance());
+    }
+}